@@ -0,0 +1,88 @@
+package benchmarks;
+
+import model.YangModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON conversion and file output over a parsed generated module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"8"})
+    public int fanOut;
+
+    @Param({"10000", "100000"})
+    public int lines;
+
+    private Path dir;
+    private Path source;
+    private String output;
+    private Object converter;
+    private YangModule module;
+    private Object json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("yang-converter-bench");
+        source = new CorpusGenerator(depth, fanOut, lines).generate(dir, "bench");
+        output = dir.resolve("bench.json").toString();
+        module = Yang.parseYangFile(Yang.newParser(), source.toString());
+        converter = Yang.newConverter();
+        json = Yang.convertToJson(converter, module);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(Path.of(output));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Object convertToJson() {
+        return Yang.convertToJson(converter, module);
+    }
+
+    @Benchmark
+    public String convertToJsonString() {
+        return Yang.convertToJsonString(converter, module);
+    }
+
+    // Every call after the first produces the same file, so the save
+    // benchmarks measure conversion plus comparison with the file on disk
+
+    @Benchmark
+    public boolean saveJsonToFile() {
+        return Yang.saveJsonToFile(converter, json, output);
+    }
+
+    @Benchmark
+    public boolean saveModuleToFile() {
+        return Yang.saveModuleToFile(converter, module, output);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes synthetic YANG modules for the benchmarks.
+ *
+ * Each top-level container nests {@code depth} levels deep. At every level it
+ * holds one nested container plus {@code fanOut - 1} leaf, leaf-list and list
+ * siblings. Top-level containers are repeated until the module reaches
+ * {@code lines} lines.
+ */
+final class CorpusGenerator {
+    private final int depth;
+    private final int fanOut;
+    private final int lines;
+
+    private BufferedWriter out;
+    private int written;
+
+    CorpusGenerator(int depth, int fanOut, int lines) {
+        this.depth = depth;
+        this.fanOut = fanOut;
+        this.lines = lines;
+    }
+
+    Path generate(Path dir, String moduleName) throws IOException {
+        Path file = dir.resolve(moduleName + ".yang");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out = writer;
+            written = 0;
+            line(0, "module " + moduleName + " {");
+            line(1, "namespace \"urn:bench:" + moduleName + "\";");
+            line(1, "prefix " + moduleName + ";");
+            for (int i = 0; written < lines - 1; i++) {
+                container(1, "group-" + i, depth);
+            }
+            line(0, "}");
+        } finally {
+            out = null;
+        }
+        return file;
+    }
+
+    private void container(int indent, String name, int remaining) throws IOException {
+        line(indent, "container " + name + " {");
+        line(indent + 1, "description \"Generated container " + name + "\";");
+        if (remaining > 1) {
+            container(indent + 1, name + "-c", remaining - 1);
+        }
+        for (int i = 1; i < fanOut; i++) {
+            switch (i % 3) {
+                case 0:
+                    line(indent + 1, "list entry-" + i + " {");
+                    line(indent + 2, "key \"id\";");
+                    leaf(indent + 2, "leaf", "id", "uint32", true);
+                    line(indent + 1, "}");
+                    break;
+                case 1:
+                    leaf(indent + 1, "leaf", "value-" + i, "string", i == 1);
+                    break;
+                default:
+                    leaf(indent + 1, "leaf-list", "items-" + i, "int64", false);
+                    break;
+            }
+        }
+        line(indent, "}");
+    }
+
+    private void leaf(int indent, String keyword, String name, String type, boolean mandatory) throws IOException {
+        line(indent, keyword + " " + name + " {");
+        line(indent + 1, "type " + type + ";");
+        if (mandatory) {
+            line(indent + 1, "mandatory true;");
+        }
+        line(indent + 1, "description \"Generated " + keyword + " " + name + "\";");
+        line(indent, "}");
+    }
+
+    private void line(int indent, String text) throws IOException {
+        for (int i = 0; i < indent; i++) {
+            out.write("    ");
+        }
+        out.write(text);
+        out.write('\n');
+        written++;
+    }
+}
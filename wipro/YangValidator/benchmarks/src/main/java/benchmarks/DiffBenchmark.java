@@ -0,0 +1,84 @@
+package benchmarks;
+
+import model.YangModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schema diff between two parses of a generated module. 500,000 lines are
+ * about 125,000 nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiffBenchmark {
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"8"})
+    public int fanOut;
+
+    @Param({"100000", "500000"})
+    public int lines;
+
+    private Path dir;
+    private Path source;
+    private Path revised;
+    private YangModule module;
+    private YangModule sameRevision;
+    private YangModule changedRevision;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("yang-diff-bench");
+        source = new CorpusGenerator(depth, fanOut, lines).generate(dir, "bench");
+        // Every int64 leaf-list changes type and every value-1 leaf is
+        // renamed, so each container needs the hashed sibling match
+        String text = Files.readString(source, StandardCharsets.UTF_8)
+                .replace("type int64;", "type int32;")
+                .replace("leaf value-1 {", "leaf value-1-renamed {");
+        revised = Files.writeString(dir.resolve("bench-revised.yang"), text, StandardCharsets.UTF_8);
+
+        Object parser = Yang.newParser();
+        module = Yang.parseYangFile(parser, source.toString());
+        sameRevision = Yang.parseYangFile(parser, source.toString());
+        changedRevision = Yang.parseYangFile(parser, revised.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(revised);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Object unchanged() {
+        return Yang.compareSchemas(module, sameRevision);
+    }
+
+    @Benchmark
+    public Object changed() {
+        return Yang.compareSchemas(module, changedRevision);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import model.YangModule;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of each output format over a parsed generated
+ * module. The encoded size is reported as the "bytes" counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+
+    @Param({"json", "json-min", "cbor", "msgpack"})
+    public String format;
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"8"})
+    public int fanOut;
+
+    @Param({"100000"})
+    public int lines;
+
+    private Path dir;
+    private Path source;
+    private Object outputFormat;
+    private YangModule module;
+    private byte[] encoded;
+    private ByteArrayOutputStream buffer;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("yang-format-bench");
+        source = new CorpusGenerator(depth, fanOut, lines).generate(dir, "bench");
+        module = Yang.parseYangFile(Yang.newParser(), source.toString());
+        outputFormat = Yang.outputFormat(format);
+
+        buffer = new ByteArrayOutputStream(1 << 20);
+        Yang.writeFormat(outputFormat, module, buffer);
+        encoded = buffer.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public int encode(Size size) {
+        buffer.reset();
+        Yang.writeFormat(outputFormat, module, buffer);
+        size.bytes = buffer.size();
+        return buffer.size();
+    }
+
+    @Benchmark
+    public YangModule decode() {
+        return Yang.readFormat(outputFormat, new ByteArrayInputStream(encoded));
+    }
+}
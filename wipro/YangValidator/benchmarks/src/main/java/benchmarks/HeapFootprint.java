@@ -0,0 +1,76 @@
+package benchmarks;
+
+import model.YangModule;
+import model.YangNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Measures retained heap per schema node for a set of parsed modules.
+ *
+ * Usage: java -cp benchmarks.jar benchmarks.HeapFootprint [modules] [linesPerModule]
+ */
+public final class HeapFootprint {
+
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int modules = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        Path dir = Files.createTempDirectory("yang-heap");
+        List<Path> files = new ArrayList<>(modules);
+        CorpusGenerator generator = new CorpusGenerator(4, 8, lines);
+        for (int i = 0; i < modules; i++) {
+            files.add(generator.generate(dir, "module" + i));
+        }
+
+        Object parser = Yang.newParser();
+        long before = usedHeap();
+        List<YangModule> loaded = new ArrayList<>(modules);
+        for (Path file : files) {
+            loaded.add(Yang.parseYangFile(parser, file.toString()));
+        }
+        long after = usedHeap();
+
+        long nodes = 0;
+        for (YangModule module : loaded) {
+            nodes += countNodes(module);
+        }
+        long retained = after - before;
+        System.out.printf("%d modules, %d nodes, %.1f MB retained, %.1f bytes/node%n",
+                modules, nodes, retained / (1024.0 * 1024.0), retained / (double) nodes);
+
+        for (Path file : files) {
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    private static long countNodes(YangModule module) {
+        Deque<YangNode> stack = new ArrayDeque<>(module.getNodes());
+        long count = 0;
+        while (!stack.isEmpty()) {
+            YangNode node = stack.pop();
+            count++;
+            for (YangNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,116 @@
+package benchmarks;
+
+import model.NodeKind;
+import model.SchemaIndex;
+import model.YangModule;
+import model.YangNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path lookups through SchemaIndex against walking the module tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexBenchmark {
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"8"})
+    public int fanOut;
+
+    @Param({"10000", "100000"})
+    public int lines;
+
+    private Path dir;
+    private Path source;
+    private YangModule module;
+    private SchemaIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("yang-index-bench");
+        source = new CorpusGenerator(depth, fanOut, lines).generate(dir, "bench");
+        module = Yang.parseYangFile(Yang.newParser(), source.toString());
+        index = SchemaIndex.build(module);
+
+        List<String> paths = index.descendantPaths("/");
+        Random random = new Random(42);
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = paths.get(random.nextInt(paths.size()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(dir);
+    }
+
+    private String nextQuery() {
+        return queries[next++ & (queries.length - 1)];
+    }
+
+    @Benchmark
+    public YangNode indexLookup() {
+        return index.get(nextQuery());
+    }
+
+    @Benchmark
+    public YangNode treeWalkLookup() {
+        String[] segments = nextQuery().substring(1).split("/");
+        List<YangNode> level = module.getNodes();
+        YangNode found = null;
+        for (String segment : segments) {
+            found = null;
+            for (YangNode node : level) {
+                if (node.getName().equals(segment)) {
+                    found = node;
+                    break;
+                }
+            }
+            if (found == null) {
+                return null;
+            }
+            level = found.getChildren();
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SchemaIndex build() {
+        return SchemaIndex.build(module);
+    }
+
+    @Benchmark
+    public List<YangNode> leavesUnderFirstContainer() {
+        return index.descendants(queries[0].substring(0, queries[0].indexOf('/', 1) < 0
+                ? queries[0].length() : queries[0].indexOf('/', 1)), NodeKind.LEAF);
+    }
+}
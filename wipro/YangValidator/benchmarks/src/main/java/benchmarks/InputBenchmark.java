@@ -0,0 +1,93 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizing line-based BufferedReader input, as the parser did before the
+ * lexer, against lexing heap and memory-mapped input. All three arms
+ * produce the same token stream; setUp checks that their counts agree.
+ * YangSource maps only files of 4 MB or more, so at 1 MB mappedLex reads
+ * the file onto the heap. Run with -prof gc to see the allocation
+ * difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InputBenchmark {
+    // Generated lines average a little over 32 bytes
+    private static final int LINES_PER_MB = 1024 * 1024 / 32;
+    // Quoted strings, the single-character tokens and unquoted words
+    private static final Pattern TOKEN = Pattern.compile("\"(?:[^\"\\\\]|\\\\.)*\"|'[^']*'|[{};+]|[^\\s{};+\"']+");
+
+    @Param({"1", "10", "100"})
+    public int sizeMb;
+
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("yang-input-bench");
+        file = new CorpusGenerator(3, 6, sizeMb * LINES_PER_MB).generate(dir, "input");
+        long lexed = heapLex();
+        long matched = bufferedReaderTokens();
+        if (lexed != matched) {
+            throw new IllegalStateException("Lexer found " + lexed + " tokens, line tokenizer " + matched);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public long bufferedReaderTokens() throws IOException {
+        long tokens = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = TOKEN.matcher(line.trim());
+                while (matcher.find()) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    public long heapLex() throws IOException {
+        return Yang.countTokens(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    @Benchmark
+    public long mappedLex() {
+        return Yang.countTokens(Yang.openSource(file));
+    }
+}
@@ -0,0 +1,322 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Writes sets of synthetic modules that look like real ones: headers with
+ * revisions and imports, typedefs, groupings and uses, choices, keyed
+ * lists, must and config statements, references to imported typedefs and
+ * groupings, and long descriptions split into '+'-joined strings.
+ * Top-level containers of random shape, up to {@code depth} levels deep
+ * with up to {@code fanOut} children per level, are added until a module
+ * reaches {@code lines} lines.
+ *
+ * Output depends only on the settings and the seed. Each module draws from
+ * its own random stream, so module {@code i} is the same in every set of
+ * more than {@code i} modules. Module {@code i} imports up to
+ * {@code imports} of the modules before it, which keeps the import graph
+ * acyclic.
+ */
+final class ModuleSetGenerator {
+    private static final String[] WORDS = {
+        "interface", "address", "route", "policy", "peer", "session", "counter", "queue", "tunnel", "vlan",
+        "port", "neighbor", "filter", "profile", "server", "client", "metric", "timer", "channel", "group",
+        "user", "role", "key", "certificate", "alarm", "event", "log", "target", "source", "path"
+    };
+    private static final String[] TYPES = {
+        "string", "boolean", "uint8", "uint16", "uint32", "uint64", "int32", "int64", "decimal64", "empty"
+    };
+    private static final int MAX_LINE = 72;
+
+    private long seed = 1;
+    private int modules = 100;
+    private int lines = 4000;
+    private int depth = 4;
+    private int fanOut = 6;
+    private int descriptionLength = 80;
+    private int imports = 3;
+
+    private BufferedWriter out;
+    private Random random;
+    private int written;
+    private int counter;
+
+    // Settings, each returning this generator
+    ModuleSetGenerator seed(long seed) { this.seed = seed; return this; }
+    ModuleSetGenerator modules(int modules) { this.modules = positive("modules", modules); return this; }
+    ModuleSetGenerator lines(int lines) { this.lines = positive("lines", lines); return this; }
+    ModuleSetGenerator depth(int depth) { this.depth = positive("depth", depth); return this; }
+    ModuleSetGenerator fanOut(int fanOut) { this.fanOut = positive("fanOut", fanOut); return this; }
+    ModuleSetGenerator descriptionLength(int length) { this.descriptionLength = positive("descriptionLength", length); return this; }
+    ModuleSetGenerator imports(int imports) { this.imports = Math.max(0, imports); return this; }
+
+    /** The settings as name=value pairs, used to tell whether two corpora are the same. */
+    String describe() {
+        return "seed=" + seed + " modules=" + modules + " lines=" + lines + " depth=" + depth
+                + " fanOut=" + fanOut + " descriptionLength=" + descriptionLength + " imports=" + imports;
+    }
+
+    /**
+     * Writes the module set into dir, one file per module, and returns the
+     * files in import order.
+     */
+    List<Path> generate(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>(modules);
+        for (int i = 0; i < modules; i++) {
+            files.add(generate(dir, i));
+        }
+        return files;
+    }
+
+    static String moduleName(int index) {
+        return String.format("corpus-%04d", index);
+    }
+
+    private Path generate(Path dir, int index) throws IOException {
+        String name = moduleName(index);
+        Path file = dir.resolve(name + ".yang");
+        random = new Random(seed * 0x9E3779B97F4A7C15L + index);
+        counter = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out = writer;
+            written = 0;
+            String prefix = prefix(index);
+            line(0, "module " + name + " {");
+            line(1, "yang-version 1.1;");
+            line(1, "namespace \"urn:corpus:" + name + "\";");
+            line(1, "prefix " + prefix + ";");
+            blank();
+            List<Integer> imported = chooseImports(index);
+            for (int target : imported) {
+                line(1, "import " + moduleName(target) + " {");
+                line(2, "prefix " + prefix(target) + ";");
+                line(1, "}");
+            }
+            if (!imported.isEmpty()) {
+                blank();
+            }
+            line(1, "organization \"Corpus Networks\";");
+            line(1, "contact \"corpus@example.com\";");
+            description(1);
+            line(1, String.format("revision 2024-%02d-%02d {", 1 + index % 12, 1 + index % 28));
+            description(2);
+            line(1, "}");
+            blank();
+            definitions(prefix);
+            for (int i = 0; written < lines - 1; i++) {
+                blank();
+                container(1, word() + "-" + i, depth, prefix, imported);
+            }
+            line(0, "}");
+        } finally {
+            out = null;
+            random = null;
+        }
+        return file;
+    }
+
+    private List<Integer> chooseImports(int index) {
+        TreeSet<Integer> chosen = new TreeSet<>();
+        int count = Math.min(imports, index);
+        while (chosen.size() < count) {
+            chosen.add(random.nextInt(index));
+        }
+        return new ArrayList<>(chosen);
+    }
+
+    /** Typedefs and groupings every module defines, so importers can refer to them. */
+    private void definitions(String prefix) throws IOException {
+        line(1, "typedef " + prefix + "-id {");
+        line(2, "type uint32 {");
+        line(3, "range \"1..max\";");
+        line(2, "}");
+        description(2);
+        line(1, "}");
+        line(1, "typedef " + prefix + "-label {");
+        line(2, "type string {");
+        line(3, "length \"1..64\";");
+        line(2, "}");
+        line(1, "}");
+        blank();
+        line(1, "grouping " + prefix + "-common {");
+        description(2);
+        leaf(2, "leaf", "name", prefix + "-label", true);
+        leaf(2, "leaf", "enabled", "boolean", false);
+        line(2, "container statistics {");
+        line(3, "config false;");
+        leaf(3, "leaf", "in-octets", "uint64", false);
+        leaf(3, "leaf", "out-octets", "uint64", false);
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private void container(int indent, String name, int remaining, String prefix, List<Integer> imported)
+            throws IOException {
+        line(indent, "container " + name + " {");
+        description(indent + 1);
+        body(indent + 1, remaining, prefix, imported);
+        line(indent, "}");
+    }
+
+    /** The children of a container, list or case, at most remaining - 1 levels deep. */
+    private void body(int indent, int remaining, String prefix, List<Integer> imported) throws IOException {
+        int children = 1 + random.nextInt(fanOut);
+        boolean used = false; // groupings share leaf names, so one uses per level
+        for (int i = 0; i < children; i++) {
+            String name = word() + "-" + counter++;
+            int pick = random.nextInt(remaining > 1 ? 10 : 6);
+            if (used && (pick == 4 || pick == 5)) {
+                pick = 0;
+            }
+            switch (pick) {
+                case 0:
+                case 1:
+                    leaf(indent, "leaf", name, TYPES[random.nextInt(TYPES.length)], random.nextInt(4) == 0);
+                    break;
+                case 2:
+                    leaf(indent, "leaf-list", name, TYPES[random.nextInt(TYPES.length)], false);
+                    break;
+                case 3:
+                    if (imported.isEmpty()) {
+                        leaf(indent, "leaf", name, prefix + "-id", false);
+                    } else {
+                        String other = prefix(imported.get(random.nextInt(imported.size())));
+                        leaf(indent, "leaf", name, other + ":" + other + "-id", false);
+                    }
+                    break;
+                case 4:
+                    line(indent, "uses " + prefix + "-common;");
+                    used = true;
+                    break;
+                case 5:
+                    if (imported.isEmpty()) {
+                        leaf(indent, "leaf", name, "string", false);
+                    } else {
+                        String other = prefix(imported.get(random.nextInt(imported.size())));
+                        line(indent, "uses " + other + ":" + other + "-common;");
+                        used = true;
+                    }
+                    break;
+                case 6:
+                case 7:
+                    container(indent, name, remaining - 1, prefix, imported);
+                    break;
+                case 8:
+                    list(indent, name, remaining - 1, prefix, imported);
+                    break;
+                default:
+                    choice(indent, name, remaining - 1, prefix, imported);
+                    break;
+            }
+        }
+    }
+
+    private void list(int indent, String name, int remaining, String prefix, List<Integer> imported)
+            throws IOException {
+        line(indent, "list " + name + " {");
+        line(indent + 1, "key \"id\";");
+        if (random.nextInt(3) == 0) {
+            line(indent + 1, "config false;");
+        }
+        description(indent + 1);
+        leaf(indent + 1, "leaf", "id", prefix + "-id", false);
+        body(indent + 1, remaining, prefix, imported);
+        line(indent, "}");
+    }
+
+    private void choice(int indent, String name, int remaining, String prefix, List<Integer> imported)
+            throws IOException {
+        line(indent, "choice " + name + " {");
+        description(indent + 1);
+        int cases = 2 + random.nextInt(2);
+        for (int i = 0; i < cases; i++) {
+            line(indent + 1, "case " + name + "-" + i + " {");
+            body(indent + 2, remaining, prefix, imported);
+            line(indent + 1, "}");
+        }
+        line(indent, "}");
+    }
+
+    private void leaf(int indent, String keyword, String name, String type, boolean mandatory) throws IOException {
+        line(indent, keyword + " " + name + " {");
+        line(indent + 1, "type " + type + ";");
+        if (mandatory) {
+            line(indent + 1, "mandatory true;");
+        } else if (random.nextInt(8) == 0) {
+            line(indent + 1, "must \"../" + name + " != ''\";");
+        }
+        description(indent + 1);
+        line(indent, "}");
+    }
+
+    /**
+     * A description of about descriptionLength characters, on one line if
+     * it fits and otherwise as quoted pieces joined with '+'.
+     */
+    private void description(int indent) throws IOException {
+        StringBuilder text = new StringBuilder(descriptionLength + 16);
+        while (text.length() < descriptionLength) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(word());
+        }
+        text.setCharAt(0, Character.toUpperCase(text.charAt(0)));
+        text.append('.');
+        int width = Math.max(24, MAX_LINE - 4 * (indent + 1));
+        if (text.length() <= width - "description \"\";".length()) {
+            line(indent, "description \"" + text + "\";");
+            return;
+        }
+        line(indent, "description");
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + width);
+            if (end < text.length()) {
+                int space = text.lastIndexOf(" ", end);
+                end = space > start ? space + 1 : end;
+            }
+            boolean last = end == text.length();
+            line(indent + 1, "\"" + text.substring(start, end) + (last ? "\";" : "\" +"));
+            start = end;
+        }
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String prefix(int index) {
+        return "c" + index;
+    }
+
+    private static int positive(String setting, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(setting + " must be at least 1");
+        }
+        return value;
+    }
+
+    private void blank() throws IOException {
+        out.write('\n');
+        written++;
+    }
+
+    private void line(int indent, String text) throws IOException {
+        for (int i = 0; i < indent; i++) {
+            out.write("    ");
+        }
+        out.write(text);
+        out.write('\n');
+        written++;
+    }
+}
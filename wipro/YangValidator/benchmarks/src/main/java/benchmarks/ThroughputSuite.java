@@ -0,0 +1,404 @@
+package benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * End-to-end throughput of validate and convert over a generated module
+ * set, checked against a stored baseline.
+ *
+ * The corpus comes from ModuleSetGenerator with a fixed seed. Each scenario
+ * runs in its own JVM so peak RSS and GC figures belong to that scenario
+ * alone, and on one thread so results compare across machines with
+ * different core counts:
+ *
+ *   validate        the validate command, resolving imports from the corpus
+ *   convert         the convert command, into a fresh output directory each run
+ *   stream-convert  JsonConverter.streamJsonToFile per file, as the interactive convert does
+ *
+ * Files/sec and MB/sec come from the median of the measured runs. GC
+ * pauses cover the measured runs; peak RSS covers the whole JVM.
+ *
+ * The suite exits with 1 when a scenario's MB/sec falls more than the
+ * threshold below the baseline, and with 2 on bad arguments or a baseline
+ * recorded for a different corpus. Baselines are machine-specific; record
+ * one with --update-baseline on the machine that runs the check.
+ *
+ * Usage: java -cp benchmarks.jar benchmarks.ThroughputSuite [options]
+ */
+public final class ThroughputSuite {
+    private static final String USAGE = String.join("\n",
+            "Usage: java -cp benchmarks.jar benchmarks.ThroughputSuite [options]",
+            "Options:",
+            "  --baseline <file>          stored results (default: benchmarks/throughput-baseline.properties)",
+            "  --threshold <fraction>     allowed MB/sec drop below the baseline (default: 0.2)",
+            "  --update-baseline          store this run's results instead of checking them",
+            "  --scenario <name>          validate, convert or stream-convert (repeatable; default: all)",
+            "  --warmup <n>               unmeasured runs per scenario (default: 3)",
+            "  --iterations <n>           measured runs per scenario (default: 5)",
+            "  --heap <size>              -Xmx of each scenario JVM (default: 512m)",
+            "  --seed <n>                 corpus seed (default: 1)",
+            "  --modules <n>              modules in the corpus (default: 100)",
+            "  --lines <n>                lines per module (default: 4000)",
+            "  --depth <n>                container nesting depth (default: 4)",
+            "  --fan-out <n>              most children per container (default: 6)",
+            "  --description-length <n>   characters per description (default: 80)",
+            "  --imports <n>              imports per module (default: 3)");
+    private static final String RUN = "--run";
+    private static final double MB = 1024.0 * 1024.0;
+
+    /** One measured workload over the corpus. */
+    private enum Scenario {
+        VALIDATE("validate"),
+        CONVERT("convert"),
+        STREAM_CONVERT("stream-convert");
+
+        private final String name;
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        static Scenario forName(String name) {
+            for (Scenario scenario : values()) {
+                if (scenario.name.equals(name)) {
+                    return scenario;
+                }
+            }
+            throw new IllegalArgumentException("Unknown scenario '" + name + "'");
+        }
+    }
+
+    private ThroughputSuite() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(RUN)) {
+            runScenario(Scenario.forName(args[1]), Path.of(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]));
+            return;
+        }
+
+        ModuleSetGenerator generator = new ModuleSetGenerator();
+        Path baselineFile = Path.of("benchmarks", "throughput-baseline.properties");
+        double threshold = 0.2;
+        boolean update = false;
+        List<Scenario> scenarios = new ArrayList<>();
+        int warmup = 3;
+        int iterations = 5;
+        String heap = "512m";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--update-baseline")) {
+                    update = true;
+                    continue;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Unknown option or missing value: " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--baseline": baselineFile = Path.of(value); break;
+                    case "--threshold": threshold = Double.parseDouble(value); break;
+                    case "--scenario": scenarios.add(Scenario.forName(value)); break;
+                    case "--warmup": warmup = Integer.parseInt(value); break;
+                    case "--iterations": iterations = Integer.parseInt(value); break;
+                    case "--heap": heap = value; break;
+                    case "--seed": generator.seed(Long.parseLong(value)); break;
+                    case "--modules": generator.modules(Integer.parseInt(value)); break;
+                    case "--lines": generator.lines(Integer.parseInt(value)); break;
+                    case "--depth": generator.depth(Integer.parseInt(value)); break;
+                    case "--fan-out": generator.fanOut(Integer.parseInt(value)); break;
+                    case "--description-length": generator.descriptionLength(Integer.parseInt(value)); break;
+                    case "--imports": generator.imports(Integer.parseInt(value)); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (threshold < 0 || threshold >= 1 || warmup < 0 || iterations < 1) {
+                throw new IllegalArgumentException("Threshold must be in [0, 1) and iterations at least 1");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (scenarios.isEmpty()) {
+            scenarios.addAll(Arrays.asList(Scenario.values()));
+        }
+
+        Properties baseline = new Properties();
+        if (!update) {
+            if (!Files.isRegularFile(baselineFile)) {
+                System.err.println("Error: no baseline at " + baselineFile + "; record one with --update-baseline");
+                System.exit(2);
+            }
+            try (InputStream in = Files.newInputStream(baselineFile)) {
+                baseline.load(in);
+            }
+            if (!generator.describe().equals(baseline.getProperty("corpus"))) {
+                System.err.println("Error: baseline was recorded for corpus '" + baseline.getProperty("corpus")
+                        + "', not '" + generator.describe() + "'");
+                System.exit(2);
+            }
+        }
+
+        Path corpus = Files.createTempDirectory("yang-corpus");
+        Properties results = new Properties();
+        boolean regressed = false;
+        try {
+            List<Path> files = generator.generate(corpus);
+            long bytes = 0;
+            for (Path file : files) {
+                bytes += Files.size(file);
+            }
+            System.out.printf(Locale.ROOT, "Corpus: %s (%d files, %.1f MB)%n", generator.describe(), files.size(),
+                    bytes / MB);
+            System.out.printf(Locale.ROOT, "%-16s %10s %10s %10s %10s %10s %8s%n",
+                    "scenario", "files/s", "MB/s", "RSS MB", "GC ms", "GC max ms", "GCs");
+            for (Scenario scenario : scenarios) {
+                Properties result = fork(scenario, corpus, warmup, iterations, heap);
+                double mbPerSecond = Double.parseDouble(result.getProperty("mbPerSecond"));
+                System.out.printf(Locale.ROOT, "%-16s %10s %10s %10s %10s %10s %8s%n", scenario.name,
+                        result.getProperty("filesPerSecond"), result.getProperty("mbPerSecond"),
+                        result.getProperty("peakRssMb"), result.getProperty("gcPauseMs"),
+                        result.getProperty("gcMaxPauseMs"), result.getProperty("gcCount"));
+                for (String key : result.stringPropertyNames()) {
+                    results.setProperty(scenario.name + "." + key, result.getProperty(key));
+                }
+                if (!update) {
+                    regressed |= !check(scenario, mbPerSecond, baseline, threshold);
+                }
+            }
+        } finally {
+            deleteTree(corpus);
+        }
+
+        if (update) {
+            results.setProperty("corpus", generator.describe());
+            storeBaseline(baselineFile, results);
+            System.out.println("✓ Baseline written to " + baselineFile);
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    /** Prints the comparison for one scenario; returns false on a regression. */
+    private static boolean check(Scenario scenario, double mbPerSecond, Properties baseline, double threshold) {
+        String stored = baseline.getProperty(scenario.name + ".mbPerSecond");
+        if (stored == null) {
+            System.out.println("  " + scenario.name + ": no baseline, not checked");
+            return true;
+        }
+        double expected = Double.parseDouble(stored);
+        double change = mbPerSecond / expected - 1;
+        boolean ok = change >= -threshold;
+        System.out.printf(Locale.ROOT, "%s %s: %.2f MB/s against %.2f (%+.1f%%, limit -%.0f%%)%n", ok ? "✓" : "✗",
+                scenario.name, mbPerSecond, expected, change * 100, threshold * 100);
+        return ok;
+    }
+
+    /** Runs one scenario in a new JVM on this classpath and returns its results. */
+    private static Properties fork(Scenario scenario, Path corpus, int warmup, int iterations, String heap)
+            throws IOException, InterruptedException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-Xmx" + heap, "-cp", System.getProperty("java.class.path"),
+                ThroughputSuite.class.getName(), RUN, scenario.name, corpus.toString(),
+                Integer.toString(warmup), Integer.toString(iterations))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("Scenario " + scenario.name + " failed with exit code " + exitCode);
+        }
+        Properties result = new Properties();
+        result.load(new StringReader(output));
+        return result;
+    }
+
+    /**
+     * Body of a scenario JVM: runs the scenario and prints its results as
+     * properties on stdout.
+     */
+    private static void runScenario(Scenario scenario, Path corpus, int warmup, int iterations) throws Exception {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(corpus)) {
+            files = listing.filter(file -> file.toString().endsWith(".yang")).sorted().toList();
+        }
+        long bytes = 0;
+        for (Path file : files) {
+            bytes += Files.size(file);
+        }
+
+        // The commands print a line per file; keep it out of the results
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+        Path output = Files.createTempDirectory("yang-throughput");
+        PauseRecorder pauses = new PauseRecorder();
+        long[] times = new long[iterations];
+        try {
+            for (int i = 0; i < warmup + iterations; i++) {
+                Path runDir = output.resolve("run-" + i);
+                if (i == warmup) {
+                    pauses.start();
+                }
+                long start = System.nanoTime();
+                run(scenario, corpus, files, runDir);
+                long elapsed = System.nanoTime() - start;
+                if (i >= warmup) {
+                    times[i - warmup] = elapsed;
+                }
+                deleteTree(runDir);
+            }
+            pauses.stop();
+        } finally {
+            System.setOut(stdout);
+            deleteTree(output);
+        }
+
+        Arrays.sort(times);
+        double seconds = times[iterations / 2] / 1e9;
+        Properties result = new Properties();
+        result.setProperty("filesPerSecond", format(files.size() / seconds));
+        result.setProperty("mbPerSecond", format(bytes / MB / seconds));
+        long peakRss = peakRssKilobytes();
+        result.setProperty("peakRssMb", peakRss < 0 ? "n/a" : format(peakRss / 1024.0));
+        result.setProperty("gcPauseMs", Long.toString(pauses.getTotalMillis()));
+        result.setProperty("gcMaxPauseMs", Long.toString(pauses.getMaxMillis()));
+        result.setProperty("gcCount", Long.toString(pauses.getCount()));
+        Writer out = new OutputStreamWriter(stdout, StandardCharsets.UTF_8);
+        result.store(out, null);
+        out.flush();
+    }
+
+    private static void run(Scenario scenario, Path corpus, List<Path> files, Path runDir) throws IOException {
+        String dir = corpus.toString();
+        switch (scenario) {
+            case VALIDATE:
+                expectSuccess(Yang.runCommand("validate", dir, "--path", dir, "--parallelism", "1"), scenario);
+                break;
+            case CONVERT:
+                expectSuccess(Yang.runCommand("convert", dir, "--path", dir, "--parallelism", "1",
+                        "--output", runDir.toString()), scenario);
+                break;
+            default:
+                Object converter = Yang.newConverter();
+                for (Path file : files) {
+                    String name = file.getFileName().toString().replace(".yang", ".json");
+                    if (!Yang.streamJsonToFile(converter, file.toString(), runDir.resolve(name).toString())) {
+                        throw new IOException(file + " has errors");
+                    }
+                }
+                break;
+        }
+    }
+
+    private static void expectSuccess(int exitCode, Scenario scenario) throws IOException {
+        if (exitCode != 0) {
+            throw new IOException(scenario.name + " exited with " + exitCode + "; the corpus should be valid");
+        }
+    }
+
+    /**
+     * Collects GC pauses between start() and stop(). Count and total come
+     * from the collector beans; the longest pause from their notifications.
+     */
+    private static final class PauseRecorder {
+        private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final NotificationListener listener = (notification, handback) -> {
+            if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                maxMillis.accumulateAndGet(info.getGcInfo().getDuration(), Math::max);
+            }
+        };
+        private long count;
+        private long totalMillis;
+
+        void start() {
+            for (GarbageCollectorMXBean collector : collectors) {
+                count -= collector.getCollectionCount();
+                totalMillis -= collector.getCollectionTime();
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+            }
+        }
+
+        void stop() throws Exception {
+            for (GarbageCollectorMXBean collector : collectors) {
+                count += collector.getCollectionCount();
+                totalMillis += collector.getCollectionTime();
+            }
+            Thread.sleep(100); // notifications arrive on their own thread
+            for (GarbageCollectorMXBean collector : collectors) {
+                ((NotificationEmitter) collector).removeNotificationListener(listener);
+            }
+        }
+
+        // Getters
+        long getCount() { return count; }
+        long getTotalMillis() { return totalMillis; }
+        long getMaxMillis() { return maxMillis.get(); }
+    }
+
+    /** The VmHWM of this process, or -1 where /proc is not available. */
+    private static long peakRssKilobytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    private static void storeBaseline(Path file, Properties results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Written by benchmarks.ThroughputSuite --update-baseline; only MB/sec is checked");
+        results.stringPropertyNames().stream().sorted()
+                .forEach(key -> lines.add(key + "=" + results.getProperty(key)));
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package benchmarks;
+
+import model.YangModule;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Bridge to the application classes, which live in the unnamed package and
+ * therefore cannot be imported from here (JMH requires benchmarks to be in a
+ * named package). Handles are resolved once and held in static finals so the
+ * JIT inlines them like direct calls.
+ */
+final class Yang {
+    private static final MethodHandle NEW_PARSER;
+    private static final MethodHandle PARSE_YANG_FILE;
+    private static final MethodHandle VALIDATE_SYNTAX;
+    private static final MethodHandle NEW_CONVERTER;
+    private static final MethodHandle CONVERT_TO_JSON;
+    private static final MethodHandle CONVERT_TO_JSON_STRING;
+    private static final MethodHandle SAVE_JSON_OBJECT;
+    private static final MethodHandle SAVE_MODULE;
+    private static final MethodHandle OPEN_SOURCE;
+    private static final MethodHandle NEW_LEXER;
+    private static final MethodHandle LEXER_NEXT;
+    private static final Object EOF;
+    private static final MethodHandle OUTPUT_FORMAT;
+    private static final MethodHandle FORMAT_WRITE;
+    private static final MethodHandle FORMAT_READ;
+    private static final MethodHandle COMPARE_SCHEMAS;
+    private static final MethodHandle RUN_COMMAND;
+    private static final MethodHandle STREAM_JSON_TO_FILE;
+    private static final MethodHandle STREAM_HAS_ERRORS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> parser = Class.forName("YangParser");
+            Class<?> converter = Class.forName("JsonConverter");
+            Class<?> source = Class.forName("YangSource");
+            Class<?> lexer = Class.forName("YangLexer");
+            Class<?> tokenType = Class.forName("YangTokenType");
+            Class<?> jsonObject = Class.forName("org.json.JSONObject");
+            Class<?> outputFormat = Class.forName("OutputFormat");
+            Class<?> schemaDiff = Class.forName("SchemaDiff");
+            Class<?> commandLine = Class.forName("CommandLine");
+            Class<?> streamResult = Class.forName("JsonConverter$StreamResult");
+
+            NEW_PARSER = generic(lookup.findConstructor(parser, MethodType.methodType(void.class)));
+            PARSE_YANG_FILE = generic(lookup.findVirtual(parser, "parseYangFile",
+                    MethodType.methodType(YangModule.class, String.class)));
+            VALIDATE_SYNTAX = generic(lookup.findVirtual(parser, "validateSyntax",
+                    MethodType.methodType(void.class, String.class)));
+
+            NEW_CONVERTER = generic(lookup.findConstructor(converter, MethodType.methodType(void.class)));
+            CONVERT_TO_JSON = generic(lookup.findVirtual(converter, "convertToJson",
+                    MethodType.methodType(jsonObject, YangModule.class)));
+            CONVERT_TO_JSON_STRING = generic(lookup.findVirtual(converter, "convertToJsonString",
+                    MethodType.methodType(String.class, YangModule.class)));
+            SAVE_JSON_OBJECT = generic(lookup.findVirtual(converter, "saveJsonToFile",
+                    MethodType.methodType(boolean.class, jsonObject, String.class)));
+            SAVE_MODULE = generic(lookup.findVirtual(converter, "saveJsonToFile",
+                    MethodType.methodType(boolean.class, YangModule.class, String.class)));
+
+            OPEN_SOURCE = generic(lookup.findStatic(source, "open",
+                    MethodType.methodType(ByteBuffer.class, Path.class)));
+            NEW_LEXER = generic(lookup.findConstructor(lexer, MethodType.methodType(void.class, ByteBuffer.class)));
+            LEXER_NEXT = generic(lookup.findVirtual(lexer, "next", MethodType.methodType(tokenType)));
+            EOF = tokenType.getField("EOF").get(null);
+
+            OUTPUT_FORMAT = generic(lookup.findStatic(outputFormat, "forName",
+                    MethodType.methodType(outputFormat, String.class)));
+            FORMAT_WRITE = generic(lookup.findVirtual(outputFormat, "write",
+                    MethodType.methodType(void.class, YangModule.class, OutputStream.class)));
+            FORMAT_READ = generic(lookup.findVirtual(outputFormat, "read",
+                    MethodType.methodType(YangModule.class, InputStream.class)));
+
+            COMPARE_SCHEMAS = generic(lookup.findStatic(schemaDiff, "compare",
+                    MethodType.methodType(schemaDiff, YangModule.class, YangModule.class)));
+
+            RUN_COMMAND = generic(lookup.findStatic(commandLine, "run",
+                    MethodType.methodType(int.class, String[].class)));
+            STREAM_JSON_TO_FILE = generic(lookup.findVirtual(converter, "streamJsonToFile",
+                    MethodType.methodType(streamResult, String.class, String.class, int.class)));
+            STREAM_HAS_ERRORS = generic(lookup.findVirtual(streamResult, "hasErrors",
+                    MethodType.methodType(boolean.class)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Yang() {
+    }
+
+    /**
+     * Erases application types to Object so call sites can use invokeExact.
+     */
+    private static MethodHandle generic(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isApplicationType(type.parameterType(i))) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (isApplicationType(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    private static boolean isApplicationType(Class<?> type) {
+        return !type.isPrimitive() && type.getPackageName().isEmpty()
+                || type.getName().startsWith("org.json.");
+    }
+
+    static Object newParser() {
+        try {
+            return (Object) NEW_PARSER.invokeExact();
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static YangModule parseYangFile(Object parser, String path) {
+        try {
+            return (YangModule) PARSE_YANG_FILE.invokeExact(parser, path);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void validateSyntax(Object parser, String path) {
+        try {
+            VALIDATE_SYNTAX.invokeExact(parser, path);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newConverter() {
+        try {
+            return (Object) NEW_CONVERTER.invokeExact();
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Returns the org.json JSONObject built by JsonConverter.convertToJson. */
+    static Object convertToJson(Object converter, YangModule module) {
+        try {
+            return (Object) CONVERT_TO_JSON.invokeExact(converter, module);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String convertToJsonString(Object converter, YangModule module) {
+        try {
+            return (String) CONVERT_TO_JSON_STRING.invokeExact(converter, module);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Returns false if the file already held the same content and was not rewritten. */
+    static boolean saveJsonToFile(Object converter, Object json, String outputPath) {
+        try {
+            return (boolean) SAVE_JSON_OBJECT.invokeExact(converter, json, outputPath);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean saveModuleToFile(Object converter, YangModule module, String outputPath) {
+        try {
+            return (boolean) SAVE_MODULE.invokeExact(converter, module, outputPath);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static ByteBuffer openSource(Path path) {
+        try {
+            return (ByteBuffer) OPEN_SOURCE.invokeExact(path);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Runs the lexer to end of input and returns the number of tokens. */
+    static long countTokens(ByteBuffer buffer) {
+        try {
+            Object lexer = (Object) NEW_LEXER.invokeExact(buffer);
+            long tokens = 0;
+            while ((Object) LEXER_NEXT.invokeExact(lexer) != EOF) {
+                tokens++;
+            }
+            return tokens;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Returns the OutputFormat registered under the given name. */
+    static Object outputFormat(String name) {
+        try {
+            return (Object) OUTPUT_FORMAT.invokeExact(name);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void writeFormat(Object format, YangModule module, OutputStream out) {
+        try {
+            FORMAT_WRITE.invokeExact(format, module, out);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static YangModule readFormat(Object format, InputStream in) {
+        try {
+            return (YangModule) FORMAT_READ.invokeExact(format, in);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Returns the SchemaDiff between two revisions. */
+    static Object compareSchemas(YangModule oldModule, YangModule newModule) {
+        try {
+            return (Object) COMPARE_SCHEMAS.invokeExact(oldModule, newModule);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Runs a command line, writing to System.out, and returns its exit code. */
+    static int runCommand(String... args) {
+        try {
+            return (int) RUN_COMMAND.invokeExact(args);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Streams a module file to JSON as the interactive convert does.
+     *
+     * @return false if the module had errors and nothing was written
+     */
+    static boolean streamJsonToFile(Object converter, String yangPath, String outputPath) {
+        try {
+            Object result = (Object) STREAM_JSON_TO_FILE.invokeExact(converter, yangPath, outputPath, 0);
+            return !(boolean) STREAM_HAS_ERRORS.invokeExact(result);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new RuntimeException(t.getMessage(), t);
+    }
+}
@@ -0,0 +1,161 @@
+import model.ParseResult;
+import model.YangModule;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Non-interactive batch mode: validates and converts every .yang file under
+ * a directory tree on a work-stealing pool.
+ *
+ * YangParser and JsonConverter keep no per-file state, so a single instance
+ * of each is shared by all worker threads.
+ */
+public class BatchProcessor {
+    private final YangParser parser;
+    private final JsonConverter converter;
+    private final int parallelism;
+    private final Path outputDir;
+    private final SchemaCache cache;
+    private final OutputFile.Compression compression;
+
+    public BatchProcessor(int parallelism, Path outputDir) {
+        this(parallelism, outputDir, null);
+    }
+
+    /**
+     * @param cache parsed-schema cache consulted before parsing, or null
+     */
+    public BatchProcessor(int parallelism, Path outputDir, SchemaCache cache) {
+        this(parallelism, outputDir, cache, OutputFile.Compression.NONE);
+    }
+
+    /**
+     * @param compression applied to every output file, whose name gets its extension
+     */
+    public BatchProcessor(int parallelism, Path outputDir, SchemaCache cache, OutputFile.Compression compression) {
+        this.parser = new YangParser();
+        this.converter = new JsonConverter();
+        this.parallelism = parallelism;
+        this.outputDir = outputDir;
+        this.cache = cache;
+        this.compression = compression;
+    }
+
+    public static class FileResult {
+        private final Path file;
+        private final boolean passed;
+        private final String message;
+
+        FileResult(Path file, boolean passed, String message) {
+            this.file = file;
+            this.passed = passed;
+            this.message = message;
+        }
+
+        public Path getFile() { return file; }
+        public boolean isPassed() { return passed; }
+        public String getMessage() { return message; }
+    }
+
+    /**
+     * Processes all .yang files under root and returns one result per file,
+     * in path order.
+     */
+    public List<FileResult> run(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(".yang"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        List<Callable<FileResult>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(() -> process(root, file));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<FileResult> results = new ArrayList<>(files.size());
+            for (Future<FileResult> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch run failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private FileResult process(Path root, Path file) {
+        try {
+            ParseResult result = cache != null ? cache.parseFile(file.toString()) : parser.parseFile(file.toString());
+            if (result.hasErrors()) {
+                return new FileResult(file, false, result.getErrors().get(0).toString());
+            }
+            YangModule module = result.getModule();
+
+            if (outputDir != null) {
+                Path target = outputPath(root, file, outputDir, ".json" + compression.getFileExtension());
+                converter.saveToFile(module, OutputFormat.JSON, compression, target.toString());
+            }
+            return new FileResult(file, true, null);
+
+        } catch (Exception | InternalError e) {
+            // InternalError: a file changed while mapped; it fails this file, not the batch
+            return new FileResult(file, false, e.getMessage());
+        }
+    }
+
+    /**
+     * Maps input/a/b.yang to output/a/b.json so the output mirrors the input tree.
+     */
+    static Path jsonOutputPath(Path root, Path file, Path outputDir) {
+        return outputPath(root, file, outputDir, ".json");
+    }
+
+    /**
+     * Same mapping with another extension, e.g. ".cbor".
+     */
+    static Path outputPath(Path root, Path file, Path outputDir, String extension) {
+        String relative = root.relativize(file).toString();
+        if (relative.endsWith(".yang")) {
+            relative = relative.substring(0, relative.length() - ".yang".length());
+        }
+        return outputDir.resolve(relative + extension);
+    }
+
+    /**
+     * Prints the aggregated pass/fail report and returns the number of failures.
+     */
+    public static int printReport(List<FileResult> results, long elapsedMillis) {
+        int failed = 0;
+        for (FileResult result : results) {
+            if (!result.isPassed()) {
+                failed++;
+                System.out.println("✗ " + result.getFile() + ": " + result.getMessage());
+            }
+        }
+
+        System.out.println("\n=== Batch Report ===");
+        System.out.println("Files processed: " + results.size());
+        System.out.println("Passed: " + (results.size() - failed));
+        System.out.println("Failed: " + failed);
+        System.out.println("Elapsed: " + elapsedMillis + " ms");
+        return failed;
+    }
+}
@@ -0,0 +1,281 @@
+import model.YangModule;
+import model.YangNode;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Shared encoder and decoder for length-prefixed binary formats.
+ *
+ * The document has the same members as the JSON output, in the order
+ * module, namespace, prefix, imports, nodes, and name, type, description,
+ * data-type, mandatory, key, config, must, children for nodes. Because every map and array
+ * carries its size up front, the node tree is written in one pre-order walk
+ * with no closing markers. Subclasses supply the wire encoding of map and
+ * array headers, strings and booleans.
+ */
+public abstract class BinaryFormat implements OutputFormat {
+
+    protected abstract void writeMapHeader(DataOutputStream out, int size) throws IOException;
+    protected abstract void writeArrayHeader(DataOutputStream out, int size) throws IOException;
+    protected abstract void writeString(DataOutputStream out, String value) throws IOException;
+    protected abstract void writeBoolean(DataOutputStream out, boolean value) throws IOException;
+
+    protected abstract int readMapHeader(ByteBuffer in) throws IOException;
+    protected abstract int readArrayHeader(ByteBuffer in) throws IOException;
+    protected abstract String readString(ByteBuffer in) throws IOException;
+    protected abstract boolean readBoolean(ByteBuffer in) throws IOException;
+
+    @Override
+    public void write(YangModule module, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+
+        boolean hasImports = !module.getImports().isEmpty();
+        writeMapHeader(out, 2 + (module.getNamespace() != null ? 1 : 0) + (module.getPrefix() != null ? 1 : 0)
+                + (hasImports ? 1 : 0));
+        writeString(out, "module");
+        writeString(out, module.getName());
+        if (module.getNamespace() != null) {
+            writeString(out, "namespace");
+            writeString(out, module.getNamespace());
+        }
+        if (module.getPrefix() != null) {
+            writeString(out, "prefix");
+            writeString(out, module.getPrefix());
+        }
+        if (hasImports) {
+            writeString(out, "imports");
+            writeArrayHeader(out, module.getImports().size());
+            for (String imported : module.getImports()) {
+                writeString(out, imported);
+            }
+        }
+        writeString(out, "nodes");
+        writeNodes(out, module.getNodes());
+        out.flush();
+    }
+
+    private void writeNodes(DataOutputStream out, List<YangNode> nodes) throws IOException {
+        writeArrayHeader(out, nodes.size());
+        Deque<YangNode> stack = new ArrayDeque<>();
+        pushReversed(stack, nodes);
+        while (!stack.isEmpty()) {
+            YangNode node = stack.pop();
+            boolean hasDescription = node.getDescription() != null && !node.getDescription().isEmpty();
+            boolean hasDataType = node.getDataType() != null && !node.getDataType().isEmpty();
+            List<YangNode> children = node.getChildren();
+            List<String> musts = node.getMusts();
+
+            writeMapHeader(out, 3 + (hasDescription ? 1 : 0) + (hasDataType ? 1 : 0) + (node.getKey() != null ? 1 : 0)
+                    + (node.getConfig() != null ? 1 : 0) + (musts.isEmpty() ? 0 : 1) + (children.isEmpty() ? 0 : 1));
+            writeString(out, "name");
+            writeString(out, node.getName());
+            writeString(out, "type");
+            writeString(out, node.getType());
+            if (hasDescription) {
+                writeString(out, "description");
+                writeString(out, node.getDescription());
+            }
+            if (hasDataType) {
+                writeString(out, "data-type");
+                writeString(out, node.getDataType());
+            }
+            writeString(out, "mandatory");
+            writeBoolean(out, node.isMandatory());
+            if (node.getKey() != null) {
+                writeString(out, "key");
+                writeString(out, node.getKey());
+            }
+            if (node.getConfig() != null) {
+                writeString(out, "config");
+                writeBoolean(out, node.getConfig());
+            }
+            if (!musts.isEmpty()) {
+                writeString(out, "must");
+                writeArrayHeader(out, musts.size());
+                for (String must : musts) {
+                    writeString(out, must);
+                }
+            }
+            if (!children.isEmpty()) {
+                writeString(out, "children");
+                writeArrayHeader(out, children.size());
+                // The whole subtree follows the header before the next sibling
+                pushReversed(stack, children);
+            }
+        }
+    }
+
+    private static void pushReversed(Deque<YangNode> stack, List<YangNode> nodes) {
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            stack.push(nodes.get(i));
+        }
+    }
+
+    @Override
+    public YangModule read(InputStream stream) throws IOException {
+        // Decoding from memory avoids a synchronized stream call per byte
+        try {
+            return read(ByteBuffer.wrap(stream.readAllBytes()));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Unexpected end of " + getName() + " input");
+        }
+    }
+
+    private YangModule read(ByteBuffer in) throws IOException {
+
+        String moduleName = null;
+        String namespace = null;
+        String prefix = null;
+        List<String> imports = new ArrayList<>();
+        List<YangNode> nodes = new ArrayList<>();
+
+        int members = readMapHeader(in);
+        for (int i = 0; i < members; i++) {
+            String key = readString(in);
+            switch (key) {
+                case "module":
+                    moduleName = readString(in);
+                    break;
+                case "namespace":
+                    namespace = readString(in);
+                    break;
+                case "prefix":
+                    prefix = readString(in);
+                    break;
+                case "imports":
+                    int count = readArrayHeader(in);
+                    for (int j = 0; j < count; j++) {
+                        imports.add(readString(in));
+                    }
+                    break;
+                case "nodes":
+                    nodes = readNodes(in, readArrayHeader(in));
+                    break;
+                default:
+                    throw new IOException("Unexpected module member '" + key + "'");
+            }
+        }
+        if (moduleName == null) {
+            throw new IOException("Module name is missing");
+        }
+
+        YangModule module = new YangModule(moduleName);
+        module.setNamespace(namespace);
+        module.setPrefix(prefix);
+        for (String imported : imports) {
+            module.addImport(imported);
+        }
+        for (YangNode node : nodes) {
+            module.addNode(node);
+        }
+        module.compact();
+        return module;
+    }
+
+    /**
+     * Reads count nodes and their subtrees, keeping nesting on an explicit stack.
+     */
+    private List<YangNode> readNodes(ByteBuffer in, int count) throws IOException {
+        List<YangNode> result = new ArrayList<>();
+        Deque<PendingNode> stack = new ArrayDeque<>();
+        int topLevelLeft = count;
+        while (true) {
+            PendingNode top = stack.peek();
+            if (top == null) {
+                if (topLevelLeft == 0) {
+                    return result;
+                }
+                topLevelLeft--;
+                stack.push(pending(in));
+                continue;
+            }
+            if (top.childrenLeft > 0) {
+                top.childrenLeft--;
+                stack.push(pending(in));
+                continue;
+            }
+            if (top.membersLeft == 0) {
+                YangNode node = stack.pop().toNode();
+                PendingNode parent = stack.peek();
+                if (parent == null) {
+                    result.add(node);
+                } else {
+                    parent.children.add(node);
+                }
+                continue;
+            }
+
+            top.membersLeft--;
+            String key = readString(in);
+            switch (key) {
+                case "mandatory":
+                    top.mandatory = readBoolean(in);
+                    break;
+                case "config":
+                    top.config = readBoolean(in);
+                    break;
+                case "must":
+                    int musts = readArrayHeader(in);
+                    for (int i = 0; i < musts; i++) {
+                        top.musts.add(readString(in));
+                    }
+                    break;
+                case "children":
+                    top.childrenLeft = readArrayHeader(in);
+                    break;
+                default:
+                    top.set(key, readString(in));
+            }
+        }
+    }
+
+    private PendingNode pending(ByteBuffer in) throws IOException {
+        PendingNode node = new PendingNode();
+        node.membersLeft = readMapHeader(in);
+        return node;
+    }
+
+    /**
+     * Checks the element count of a map or array header. Every element takes
+     * at least one byte, so a count beyond the bytes left is malformed, and
+     * a corrupt header fails here instead of driving an allocation.
+     */
+    protected int checkedCount(ByteBuffer in, long count, String what) throws IOException {
+        if (count > in.remaining()) {
+            throw new IOException("Malformed " + getName() + " input: " + what + " of " + count
+                    + " elements in " + in.remaining() + " remaining bytes");
+        }
+        return (int) count;
+    }
+
+    protected static byte[] utf8Bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    protected static String readUtf8(ByteBuffer in, long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid string length " + length);
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(in.array(), in.position(), (int) length, StandardCharsets.UTF_8);
+        in.position(in.position() + (int) length);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
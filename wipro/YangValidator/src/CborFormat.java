@@ -0,0 +1,112 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * CBOR encoding (RFC 8949) of the module document.
+ *
+ * Member names are CBOR text strings, which is the name-based form RFC 9254
+ * allows for YANG data; SIDs are not used since modules carry no SID
+ * assignments. Only definite-length items are written or accepted.
+ */
+public class CborFormat extends BinaryFormat {
+    private static final int TEXT_STRING = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+
+    @Override
+    public String getName() { return "cbor"; }
+
+    @Override
+    public String getFileExtension() { return ".cbor"; }
+
+    @Override
+    protected void writeMapHeader(DataOutputStream out, int size) throws IOException {
+        writeHead(out, MAP, size);
+    }
+
+    @Override
+    protected void writeArrayHeader(DataOutputStream out, int size) throws IOException {
+        writeHead(out, ARRAY, size);
+    }
+
+    @Override
+    protected void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = utf8Bytes(value);
+        writeHead(out, TEXT_STRING, bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    protected void writeBoolean(DataOutputStream out, boolean value) throws IOException {
+        out.writeByte(value ? TRUE : FALSE);
+    }
+
+    private static void writeHead(DataOutputStream out, int majorType, int length) throws IOException {
+        int type = majorType << 5;
+        if (length < 24) {
+            out.writeByte(type | length);
+        } else if (length < 0x100) {
+            out.writeByte(type | 24);
+            out.writeByte(length);
+        } else if (length < 0x10000) {
+            out.writeByte(type | 25);
+            out.writeShort(length);
+        } else {
+            out.writeByte(type | 26);
+            out.writeInt(length);
+        }
+    }
+
+    @Override
+    protected int readMapHeader(ByteBuffer in) throws IOException {
+        return checkedCount(in, readHead(in, MAP, "map"), "map");
+    }
+
+    @Override
+    protected int readArrayHeader(ByteBuffer in) throws IOException {
+        return checkedCount(in, readHead(in, ARRAY, "array"), "array");
+    }
+
+    @Override
+    protected String readString(ByteBuffer in) throws IOException {
+        return readUtf8(in, readHead(in, TEXT_STRING, "text string"));
+    }
+
+    @Override
+    protected boolean readBoolean(ByteBuffer in) throws IOException {
+        int b = Byte.toUnsignedInt(in.get());
+        if (b != TRUE && b != FALSE) {
+            throw new IOException("Malformed CBOR: expected a boolean");
+        }
+        return b == TRUE;
+    }
+
+    private static long readHead(ByteBuffer in, int majorType, String what) throws IOException {
+        int initial = Byte.toUnsignedInt(in.get());
+        if (initial >> 5 != majorType) {
+            throw new IOException("Malformed CBOR: expected a " + what);
+        }
+        int info = initial & 0x1f;
+        long length;
+        if (info < 24) {
+            length = info;
+        } else if (info == 24) {
+            length = Byte.toUnsignedInt(in.get());
+        } else if (info == 25) {
+            length = Short.toUnsignedInt(in.getShort());
+        } else if (info == 26) {
+            length = in.getInt() & 0xFFFFFFFFL;
+        } else if (info == 27) {
+            length = in.getLong();
+        } else {
+            throw new IOException("Malformed CBOR: unsupported length encoding for " + what);
+        }
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Malformed CBOR: " + what + " too large");
+        }
+        return length;
+    }
+}
@@ -0,0 +1,559 @@
+import model.Diagnostic;
+import model.ParseResult;
+import model.SchemaIndex;
+import model.YangModule;
+import model.YangNode;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Non-interactive entry point for scripts and CI.
+ *
+ * Usage: java Main validate|show|convert|generate [files or dirs...] [options]
+ *        java Main diff old.yang new.yang [options]
+ *
+ * Directories are searched recursively for .yang files. Results are written
+ * to stdout as JSON lines, one object per diagnostic, node or file, in input
+ * order, followed by a summary line. Usage errors go to stderr.
+ *
+ * Exit codes: 0 all files passed, 1 some file has errors, 2 bad usage,
+ * 3 some file could not be read or written. diff also exits with 1 when
+ * the new revision has breaking changes.
+ *
+ * The same commands are served by ValidationServer, which runs them with a
+ * shared cache and executor on behalf of ValidationClient. There the
+ * output directory, cache directory and metrics file must lie inside the
+ * request's working directory.
+ */
+public class CommandLine {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_INVALID = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_IO_ERROR = 3;
+
+    private static final String USAGE = String.join("\n",
+            "Usage: java Main <command> [files or dirs...] [options]",
+            "Commands:",
+            "  validate   report diagnostics for each file",
+            "  show       list the schema nodes of each file",
+            "  convert    write each valid file to the output directory",
+            "  diff       list schema changes from the first file to the second",
+            "  generate   write Java records with JSON readers and writers for each valid file",
+            "Options:",
+            "  --files-from <path|->   read more input paths, one per line",
+            "  --output <dir>          output directory for convert (default: output)",
+            "  --format <name>         json, json-min, cbor or msgpack (default: json)",
+            "  --compress <name>       none or gzip; gzip appends .gz (default: none)",
+            "  --package <name>        package of the classes from generate (default: generated)",
+            "  --parallelism <n>       files processed at once (default: CPU count)",
+            "  --path <dir>            resolve imports from this directory (repeatable)",
+            "  --cache <dir>           parsed-schema cache directory",
+            "  --metrics <file>        write phase timings and counters in Prometheus format");
+
+    private final String command;
+    private final List<Path> inputs = new ArrayList<>();
+    private Path outputDir;
+    private OutputFormat format = OutputFormat.JSON;
+    private OutputFile.Compression compression = OutputFile.Compression.NONE;
+    private JavaCodeGenerator generator = new JavaCodeGenerator("generated");
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Path cacheDir;
+    private Path metricsFile;
+    private final List<Path> searchPath = new ArrayList<>();
+
+    private final YangParser parser = new YangParser();
+    private final JsonConverter converter = new JsonConverter();
+    private final Path workingDir;
+    private final ExecutorService executor;
+    private SchemaCache cache;
+    private ModuleRegistry registry;
+
+    private CommandLine(String command, Path workingDir, SchemaCache cache, ExecutorService executor) {
+        this.command = command;
+        this.workingDir = workingDir;
+        this.cache = cache;
+        this.executor = executor;
+        this.outputDir = path("output");
+    }
+
+    public static boolean isCommand(String arg) {
+        return "validate".equals(arg) || "show".equals(arg) || "convert".equals(arg) || "diff".equals(arg)
+                || "generate".equals(arg);
+    }
+
+    /**
+     * Runs a command and returns the process exit code.
+     */
+    public static int run(String[] args) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        PrintWriter err = new PrintWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8), true);
+        int exitCode = run(args, out, err, null, null, null);
+        try {
+            out.flush();
+        } catch (IOException e) {
+            return EXIT_IO_ERROR;
+        }
+        return exitCode;
+    }
+
+    /**
+     * Runs a command with explicit streams and context, as the validation
+     * server does for each request.
+     *
+     * @param workingDir directory relative paths resolve against and files may only be written
+     *                   in, or null for the current one and no restriction
+     * @param cache cache shared between runs, or null to honour --cache
+     * @param executor executor for per-file work, or null for a pool sized by --parallelism
+     */
+    static int run(String[] args, Writer out, PrintWriter err, Path workingDir, SchemaCache cache,
+                   ExecutorService executor) {
+        if (args.length == 0 || !isCommand(args[0])) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        CommandLine cli = new CommandLine(args[0], workingDir, cache, executor);
+        try {
+            cli.parseArguments(args);
+        } catch (IllegalArgumentException | IOException e) {
+            err.println("Error: " + e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        try {
+            return cli.execute(out);
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_IO_ERROR;
+        }
+    }
+
+    private void parseArguments(String[] args) throws IOException {
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--files-from":
+                    readFileList(value(args, ++i, arg));
+                    break;
+                case "--output":
+                    outputDir = path(value(args, ++i, arg));
+                    break;
+                case "--format":
+                    format = OutputFormat.forName(value(args, ++i, arg));
+                    break;
+                case "--compress":
+                    compression = OutputFile.Compression.forName(value(args, ++i, arg));
+                    break;
+                case "--package":
+                    generator = new JavaCodeGenerator(value(args, ++i, arg));
+                    break;
+                case "--parallelism":
+                    try {
+                        parallelism = Integer.parseInt(value(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--parallelism expects a number");
+                    }
+                    if (parallelism < 1) {
+                        throw new IllegalArgumentException("--parallelism must be at least 1");
+                    }
+                    break;
+                case "--cache":
+                    cacheDir = path(value(args, ++i, arg));
+                    break;
+                case "--path":
+                    searchPath.add(path(value(args, ++i, arg)));
+                    break;
+                case "--metrics":
+                    metricsFile = path(value(args, ++i, arg));
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                    inputs.add(path(arg));
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No input files given");
+        }
+        if ("diff".equals(command) && (inputs.size() != 2 || Files.isDirectory(inputs.get(0))
+                || Files.isDirectory(inputs.get(1)))) {
+            throw new IllegalArgumentException("diff expects two files, the old and the new revision");
+        }
+        if (workingDir != null) {
+            outputDir = confine(outputDir, "--output");
+            cacheDir = cacheDir != null ? confine(cacheDir, "--cache") : null;
+            metricsFile = metricsFile != null ? confine(metricsFile, "--metrics") : null;
+        }
+    }
+
+    /**
+     * Returns the path if it lies inside the working directory, with '..'
+     * resolved, and throws otherwise. Its longest existing part is
+     * resolved to the real path, so a symbolic link cannot lead out either.
+     */
+    private Path confine(Path path, String option) throws IOException {
+        Path root = workingDir.toRealPath();
+        Path existing = path.toAbsolutePath().normalize();
+        Path rest = existing.getFileSystem().getPath("");
+        while (existing.getParent() != null && !Files.exists(existing)) {
+            rest = existing.getFileName().resolve(rest);
+            existing = existing.getParent();
+        }
+        Path real = existing.toRealPath().resolve(rest);
+        if (!real.startsWith(root)) {
+            throw new IllegalArgumentException(option + " must be inside the working directory " + root);
+        }
+        return real;
+    }
+
+    private Path path(String arg) {
+        Path path = Paths.get(arg);
+        return workingDir != null ? workingDir.resolve(path) : path;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " expects a value");
+        }
+        return args[index];
+    }
+
+    private void readFileList(String source) throws IOException {
+        if ("-".equals(source) && workingDir != null) {
+            throw new IllegalArgumentException("--files-from - must be expanded by the client");
+        }
+        BufferedReader reader = "-".equals(source)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(path(source), StandardCharsets.UTF_8);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    inputs.add(path(line.trim()));
+                }
+            }
+        } finally {
+            if (!"-".equals(source)) {
+                reader.close();
+            }
+        }
+    }
+
+    /** One input file together with the directory its output path is relative to. */
+    private static final class Input {
+        final Path root;
+        final Path file;
+
+        Input(Path root, Path file) {
+            this.root = root;
+            this.file = file;
+        }
+    }
+
+    /** JSON lines for one file and the exit code it contributes. */
+    private static final class Outcome {
+        final StringBuilder lines = new StringBuilder();
+        int exitCode = EXIT_OK;
+        YangModule module; // the valid module, kept for diff only
+    }
+
+    private int execute(Writer out) throws IOException {
+        long start = System.nanoTime();
+        if (metricsFile != null) {
+            Metrics.setEnabled(true);
+        }
+        if (cache == null && cacheDir != null) {
+            cache = new SchemaCache(cacheDir, 1024);
+        }
+        if (!searchPath.isEmpty()) {
+            if (cache == null) {
+                // Lets the registry reuse the parse of each input file
+                cache = new SchemaCache(null, 1024);
+            }
+            registry = new ModuleRegistry(searchPath, parallelism, cache);
+        }
+
+        List<Input> files = expandInputs();
+        ExecutorService pool = executor != null ? executor : new ForkJoinPool(parallelism);
+        int exitCode = EXIT_OK;
+        int failed = 0;
+        List<YangModule> modules = new ArrayList<>(files.size());
+        try {
+            List<Future<Outcome>> outcomes = new ArrayList<>(files.size());
+            for (Input input : files) {
+                outcomes.add(pool.submit(() -> process(input)));
+            }
+            // Print in input order as results become available
+            for (Future<Outcome> future : outcomes) {
+                Outcome outcome = future.get();
+                out.write(outcome.lines.toString());
+                exitCode = Math.max(exitCode, outcome.exitCode);
+                if (outcome.exitCode != EXIT_OK) {
+                    failed++;
+                }
+                modules.add(outcome.module);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            if (pool != executor) {
+                pool.shutdown();
+            }
+            if (registry != null) {
+                registry.close();
+            }
+        }
+
+        SchemaDiff diff = null;
+        if ("diff".equals(command) && failed == 0) {
+            diff = SchemaDiff.compare(modules.get(0), modules.get(1));
+            for (SchemaDiff.Change change : diff.getChanges()) {
+                out.write(converter.convertToJson(change).toString());
+                out.write('\n');
+            }
+            if (diff.hasBreakingChanges()) {
+                exitCode = Math.max(exitCode, EXIT_INVALID);
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        JsonLine summary = new JsonLine().put("command", command).put("files", files.size())
+                .put("passed", files.size() - failed).put("failed", failed);
+        if (diff != null) {
+            summary.put("changes", diff.getChanges().size()).put("breaking", diff.getBreakingCount());
+        }
+        out.write(summary.put("elapsed-ms", elapsed).toString());
+        if (metricsFile != null) {
+            Metrics.writePrometheus(metricsFile);
+        }
+        return exitCode;
+    }
+
+    /**
+     * Expands directories to the .yang files below them, sorted, keeping the
+     * order in which inputs were given.
+     */
+    private List<Input> expandInputs() throws IOException {
+        List<Input> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    for (Path file : walk.filter(p -> p.toString().endsWith(".yang"))
+                            .filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                        files.add(new Input(input, file));
+                    }
+                }
+            } else {
+                files.add(new Input(input.toAbsolutePath().getParent(), input));
+            }
+        }
+        return files;
+    }
+
+    private Outcome process(Input input) {
+        Outcome outcome = new Outcome();
+        String name = input.file.toString();
+        ParseResult result;
+        try {
+            result = cache != null ? cache.parseFile(name) : parser.parseFile(name);
+        } catch (NoSuchFileException e) {
+            outcome.lines.append(new JsonLine().put("file", name).put("status", "failed")
+                    .put("message", "File not found"));
+            outcome.exitCode = EXIT_IO_ERROR;
+            return outcome;
+        } catch (IOException e) {
+            outcome.lines.append(new JsonLine().put("file", name).put("status", "failed")
+                    .put("message", e.getMessage()));
+            outcome.exitCode = EXIT_IO_ERROR;
+            return outcome;
+        }
+
+        int errors = 0;
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            if (diagnostic.isError()) {
+                errors++;
+            }
+            JsonLine line = new JsonLine().put("file", name).put("line", diagnostic.getLine())
+                    .put("column", diagnostic.getColumn())
+                    .put("severity", diagnostic.getSeverity().name().toLowerCase(Locale.ROOT))
+                    .put("message", diagnostic.getMessage());
+            if (diagnostic.getPath() != null) {
+                line.put("path", diagnostic.getPath());
+            }
+            outcome.lines.append(line);
+        }
+        int warnings = result.getDiagnostics().size() - errors;
+        if (errors == 0 && registry != null && !result.getModule().getImports().isEmpty()) {
+            errors += checkImports(input.file, name, outcome);
+        }
+        if (errors > 0) {
+            outcome.lines.append(new JsonLine().put("file", name).put("status", "invalid")
+                    .put("errors", errors).put("warnings", warnings));
+            outcome.exitCode = EXIT_INVALID;
+            return outcome;
+        }
+
+        YangModule module = result.getModule();
+        switch (command) {
+            case "show":
+                show(name, module, outcome);
+                break;
+            case "convert":
+                Path target = BatchProcessor.outputPath(input.root.toAbsolutePath(), input.file.toAbsolutePath(),
+                        outputDir, format.getFileExtension() + compression.getFileExtension());
+                try {
+                    boolean written = converter.saveToFile(module, format, compression, target.toString());
+                    outcome.lines.append(new JsonLine().put("file", name)
+                            .put("status", written ? "converted" : "unchanged")
+                            .put("output", target.toString()).put("format", format.getName())
+                            .put("bytes", Files.size(target)));
+                } catch (IOException e) {
+                    outcome.lines.append(new JsonLine().put("file", name).put("status", "failed")
+                            .put("message", e.getMessage()));
+                    outcome.exitCode = EXIT_IO_ERROR;
+                }
+                return outcome;
+            case "generate":
+                try {
+                    int written = generator.writeSources(module, outputDir);
+                    Path source = outputDir.resolve(generator.getPackageName().replace('.', '/'))
+                            .resolve(generator.getClassName(module) + ".java");
+                    outcome.lines.append(new JsonLine().put("file", name)
+                            .put("status", written > 0 ? "generated" : "unchanged")
+                            .put("output", source.toString()).put("files-written", written));
+                } catch (IOException e) {
+                    outcome.lines.append(new JsonLine().put("file", name).put("status", "failed")
+                            .put("message", e.getMessage()));
+                    outcome.exitCode = EXIT_IO_ERROR;
+                }
+                return outcome;
+            default:
+                break;
+        }
+        if ("diff".equals(command)) {
+            outcome.module = module;
+        }
+        outcome.lines.append(new JsonLine().put("file", name).put("status", "valid")
+                .put("module", module.getName()).put("warnings", warnings));
+        return outcome;
+    }
+
+    /**
+     * Resolves the file's imports through the registry and reports each
+     * missing or broken module and each import cycle. Returns the number of
+     * errors reported.
+     */
+    private int checkImports(Path file, String name, Outcome outcome) {
+        ModuleRegistry.Resolution resolution;
+        try {
+            resolution = registry.resolveFile(file);
+        } catch (IOException e) {
+            outcome.lines.append(new JsonLine().put("file", name).put("severity", "error")
+                    .put("message", e.getMessage()));
+            return 1;
+        }
+        int errors = 0;
+        for (String error : resolution.getErrors()) {
+            outcome.lines.append(new JsonLine().put("file", name).put("severity", "error")
+                    .put("message", "Import failed: " + error));
+            errors++;
+        }
+        for (List<String> cycle : resolution.getCycles()) {
+            outcome.lines.append(new JsonLine().put("file", name).put("severity", "error")
+                    .put("message", "Circular import: " + String.join(" -> ", cycle)));
+            errors++;
+        }
+        return errors;
+    }
+
+    private static void show(String name, YangModule module, Outcome outcome) {
+        SchemaIndex index = SchemaIndex.build(module);
+        List<YangNode> nodes = index.descendants("/");
+        List<String> paths = index.descendantPaths("/");
+        for (int i = 0; i < nodes.size(); i++) {
+            YangNode node = nodes.get(i);
+            JsonLine line = new JsonLine().put("file", name).put("path", paths.get(i))
+                    .put("kind", node.getType());
+            if (node.getDataType() != null) {
+                line.put("data-type", node.getDataType());
+            }
+            line.put("mandatory", node.isMandatory());
+            if (node.getDescription() != null && !node.getDescription().isEmpty()) {
+                line.put("description", node.getDescription());
+            }
+            outcome.lines.append(line);
+        }
+    }
+
+    /**
+     * One JSON object on a single line, with members in insertion order.
+     */
+    static final class JsonLine {
+        private final StringWriter text = new StringWriter();
+
+        JsonLine put(String key, String value) {
+            member(key);
+            if (value == null) {
+                text.write("null");
+                return this;
+            }
+            try {
+                YangJsonWriter.quote(value, text);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // StringWriter never throws
+            }
+            return this;
+        }
+
+        JsonLine put(String key, long value) {
+            member(key);
+            text.write(Long.toString(value));
+            return this;
+        }
+
+        JsonLine put(String key, boolean value) {
+            member(key);
+            text.write(value ? "true" : "false");
+            return this;
+        }
+
+        private void member(String key) {
+            text.write(text.getBuffer().length() == 0 ? "{" : ",");
+            try {
+                YangJsonWriter.quote(key, text);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            text.write(':');
+        }
+
+        @Override
+        public String toString() {
+            return text + "}\n";
+        }
+    }
+}
@@ -0,0 +1,452 @@
+import model.NodeKind;
+import model.YangModule;
+import model.YangNode;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates JSON instance documents against a parsed YangModule.
+ *
+ * The schema is compiled once into an immutable plan: each container and
+ * list entry gets a hash index from member name to child plan and the list
+ * of its mandatory leaves. One validator can therefore be shared by any
+ * number of threads without locking. Documents are read with
+ * JsonStreamReader and never materialized.
+ *
+ * Checks: unknown members, mandatory leaves, built-in data types (through
+ * the module's typedefs), and the JSON shape of each node kind (objects for
+ * containers, arrays for lists and leaf-lists, scalars for leaves),
+ * including duplicate members and duplicate leaf-list values. Lists and
+ * leaf-lists are held to their min-elements and max-elements; a missing
+ * one with min-elements above zero counts as a missing mandatory node.
+ * Every list entry must carry each of the list's key leaves, and no two
+ * entries may share the same key values. Member names
+ * may be qualified with the module name as in RFC 7951 ("module:node").
+ * Choices and cases do not appear in instance data, so the nodes of every
+ * case are accepted in place of the choice; mandatory nodes inside a case
+ * are not enforced.
+ */
+public class InstanceValidator {
+
+    public static class Violation {
+        private final String path;
+        private final String message;
+
+        Violation(String path, String message) {
+            this.path = path;
+            this.message = message;
+        }
+
+        public String getPath() { return path; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return path + ": " + message;
+        }
+    }
+
+    private enum ValueType {
+        STRING, BOOLEAN, EMPTY, BINARY, DECIMAL64,
+        INT8, INT16, INT32, INT64, UINT8, UINT16, UINT32, UINT64,
+        ANY
+    }
+
+    /** Compiled schema node. Immutable once compile() returns. */
+    private static final class Plan {
+        final String name;
+        final NodeKind kind;
+        final ValueType valueType;
+        final Map<String, Plan> children;
+        final String[] mandatory;
+        final String[] keys; // key leaves of a list, in key order
+        final int minElements;
+        final int maxElements;
+
+        Plan(String name, NodeKind kind, ValueType valueType, Map<String, Plan> children, String[] mandatory,
+             String[] keys, int minElements, int maxElements) {
+            this.name = name;
+            this.kind = kind;
+            this.valueType = valueType;
+            this.children = children;
+            this.mandatory = mandatory;
+            this.keys = keys;
+            this.minElements = minElements;
+            this.maxElements = maxElements;
+        }
+    }
+
+    private static final String[] NO_KEYS = new String[0];
+
+    private final String moduleName;
+    private final Plan root;
+
+    private InstanceValidator(String moduleName, Plan root) {
+        this.moduleName = moduleName;
+        this.root = root;
+    }
+
+    /**
+     * Builds the validation plan for a module.
+     */
+    public static InstanceValidator compile(YangModule module) {
+        return new InstanceValidator(module.getName(), compileChildren(module, null, module.getNodes(),
+                new IdentityHashMap<>()));
+    }
+
+    /**
+     * @param owner the container or list the nodes belong to, or null for the module's top level
+     * @param plans plans already compiled, by node; nodes shared through
+     *              groupings are compiled once
+     */
+    private static Plan compileChildren(YangModule module, YangNode owner, List<YangNode> nodes,
+                                        Map<YangNode, Plan> plans) {
+        Map<String, Plan> children = new HashMap<>(Math.max(4, nodes.size() * 2));
+        List<String> mandatory = new ArrayList<>();
+        // Choices and cases are transparent: their data nodes join this level
+        Deque<YangNode> pending = new ArrayDeque<>();
+        Deque<Boolean> inChoice = new ArrayDeque<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            pending.push(nodes.get(i));
+            inChoice.push(Boolean.FALSE);
+        }
+        while (!pending.isEmpty()) {
+            YangNode node = pending.pop();
+            boolean optional = inChoice.pop();
+            if (node.getKind() == NodeKind.CHOICE || node.getKind() == NodeKind.CASE) {
+                List<YangNode> branches = node.getChildren();
+                for (int i = branches.size() - 1; i >= 0; i--) {
+                    pending.push(branches.get(i));
+                    inChoice.push(Boolean.TRUE);
+                }
+                continue;
+            }
+            Plan child = plans.get(node);
+            if (child == null) {
+                if (node.getKind() == NodeKind.CONTAINER || node.getKind() == NodeKind.LIST) {
+                    child = compileChildren(module, node, node.getChildren(), plans);
+                } else {
+                    child = new Plan(node.getName(), node.getKind(),
+                            valueType(module.resolveType(node.getDataType())), Map.of(), NO_KEYS, NO_KEYS,
+                            node.getMinElements(), node.getMaxElements());
+                }
+                plans.put(node, child);
+            }
+            children.put(node.getName(), child);
+            if ((node.isMandatory() || node.getMinElements() > 0) && !optional) {
+                mandatory.add(node.getName());
+            }
+        }
+        if (owner == null) {
+            return new Plan(null, NodeKind.CONTAINER, ValueType.ANY, Map.copyOf(children),
+                    mandatory.toArray(NO_KEYS), NO_KEYS, 0, Integer.MAX_VALUE);
+        }
+        String key = owner.getKind() == NodeKind.LIST ? owner.getKey() : null;
+        String[] keys = key != null && !key.isBlank() ? key.trim().split("\\s+") : NO_KEYS;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keys[i].substring(keys[i].indexOf(':') + 1);
+        }
+        return new Plan(owner.getName(), owner.getKind(), ValueType.ANY, Map.copyOf(children),
+                mandatory.toArray(NO_KEYS), keys, owner.getMinElements(), owner.getMaxElements());
+    }
+
+    private static ValueType valueType(String dataType) {
+        if (dataType == null) {
+            return ValueType.ANY;
+        }
+        switch (dataType) {
+            case "string":
+            case "enumeration":
+            case "identityref":
+            case "instance-identifier":
+            case "bits":
+                return ValueType.STRING;
+            case "boolean": return ValueType.BOOLEAN;
+            case "empty": return ValueType.EMPTY;
+            case "binary": return ValueType.BINARY;
+            case "decimal64": return ValueType.DECIMAL64;
+            case "int8": return ValueType.INT8;
+            case "int16": return ValueType.INT16;
+            case "int32": return ValueType.INT32;
+            case "int64": return ValueType.INT64;
+            case "uint8": return ValueType.UINT8;
+            case "uint16": return ValueType.UINT16;
+            case "uint32": return ValueType.UINT32;
+            case "uint64": return ValueType.UINT64;
+            default:
+                // imported typedefs, unions and leafrefs are not resolved
+                return ValueType.ANY;
+        }
+    }
+
+    /**
+     * Validates one document and returns every violation found. A malformed
+     * document is reported as a single violation at the point of failure.
+     */
+    public List<Violation> validate(Reader document) {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.VALIDATE);
+        Run run = new Run(new JsonStreamReader(document));
+        try {
+            JsonStreamReader.Token first = run.json.next();
+            if (first != JsonStreamReader.Token.START_OBJECT) {
+                run.violation("Document must be a JSON object");
+                run.json.skipValue(first);
+            } else {
+                run.object(root);
+            }
+            if (run.json.next() != JsonStreamReader.Token.END_DOCUMENT) {
+                run.violation("Unexpected content after document");
+            }
+        } catch (IOException e) {
+            run.violation(e.getMessage());
+        }
+        timer.stop(run.json.getCharsRead());
+        return run.violations;
+    }
+
+    /** Per-document state; never shared between threads. */
+    private final class Run {
+        final JsonStreamReader json;
+        final List<Violation> violations = new ArrayList<>();
+        // Member names (String) and array indexes (Integer), formatted only when reporting
+        final Deque<Object> path = new ArrayDeque<>();
+
+        Run(JsonStreamReader json) {
+            this.json = json;
+        }
+
+        /**
+         * Validates members of an object whose START_OBJECT was just read.
+         *
+         * @return for an entry of a list with keys, its key values in key
+         *         order; null otherwise or if a key leaf is missing
+         */
+        List<String> object(Plan plan) throws IOException {
+            Set<String> seen = new HashSet<>();
+            String[] keyValues = plan.keys.length > 0 ? new String[plan.keys.length] : null;
+            JsonStreamReader.Token token;
+            while ((token = json.next()) == JsonStreamReader.Token.NAME) {
+                String member = json.text();
+                String name = localName(member);
+                path.addLast(member);
+
+                Plan child = plan.children.get(name);
+                JsonStreamReader.Token value = json.next();
+                if (child == null) {
+                    violation("Unknown node '" + name + "'");
+                    json.skipValue(value);
+                } else {
+                    if (!seen.add(name)) {
+                        violation("Duplicate node '" + name + "'");
+                    }
+                    if (keyValues != null && value != JsonStreamReader.Token.START_OBJECT
+                            && value != JsonStreamReader.Token.START_ARRAY) {
+                        int key = Arrays.asList(plan.keys).indexOf(name);
+                        if (key >= 0) {
+                            keyValues[key] = json.text();
+                        }
+                    }
+                    value(child, value);
+                }
+                path.removeLast();
+            }
+
+            for (String required : plan.mandatory) {
+                if (!seen.contains(required)) {
+                    violation("Missing mandatory node '" + required + "'");
+                }
+            }
+            if (keyValues == null) {
+                return null;
+            }
+            boolean complete = true;
+            for (int i = 0; i < keyValues.length; i++) {
+                if (keyValues[i] == null) {
+                    violation("Missing key leaf '" + plan.keys[i] + "'");
+                    complete = false;
+                }
+            }
+            return complete ? Arrays.asList(keyValues) : null;
+        }
+
+        private void value(Plan plan, JsonStreamReader.Token token) throws IOException {
+            switch (plan.kind) {
+                case CONTAINER:
+                    if (token != JsonStreamReader.Token.START_OBJECT) {
+                        violation("Container '" + plan.name + "' must be a JSON object");
+                        json.skipValue(token);
+                    } else {
+                        object(plan);
+                    }
+                    break;
+                case LIST:
+                case LEAF_LIST:
+                    if (token != JsonStreamReader.Token.START_ARRAY) {
+                        violation((plan.kind == NodeKind.LIST ? "List '" : "Leaf-list '") + plan.name
+                                + "' must be a JSON array");
+                        json.skipValue(token);
+                    } else {
+                        array(plan);
+                    }
+                    break;
+                default:
+                    leaf(plan, token);
+            }
+        }
+
+        private void array(Plan plan) throws IOException {
+            Set<String> values = plan.kind == NodeKind.LEAF_LIST ? new HashSet<>() : null;
+            Set<List<String>> keys = plan.keys.length > 0 ? new HashSet<>() : null;
+            int index = 0;
+            JsonStreamReader.Token token;
+            while ((token = json.next()) != JsonStreamReader.Token.END_ARRAY) {
+                path.addLast(index++);
+                if (plan.kind == NodeKind.LIST) {
+                    if (token != JsonStreamReader.Token.START_OBJECT) {
+                        violation("List entry must be a JSON object");
+                        json.skipValue(token);
+                    } else {
+                        List<String> key = object(plan);
+                        if (key != null && keys != null && !keys.add(key)) {
+                            violation("Duplicate list entry for key " + String.join(" ", key));
+                        }
+                    }
+                } else {
+                    leaf(plan, token);
+                    if (token != JsonStreamReader.Token.START_OBJECT && token != JsonStreamReader.Token.START_ARRAY
+                            && !values.add(token + json.text())) {
+                        violation("Duplicate leaf-list value '" + json.text() + "'");
+                    }
+                }
+                path.removeLast();
+            }
+            String entries = plan.kind == NodeKind.LIST ? " entries" : " values";
+            if (index < plan.minElements) {
+                violation((plan.kind == NodeKind.LIST ? "List '" : "Leaf-list '") + plan.name + "' has " + index
+                        + entries + ", fewer than min-elements " + plan.minElements);
+            } else if (index > plan.maxElements) {
+                violation((plan.kind == NodeKind.LIST ? "List '" : "Leaf-list '") + plan.name + "' has " + index
+                        + entries + ", more than max-elements " + plan.maxElements);
+            }
+        }
+
+        private void leaf(Plan plan, JsonStreamReader.Token token) throws IOException {
+            String error = checkType(plan.valueType, token, json);
+            if (error != null) {
+                violation(error);
+            }
+            json.skipValue(token);
+        }
+
+        void violation(String message) {
+            StringBuilder sb = new StringBuilder("$");
+            for (Object segment : path) {
+                if (segment instanceof Integer) {
+                    sb.append('[').append(segment).append(']');
+                } else {
+                    sb.append('.').append(segment);
+                }
+            }
+            violations.add(new Violation(sb.toString(), message));
+        }
+
+        private String localName(String member) {
+            int colon = member.indexOf(':');
+            if (colon > 0 && member.regionMatches(0, moduleName, 0, colon) && colon == moduleName.length()) {
+                return member.substring(colon + 1);
+            }
+            return member;
+        }
+    }
+
+    /**
+     * Returns an error message if the scalar does not match the type, or null.
+     * 64-bit integers and decimal64 may be JSON strings as in RFC 7951.
+     */
+    private static String checkType(ValueType type, JsonStreamReader.Token token, JsonStreamReader json) {
+        if (token == JsonStreamReader.Token.START_OBJECT || token == JsonStreamReader.Token.START_ARRAY) {
+            return type == ValueType.EMPTY && token == JsonStreamReader.Token.START_ARRAY
+                    ? null : "Expected a scalar value";
+        }
+        String text = json.text();
+        switch (type) {
+            case ANY:
+                return null;
+            case STRING:
+                return token == JsonStreamReader.Token.STRING ? null : "Expected a string";
+            case BOOLEAN:
+                return token == JsonStreamReader.Token.TRUE || token == JsonStreamReader.Token.FALSE
+                        ? null : "Expected true or false";
+            case EMPTY:
+                return "Expected [null] for type empty";
+            case BINARY:
+                if (token != JsonStreamReader.Token.STRING) {
+                    return "Expected a base64 string";
+                }
+                try {
+                    Base64.getDecoder().decode(text);
+                    return null;
+                } catch (IllegalArgumentException e) {
+                    return "Invalid base64 value";
+                }
+            case DECIMAL64:
+                if (token != JsonStreamReader.Token.NUMBER && token != JsonStreamReader.Token.STRING) {
+                    return "Expected a decimal64 value";
+                }
+                try {
+                    new BigDecimal(text);
+                    return null;
+                } catch (NumberFormatException e) {
+                    return "Invalid decimal64 value '" + text + "'";
+                }
+            default:
+                return checkInteger(type, token, text);
+        }
+    }
+
+    private static final BigInteger[][] RANGES = {
+        {BigInteger.valueOf(Byte.MIN_VALUE), BigInteger.valueOf(Byte.MAX_VALUE)},
+        {BigInteger.valueOf(Short.MIN_VALUE), BigInteger.valueOf(Short.MAX_VALUE)},
+        {BigInteger.valueOf(Integer.MIN_VALUE), BigInteger.valueOf(Integer.MAX_VALUE)},
+        {BigInteger.valueOf(Long.MIN_VALUE), BigInteger.valueOf(Long.MAX_VALUE)},
+        {BigInteger.ZERO, BigInteger.valueOf(255)},
+        {BigInteger.ZERO, BigInteger.valueOf(65535)},
+        {BigInteger.ZERO, BigInteger.valueOf(4294967295L)},
+        {BigInteger.ZERO, new BigInteger("18446744073709551615")},
+    };
+
+    private static String checkInteger(ValueType type, JsonStreamReader.Token token, String text) {
+        boolean wide = type == ValueType.INT64 || type == ValueType.UINT64;
+        if (token != JsonStreamReader.Token.NUMBER && !(wide && token == JsonStreamReader.Token.STRING)) {
+            return "Expected an integer";
+        }
+        BigInteger[] range = RANGES[type.ordinal() - ValueType.INT8.ordinal()];
+        try {
+            // Fast path for values that fit in a long
+            if (text.length() < 19) {
+                long value = Long.parseLong(text);
+                return value >= range[0].longValue() && (range[1].bitLength() > 63 || value <= range[1].longValue())
+                        ? null : "Value " + text + " out of range for " + type.name().toLowerCase(Locale.ROOT);
+            }
+            BigInteger value = new BigInteger(text);
+            return value.compareTo(range[0]) >= 0 && value.compareTo(range[1]) <= 0
+                    ? null : "Value " + text + " out of range for " + type.name().toLowerCase(Locale.ROOT);
+        } catch (NumberFormatException e) {
+            return "Invalid integer '" + text + "'";
+        }
+    }
+}
@@ -0,0 +1,1049 @@
+import model.NodeKind;
+import model.YangModule;
+import model.YangNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates Java records for the data nodes of a module, with JSON readers
+ * and writers that use no reflection.
+ *
+ * The module becomes one top-level record whose components are its
+ * top-level data nodes; every container and list becomes a record nested
+ * in the record of its parent, so the nesting mirrors the schema tree.
+ * Leaves become typed components (see ValueType), leaf-lists lists of
+ * them, lists lists of their entry record. Choices and cases add their
+ * data nodes to the enclosing record, as they do in instance data. Each
+ * record has a static read(PayloadReader) and a writeTo(PayloadWriter)
+ * generated for exactly its members; the module record also has
+ * fromJson() and toJson().
+ *
+ * Payloads follow RFC 7951: 64-bit integers and decimal64 values are
+ * written as JSON strings, top-level members are qualified with the module
+ * name, and empty leaves are [null]. Readers reject unknown and duplicate
+ * members and missing mandatory leaves. Mandatory numeric and boolean
+ * leaves outside a choice are primitives; every other leaf is null when
+ * absent, and absent lists are empty.
+ *
+ * PayloadReader and PayloadWriter are generated into the same package, so
+ * the output compiles on its own.
+ */
+public class JavaCodeGenerator {
+
+    /** Java representation of a built-in YANG type. */
+    private enum ValueType {
+        STRING("String", "String", "readString()", "%s"),
+        // Unions, leafrefs and types from other modules: any scalar, kept as its text
+        TEXT("String", "String", "readText()", "%s"),
+        BOOLEAN("boolean", "Boolean", "readBoolean()", "%s"),
+        EMPTY("boolean", "Boolean", "readEmpty()", null),
+        INT8("int", "Integer", "readInt(-128, 127)", "%s"),
+        INT16("int", "Integer", "readInt(-32768, 32767)", "%s"),
+        INT32("int", "Integer", "readInt(Integer.MIN_VALUE, Integer.MAX_VALUE)", "%s"),
+        INT64("long", "Long", "readInt64()", "Long.toString(%s)"),
+        UINT8("int", "Integer", "readInt(0, 255)", "%s"),
+        UINT16("int", "Integer", "readInt(0, 65535)", "%s"),
+        UINT32("long", "Long", "readLong(0L, 4294967295L)", "%s"),
+        UINT64("BigInteger", "BigInteger", "readUint64()", "%s.toString()"),
+        DECIMAL64("BigDecimal", "BigDecimal", "readDecimal64()", "%s.toPlainString()");
+
+        final String primitive;
+        final String boxed;
+        final String read;
+        // Argument of PayloadWriter.value() for a value expression
+        final String write;
+
+        ValueType(String primitive, String boxed, String read, String write) {
+            this.primitive = primitive;
+            this.boxed = boxed;
+            this.read = read;
+            this.write = write;
+        }
+
+        boolean isPrimitive() {
+            return !primitive.equals(boxed);
+        }
+
+        static ValueType of(String dataType) {
+            if (dataType == null) {
+                return TEXT;
+            }
+            switch (dataType) {
+                case "string":
+                case "enumeration":
+                case "identityref":
+                case "instance-identifier":
+                case "bits":
+                case "binary":
+                    return STRING;
+                case "boolean": return BOOLEAN;
+                case "empty": return EMPTY;
+                case "int8": return INT8;
+                case "int16": return INT16;
+                case "int32": return INT32;
+                case "int64": return INT64;
+                case "uint8": return UINT8;
+                case "uint16": return UINT16;
+                case "uint32": return UINT32;
+                case "uint64": return UINT64;
+                case "decimal64": return DECIMAL64;
+                default: return TEXT;
+            }
+        }
+    }
+
+    /** One record component. */
+    private static final class Field {
+        final YangNode node;
+        final String javaName;
+        final ValueType type; // leaves and leaf-lists
+        final Record record; // containers and lists
+        final boolean primitive;
+        final boolean mandatory;
+
+        Field(YangNode node, String javaName, ValueType type, Record record, boolean mandatory) {
+            this.node = node;
+            this.javaName = javaName;
+            this.type = type;
+            this.record = record;
+            this.mandatory = mandatory;
+            this.primitive = node.getKind() == NodeKind.LEAF && type.isPrimitive()
+                    && (mandatory || type == ValueType.EMPTY);
+        }
+
+        /** Declared type of the component. */
+        String javaType() {
+            switch (node.getKind()) {
+                case CONTAINER: return record.className;
+                case LIST: return "List<" + record.className + ">";
+                case LEAF_LIST: return "List<" + type.boxed + ">";
+                default: return primitive ? type.primitive : type.boxed;
+            }
+        }
+    }
+
+    /** One generated record: the module or a container or list. */
+    private static final class Record {
+        final String className;
+        final String path;
+        final List<Field> fields = new ArrayList<>();
+        final List<Record> nested = new ArrayList<>();
+        // Names of this record and all that enclose it, which nested records may not reuse
+        final Set<String> enclosing;
+
+        Record(String className, String path, Set<String> enclosing) {
+            this.className = className;
+            this.path = path;
+            this.enclosing = new HashSet<>(enclosing);
+            this.enclosing.add(className);
+        }
+    }
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+            "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+            "volatile", "while", "true", "false", "null", "var", "yield", "record", "sealed", "permits", "_");
+    // Simple names the generated code refers to, which records must not hide
+    private static final Set<String> RESERVED_TYPES = Set.of(
+            "String", "Integer", "Long", "Boolean", "BigInteger", "BigDecimal", "List", "ArrayList",
+            "Collections", "IOException", "UncheckedIOException", "Reader", "StringReader", "Appendable",
+            "Object", "Override", "StringBuilder", "PayloadReader", "PayloadWriter");
+    // Methods of every generated record, which components must not override
+    private static final Set<String> RESERVED_MEMBERS = Set.of(
+            "read", "writeTo", "fromJson", "toJson", "toString", "hashCode", "equals", "getClass",
+            "notify", "notifyAll", "wait", "clone", "finalize");
+
+    // Candidates for the imports of a generated record, in import order
+    private static final List<String> IMPORTS = List.of(
+            "java.io.IOException", "java.io.Reader", "java.io.StringReader", "java.io.UncheckedIOException",
+            "java.math.BigDecimal", "java.math.BigInteger", "java.util.ArrayList", "java.util.Collections",
+            "java.util.List");
+
+    private final String packageName;
+
+    /**
+     * @param packageName package of the generated classes, e.g. "com.example.model"
+     * @throws IllegalArgumentException if it is not a valid package name
+     */
+    public JavaCodeGenerator(String packageName) {
+        for (String segment : packageName.split("\\.", -1)) {
+            if (!isIdentifier(segment) || KEYWORDS.contains(segment)) {
+                throw new IllegalArgumentException("Invalid package name '" + packageName + "'");
+            }
+        }
+        this.packageName = packageName;
+    }
+
+    public String getPackageName() { return packageName; }
+
+    /**
+     * Name of the record generated for the module, e.g. "IetfInterfaces"
+     * for ietf-interfaces.
+     */
+    public String getClassName(YangModule module) {
+        String name = typeName(module.getName());
+        return RESERVED_TYPES.contains(name) ? name + "_" : name;
+    }
+
+    /**
+     * Generates the sources for one module.
+     *
+     * @return source text by path relative to the source root, e.g.
+     *         "com/example/model/Example.java"; the module record first,
+     *         then PayloadReader and PayloadWriter
+     */
+    public Map<String, String> generate(YangModule module) {
+        Record root = build(module);
+        String directory = packageName.replace('.', '/') + "/";
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(directory + root.className + ".java", emit(module, root));
+        sources.put(directory + "PayloadReader.java", header() + PAYLOAD_READER);
+        sources.put(directory + "PayloadWriter.java", header() + PAYLOAD_WRITER);
+        return sources;
+    }
+
+    /**
+     * Writes the sources for one module below sourceRoot. Files whose
+     * content is unchanged are left alone, so build tools see no change.
+     *
+     * @return the number of files written
+     */
+    public int writeSources(YangModule module, Path sourceRoot) throws IOException {
+        int written = 0;
+        for (Map.Entry<String, String> source : generate(module).entrySet()) {
+            byte[] bytes = source.getValue().getBytes(StandardCharsets.UTF_8);
+            if (OutputFile.write(sourceRoot.resolve(source.getKey()), out -> out.write(bytes))) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Builds the record tree. Iterative, so schema depth is not limited by
+     * the Java stack.
+     */
+    private Record build(YangModule module) {
+        Record root = new Record(getClassName(module), "/", Set.of());
+        Deque<Record> pending = new ArrayDeque<>();
+        Deque<List<YangNode>> pendingChildren = new ArrayDeque<>();
+        pending.push(root);
+        pendingChildren.push(module.getNodes());
+        while (!pending.isEmpty()) {
+            Record record = pending.pop();
+            List<YangNode> children = pendingChildren.pop();
+            Set<String> fieldNames = new HashSet<>();
+            Set<String> memberNames = new HashSet<>();
+            Set<String> classNames = new HashSet<>(record.enclosing);
+            classNames.addAll(RESERVED_TYPES);
+
+            // Choices and cases are transparent; their data nodes join this record
+            Deque<YangNode> nodes = new ArrayDeque<>();
+            Deque<Boolean> inChoice = new ArrayDeque<>();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                nodes.push(children.get(i));
+                inChoice.push(Boolean.FALSE);
+            }
+            while (!nodes.isEmpty()) {
+                YangNode node = nodes.pop();
+                boolean optional = inChoice.pop();
+                NodeKind kind = node.getKind();
+                if (kind == NodeKind.CHOICE || kind == NodeKind.CASE) {
+                    List<YangNode> nested = node.getChildren();
+                    for (int i = nested.size() - 1; i >= 0; i--) {
+                        nodes.push(nested.get(i));
+                        inChoice.push(Boolean.TRUE);
+                    }
+                    continue;
+                }
+                if (!memberNames.add(node.getName())) {
+                    continue; // same-named siblings; the first one wins, as in SchemaIndex
+                }
+                String javaName = unique(memberName(node.getName()), fieldNames);
+                if (kind == NodeKind.CONTAINER || kind == NodeKind.LIST) {
+                    Record nested = new Record(unique(typeName(node.getName()), classNames),
+                            (record.path.equals("/") ? "" : record.path) + "/" + node.getName(), record.enclosing);
+                    record.nested.add(nested);
+                    record.fields.add(new Field(node, javaName, null, nested, false));
+                    pending.push(nested);
+                    pendingChildren.push(node.getChildren());
+                } else {
+                    ValueType type = ValueType.of(module.resolveType(node.getDataType()));
+                    record.fields.add(new Field(node, javaName, type, null,
+                            kind == NodeKind.LEAF && node.isMandatory() && !optional));
+                }
+            }
+        }
+        return root;
+    }
+
+    private String emit(YangModule module, Record root) {
+        StringBuilder out = new StringBuilder(8192);
+        out.append("/**\n");
+        out.append(" * Data of YANG module ").append(module.getName());
+        if (module.getNamespace() != null) {
+            out.append(" (").append(javadocText(module.getNamespace())).append(')');
+        }
+        out.append(".\n * Generated by JavaCodeGenerator; do not edit.\n */\n");
+
+        // Pre-order: a record's own members, then its nested records, then its closing brace
+        Deque<Object> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        stack.push(root);
+        depths.push(0);
+        while (!stack.isEmpty()) {
+            Object item = stack.pop();
+            int depth = depths.pop();
+            if (item instanceof String) {
+                line(out, depth, (String) item);
+                continue;
+            }
+            Record record = (Record) item;
+            if (record != root) {
+                out.append('\n');
+                line(out, depth, "/** " + (record.fields.isEmpty() ? "Empty " : "") + "YANG node " + record.path + ". */");
+            }
+            emitHeader(out, record, depth, record == root);
+            if (record == root) {
+                emitRootMethods(out, record, depth + 1);
+            }
+            emitRead(out, record, depth + 1, record == root ? module.getName() : null);
+            emitWrite(out, record, depth + 1, record == root ? module.getName() : null);
+            stack.push("}");
+            depths.push(depth);
+            for (int i = record.nested.size() - 1; i >= 0; i--) {
+                stack.push(record.nested.get(i));
+                depths.push(depth + 1);
+            }
+        }
+
+        StringBuilder imports = new StringBuilder(header());
+        for (String type : IMPORTS) {
+            String simpleName = type.substring(type.lastIndexOf('.') + 1);
+            // Record names never take these names, so any use is the class itself
+            if (out.indexOf(simpleName + " ") >= 0 || out.indexOf(simpleName + "<") >= 0
+                    || out.indexOf(simpleName + ".") >= 0 || out.indexOf(simpleName + "(") >= 0) {
+                imports.append("import ").append(type).append(";\n");
+            }
+        }
+        return imports.append('\n').append(out).toString();
+    }
+
+    private static void emitHeader(StringBuilder out, Record record, int depth, boolean root) {
+        StringBuilder components = new StringBuilder();
+        for (Field field : record.fields) {
+            if (components.length() > 0) {
+                components.append(", ");
+            }
+            components.append(field.javaType()).append(' ').append(field.javaName);
+        }
+        line(out, depth, "public " + (root ? "" : "static ") + "record " + record.className + "("
+                + components + ") {");
+    }
+
+    private static void emitRootMethods(StringBuilder out, Record record, int depth) {
+        String name = record.className;
+        out.append('\n');
+        line(out, depth, "/** Reads one instance document. */");
+        line(out, depth, "public static " + name + " fromJson(Reader in) throws IOException {");
+        line(out, depth + 1, "PayloadReader json$ = new PayloadReader(in);");
+        line(out, depth + 1, name + " value = read(json$);");
+        line(out, depth + 1, "json$.endDocument();");
+        line(out, depth + 1, "return value;");
+        line(out, depth, "}");
+        out.append('\n');
+        line(out, depth, "public static " + name + " fromJson(String json) throws IOException {");
+        line(out, depth + 1, "return fromJson(new StringReader(json));");
+        line(out, depth, "}");
+        out.append('\n');
+        line(out, depth, "/** Writes this document as compact JSON. */");
+        line(out, depth, "public void writeTo(Appendable out) throws IOException {");
+        line(out, depth + 1, "writeTo(new PayloadWriter(out));");
+        line(out, depth, "}");
+        out.append('\n');
+        line(out, depth, "public String toJson() {");
+        line(out, depth + 1, "StringBuilder json = new StringBuilder();");
+        line(out, depth + 1, "try {");
+        line(out, depth + 2, "writeTo(json);");
+        line(out, depth + 1, "} catch (IOException e) {");
+        line(out, depth + 2, "throw new UncheckedIOException(e); // StringBuilder never throws");
+        line(out, depth + 1, "}");
+        line(out, depth + 1, "return json.toString();");
+        line(out, depth, "}");
+    }
+
+    /**
+     * @param moduleName module whose prefix top-level member names may carry, or null
+     */
+    private static void emitRead(StringBuilder out, Record record, int depth, String moduleName) {
+        String name = record.className;
+        out.append('\n');
+        line(out, depth, "public static " + name + " read(PayloadReader json$) throws IOException {");
+        for (Field field : record.fields) {
+            String type = field.javaType();
+            if (field.primitive) {
+                line(out, depth + 1, type + " " + field.javaName + " = " + (type.equals("boolean") ? "false" : "0") + ";");
+                if (field.type != ValueType.EMPTY) {
+                    line(out, depth + 1, "boolean seen$" + field.javaName + " = false;");
+                }
+            } else {
+                String local = field.node.getKind() == NodeKind.LIST || field.node.getKind() == NodeKind.LEAF_LIST
+                        ? type.replace("List<", "ArrayList<") : type;
+                line(out, depth + 1, local + " " + field.javaName + " = null;");
+            }
+        }
+        line(out, depth + 1, "json$.beginObject();");
+        line(out, depth + 1, "while (json$.nextMember()) {");
+        line(out, depth + 2, "switch (json$.name()) {");
+        for (Field field : record.fields) {
+            String jsonName = field.node.getName();
+            line(out, depth + 3, "case " + literal(jsonName) + ":");
+            if (moduleName != null) {
+                line(out, depth + 3, "case " + literal(moduleName + ":" + jsonName) + ":");
+            }
+            emitReadMember(out, field, depth + 4);
+            line(out, depth + 4, "break;");
+        }
+        line(out, depth + 3, "default:");
+        line(out, depth + 4, "throw json$.unknown();");
+        line(out, depth + 2, "}");
+        line(out, depth + 1, "}");
+
+        StringBuilder arguments = new StringBuilder();
+        for (Field field : record.fields) {
+            if (field.mandatory) {
+                String absent = !field.primitive ? field.javaName + " == null"
+                        : field.type == ValueType.EMPTY ? "!" + field.javaName : "!seen$" + field.javaName;
+                line(out, depth + 1, "if (" + absent + ") {");
+                line(out, depth + 2, "throw json$.missing(" + literal(field.node.getName()) + ");");
+                line(out, depth + 1, "}");
+            }
+            if (arguments.length() > 0) {
+                arguments.append(", ");
+            }
+            NodeKind kind = field.node.getKind();
+            if (kind == NodeKind.LIST || kind == NodeKind.LEAF_LIST) {
+                arguments.append(field.javaName).append(" != null ? Collections.unmodifiableList(")
+                        .append(field.javaName).append(") : List.of()");
+            } else {
+                arguments.append(field.javaName);
+            }
+        }
+        line(out, depth + 1, "return new " + name + "(" + arguments + ");");
+        line(out, depth, "}");
+    }
+
+    private static void emitReadMember(StringBuilder out, Field field, int depth) {
+        String name = field.javaName;
+        String duplicate = field.primitive
+                ? (field.type == ValueType.EMPTY ? name : "seen$" + name)
+                : name + " != null";
+        line(out, depth, "if (" + duplicate + ") {");
+        line(out, depth + 1, "throw json$.duplicate();");
+        line(out, depth, "}");
+        switch (field.node.getKind()) {
+            case CONTAINER:
+                line(out, depth, name + " = " + field.record.className + ".read(json$);");
+                break;
+            case LIST:
+            case LEAF_LIST:
+                String element = field.record != null
+                        ? field.record.className + ".read(json$)" : "json$." + field.type.read;
+                line(out, depth, name + " = new ArrayList<>();");
+                line(out, depth, "json$.beginArray();");
+                line(out, depth, "while (json$.nextElement()) {");
+                line(out, depth + 1, name + ".add(" + element + ");");
+                line(out, depth, "}");
+                break;
+            default:
+                line(out, depth, name + " = json$." + field.type.read + ";");
+                if (field.primitive && field.type != ValueType.EMPTY) {
+                    line(out, depth, "seen$" + name + " = true;");
+                }
+                break;
+        }
+    }
+
+    private static void emitWrite(StringBuilder out, Record record, int depth, String moduleName) {
+        out.append('\n');
+        line(out, depth, "public void writeTo(PayloadWriter json$) throws IOException {");
+        line(out, depth + 1, "json$.beginObject();");
+        for (Field field : record.fields) {
+            String name = field.javaName;
+            String member = literal(moduleName != null ? moduleName + ":" + field.node.getName() : field.node.getName());
+            NodeKind kind = field.node.getKind();
+            int inner = depth + 2;
+            if (field.primitive && field.type != ValueType.EMPTY) {
+                inner = depth + 1; // always present
+            } else if (field.primitive) {
+                line(out, depth + 1, "if (" + name + ") {");
+            } else if (kind == NodeKind.LIST || kind == NodeKind.LEAF_LIST) {
+                line(out, depth + 1, "if (!" + name + ".isEmpty()) {");
+            } else {
+                line(out, depth + 1, "if (" + name + " != null) {");
+            }
+            switch (kind) {
+                case CONTAINER:
+                    line(out, inner, "json$.name(" + member + ");");
+                    line(out, inner, name + ".writeTo(json$);");
+                    break;
+                case LIST:
+                    line(out, inner, "json$.name(" + member + ").beginArray();");
+                    line(out, inner, "for (" + field.record.className + " entry$ : " + name + ") {");
+                    line(out, inner + 1, "entry$.writeTo(json$);");
+                    line(out, inner, "}");
+                    line(out, inner, "json$.endArray();");
+                    break;
+                case LEAF_LIST:
+                    line(out, inner, "json$.name(" + member + ").beginArray();");
+                    line(out, inner, "for (" + field.type.boxed + " item$ : " + name + ") {");
+                    line(out, inner + 1, "json$." + writeCall(field.type, "item$") + ";");
+                    line(out, inner, "}");
+                    line(out, inner, "json$.endArray();");
+                    break;
+                default:
+                    line(out, inner, "json$.name(" + member + ")." + writeCall(field.type, name) + ";");
+                    break;
+            }
+            if (inner != depth + 1) {
+                line(out, depth + 1, "}");
+            }
+        }
+        line(out, depth + 1, "json$.endObject();");
+        line(out, depth, "}");
+    }
+
+    private static String writeCall(ValueType type, String value) {
+        return type == ValueType.EMPTY ? "empty()" : "value(" + String.format(type.write, value) + ")";
+    }
+
+    private String header() {
+        return "package " + packageName + ";\n\n";
+    }
+
+    private static void line(StringBuilder out, int depth, String text) {
+        for (int i = 0; i < depth; i++) {
+            out.append("    ");
+        }
+        out.append(text).append('\n');
+    }
+
+    /** lowerCamelCase Java name for a YANG identifier, e.g. dns-servers to dnsServers. */
+    private static String memberName(String yangName) {
+        String name = camelCase(yangName, false);
+        return KEYWORDS.contains(name) || RESERVED_MEMBERS.contains(name) ? name + "_" : name;
+    }
+
+    /** UpperCamelCase Java name for a YANG identifier, e.g. dns-servers to DnsServers. */
+    private static String typeName(String yangName) {
+        return camelCase(yangName, true);
+    }
+
+    private static String camelCase(String yangName, boolean upper) {
+        StringBuilder name = new StringBuilder(yangName.length());
+        boolean capitalize = upper;
+        boolean started = false; // whether a character after any leading underscores was added
+        for (int i = 0; i < yangName.length(); i++) {
+            char c = yangName.charAt(i);
+            if (c == '-' || c == '.' || c == ':') {
+                capitalize |= started;
+            } else if (c == '_' && !started) {
+                name.append(c); // leading underscores leave the case of the first letter to decide
+            } else if (Character.isJavaIdentifierPart(c)) {
+                name.append(capitalize ? Character.toUpperCase(c) : started ? c : Character.toLowerCase(c));
+                capitalize = false;
+                started = true;
+            }
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name.insert(0, '_');
+        }
+        return name.toString();
+    }
+
+    /** The name itself or, if already taken, the name with the first free number appended. */
+    private static String unique(String name, Set<String> taken) {
+        String candidate = name;
+        for (int i = 2; !taken.add(candidate); i++) {
+            candidate = name + i;
+        }
+        return candidate;
+    }
+
+    private static boolean isIdentifier(String text) {
+        if (text.isEmpty() || !Character.isJavaIdentifierStart(text.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String literal(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String javadocText(String text) {
+        return text.replace("*/", "*&#47;");
+    }
+
+    private static final String PAYLOAD_READER = """
+            import java.io.IOException;
+            import java.io.Reader;
+            import java.math.BigDecimal;
+            import java.math.BigInteger;
+
+            /**
+             * Pull reader for the JSON payloads of the generated records.
+             * Generated by JavaCodeGenerator; do not edit.
+             */
+            public final class PayloadReader {
+                private static final BigInteger UINT64_MAX = new BigInteger("18446744073709551615");
+
+                private final Reader in;
+                private final char[] buf = new char[8192];
+                private int pos;
+                private int limit;
+                // Characters consumed by earlier fills
+                private long filled;
+                private final StringBuilder text = new StringBuilder();
+                private String name;
+                // Per open object or array: whether no member or element has been read yet
+                private boolean[] first = new boolean[32];
+                private int depth;
+
+                public PayloadReader(Reader in) {
+                    this.in = in;
+                }
+
+                public void beginObject() throws IOException {
+                    open('{');
+                }
+
+                public void beginArray() throws IOException {
+                    open('[');
+                }
+
+                /** Moves to the next member of the current object; false at its end. */
+                public boolean nextMember() throws IOException {
+                    if (!nextItem('}')) {
+                        return false;
+                    }
+                    if (skipWhitespace() != '"') {
+                        throw error("Expected a member name");
+                    }
+                    pos++;
+                    scanString();
+                    name = text.toString();
+                    expect(':');
+                    return true;
+                }
+
+                /** Name of the current member. */
+                public String name() {
+                    return name;
+                }
+
+                /** Whether the current array has another element; false at its end. */
+                public boolean nextElement() throws IOException {
+                    return nextItem(']');
+                }
+
+                public String readString() throws IOException {
+                    if (skipWhitespace() != '"') {
+                        throw error("Expected a string");
+                    }
+                    pos++;
+                    scanString();
+                    return text.toString();
+                }
+
+                /** Any scalar value as its text, for types without a Java mapping. */
+                public String readText() throws IOException {
+                    if (skipWhitespace() == '"') {
+                        return readString();
+                    }
+                    scanLiteral();
+                    if (text.length() == 0 || "null".contentEquals(text)) {
+                        throw error("Expected a scalar value");
+                    }
+                    return text.toString();
+                }
+
+                public boolean readBoolean() throws IOException {
+                    skipWhitespace();
+                    scanLiteral();
+                    if ("true".contentEquals(text)) {
+                        return true;
+                    }
+                    if ("false".contentEquals(text)) {
+                        return false;
+                    }
+                    throw error("Expected true or false");
+                }
+
+                /** The value of a leaf of type empty, [null]. */
+                public boolean readEmpty() throws IOException {
+                    expect('[');
+                    skipWhitespace();
+                    scanLiteral();
+                    if (!"null".contentEquals(text)) {
+                        throw error("Expected [null] for type empty");
+                    }
+                    expect(']');
+                    return true;
+                }
+
+                public int readInt(int min, int max) throws IOException {
+                    return (int) readLong(min, max);
+                }
+
+                /** An integer written as a JSON number. */
+                public long readLong(long min, long max) throws IOException {
+                    skipWhitespace();
+                    scanLiteral();
+                    return parseLong(min, max);
+                }
+
+                /** An int64, a JSON string in RFC 7951; plain numbers are accepted too. */
+                public long readInt64() throws IOException {
+                    numberText();
+                    return parseLong(Long.MIN_VALUE, Long.MAX_VALUE);
+                }
+
+                public BigInteger readUint64() throws IOException {
+                    numberText();
+                    try {
+                        BigInteger value = new BigInteger(text.toString());
+                        if (value.signum() < 0 || value.compareTo(UINT64_MAX) > 0) {
+                            throw error("Value " + text + " out of range");
+                        }
+                        return value;
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid integer '" + text + "'");
+                    }
+                }
+
+                public BigDecimal readDecimal64() throws IOException {
+                    numberText();
+                    try {
+                        return new BigDecimal(text.toString());
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid decimal64 value '" + text + "'");
+                    }
+                }
+
+                /** Checks that nothing but whitespace follows the document. */
+                public void endDocument() throws IOException {
+                    if (skipWhitespace() != -1) {
+                        throw error("Unexpected content after the document");
+                    }
+                }
+
+                public IOException unknown() {
+                    return error("Unknown member '" + name + "'");
+                }
+
+                public IOException duplicate() {
+                    return error("Duplicate member '" + name + "'");
+                }
+
+                public IOException missing(String member) {
+                    return error("Missing mandatory member '" + member + "'");
+                }
+
+                public IOException error(String message) {
+                    return new IOException("Invalid payload at character " + (filled + pos) + ": " + message);
+                }
+
+                private void open(char c) throws IOException {
+                    expect(c);
+                    if (depth == first.length) {
+                        boolean[] larger = new boolean[depth * 2];
+                        System.arraycopy(first, 0, larger, 0, depth);
+                        first = larger;
+                    }
+                    first[depth++] = true;
+                }
+
+                private boolean nextItem(char close) throws IOException {
+                    int c = skipWhitespace();
+                    if (c == close) {
+                        pos++;
+                        depth--;
+                        return false;
+                    }
+                    if (!first[depth - 1]) {
+                        if (c != ',') {
+                            throw error("Expected ',' or '" + close + "'");
+                        }
+                        pos++;
+                    }
+                    first[depth - 1] = false;
+                    return true;
+                }
+
+                private void numberText() throws IOException {
+                    if (skipWhitespace() == '"') {
+                        pos++;
+                        scanString();
+                    } else {
+                        scanLiteral();
+                    }
+                }
+
+                private long parseLong(long min, long max) throws IOException {
+                    long value;
+                    try {
+                        value = Long.parseLong(text, 0, text.length(), 10);
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid integer '" + text + "'");
+                    }
+                    if (value < min || value > max) {
+                        throw error("Value " + value + " out of range");
+                    }
+                    return value;
+                }
+
+                private void expect(char c) throws IOException {
+                    if (skipWhitespace() != c) {
+                        throw error("Expected '" + c + "'");
+                    }
+                    pos++;
+                }
+
+                /** Reads a number or literal, stopping at the next delimiter. */
+                private void scanLiteral() throws IOException {
+                    text.setLength(0);
+                    int c;
+                    while ((c = peek()) != -1 && c != ',' && c != '}' && c != ']' && c != ' '
+                            && c != '\\n' && c != '\\r' && c != '\\t') {
+                        text.append((char) c);
+                        pos++;
+                    }
+                }
+
+                private void scanString() throws IOException {
+                    text.setLength(0);
+                    while (true) {
+                        if (pos >= limit && !fill()) {
+                            throw error("Unterminated string");
+                        }
+                        int start = pos;
+                        while (pos < limit && buf[pos] != '"' && buf[pos] != '\\\\') {
+                            pos++;
+                        }
+                        text.append(buf, start, pos - start);
+                        if (pos >= limit) {
+                            continue;
+                        }
+                        if (buf[pos++] == '"') {
+                            return;
+                        }
+                        int e = read();
+                        switch (e) {
+                            case '"': text.append('"'); break;
+                            case '\\\\': text.append('\\\\'); break;
+                            case '/': text.append('/'); break;
+                            case 'b': text.append('\\b'); break;
+                            case 'f': text.append('\\f'); break;
+                            case 'n': text.append('\\n'); break;
+                            case 'r': text.append('\\r'); break;
+                            case 't': text.append('\\t'); break;
+                            case 'u':
+                                int code = 0;
+                                for (int i = 0; i < 4; i++) {
+                                    int digit = Character.digit(read(), 16);
+                                    if (digit < 0) {
+                                        throw error("Invalid \\\\u escape");
+                                    }
+                                    code = (code << 4) | digit;
+                                }
+                                text.append((char) code);
+                                break;
+                            default:
+                                throw error("Invalid escape sequence");
+                        }
+                    }
+                }
+
+                private int skipWhitespace() throws IOException {
+                    int c;
+                    while ((c = peek()) == ' ' || c == '\\n' || c == '\\r' || c == '\\t') {
+                        pos++;
+                    }
+                    return c;
+                }
+
+                private int peek() throws IOException {
+                    if (pos >= limit && !fill()) {
+                        return -1;
+                    }
+                    return buf[pos];
+                }
+
+                private int read() throws IOException {
+                    int c = peek();
+                    if (c == -1) {
+                        throw error("Unexpected end of document");
+                    }
+                    pos++;
+                    return c;
+                }
+
+                private boolean fill() throws IOException {
+                    int n = in.read(buf, 0, buf.length);
+                    if (n <= 0) {
+                        return false;
+                    }
+                    filled += limit;
+                    pos = 0;
+                    limit = n;
+                    return true;
+                }
+            }
+            """;
+
+    private static final String PAYLOAD_WRITER = """
+            import java.io.IOException;
+
+            /**
+             * Compact JSON writer for the payloads of the generated records.
+             * Generated by JavaCodeGenerator; do not edit.
+             */
+            public final class PayloadWriter {
+                private final Appendable out;
+                // Per open object or array: whether nothing has been written into it yet
+                private boolean[] first = new boolean[32];
+                private int depth;
+                private boolean afterName;
+
+                public PayloadWriter(Appendable out) {
+                    this.out = out;
+                }
+
+                public PayloadWriter beginObject() throws IOException {
+                    return open('{');
+                }
+
+                public PayloadWriter endObject() throws IOException {
+                    depth--;
+                    out.append('}');
+                    return this;
+                }
+
+                public PayloadWriter beginArray() throws IOException {
+                    return open('[');
+                }
+
+                public PayloadWriter endArray() throws IOException {
+                    depth--;
+                    out.append(']');
+                    return this;
+                }
+
+                public PayloadWriter name(String name) throws IOException {
+                    separate();
+                    quote(name);
+                    out.append(':');
+                    afterName = true;
+                    return this;
+                }
+
+                public PayloadWriter value(String value) throws IOException {
+                    separate();
+                    quote(value);
+                    return this;
+                }
+
+                public PayloadWriter value(long value) throws IOException {
+                    separate();
+                    out.append(Long.toString(value));
+                    return this;
+                }
+
+                public PayloadWriter value(boolean value) throws IOException {
+                    separate();
+                    out.append(value ? "true" : "false");
+                    return this;
+                }
+
+                /** The value of a leaf of type empty. */
+                public PayloadWriter empty() throws IOException {
+                    separate();
+                    out.append("[null]");
+                    return this;
+                }
+
+                private PayloadWriter open(char c) throws IOException {
+                    separate();
+                    out.append(c);
+                    if (depth == first.length) {
+                        boolean[] larger = new boolean[depth * 2];
+                        System.arraycopy(first, 0, larger, 0, depth);
+                        first = larger;
+                    }
+                    first[depth++] = true;
+                    return this;
+                }
+
+                private void separate() throws IOException {
+                    if (afterName) {
+                        afterName = false;
+                    } else if (depth > 0) {
+                        if (!first[depth - 1]) {
+                            out.append(',');
+                        }
+                        first[depth - 1] = false;
+                    }
+                }
+
+                private void quote(String s) throws IOException {
+                    out.append('"');
+                    int start = 0;
+                    for (int i = 0; i < s.length(); i++) {
+                        char c = s.charAt(i);
+                        if (c == '"' || c == '\\\\' || c < 0x20) {
+                            out.append(s, start, i);
+                            switch (c) {
+                                case '"': out.append("\\\\\\""); break;
+                                case '\\\\': out.append("\\\\\\\\"); break;
+                                case '\\n': out.append("\\\\n"); break;
+                                case '\\r': out.append("\\\\r"); break;
+                                case '\\t': out.append("\\\\t"); break;
+                                default:
+                                    out.append(String.format("\\\\u%04x", (int) c));
+                                    break;
+                            }
+                            start = i + 1;
+                        }
+                    }
+                    out.append(s, start, s.length());
+                    out.append('"');
+                }
+            }
+            """;
+}
@@ -1,14 +1,34 @@
+import model.Diagnostic;
+import model.ParseResult;
 import model.YangModule;
 import model.YangNode;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.File;
+import java.io.FilterWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
 
 public class JsonConverter {
     
     public JSONObject convertToJson(YangModule module) {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.CONVERT);
         try {
             JSONObject json = new JSONObject();
             
@@ -32,11 +52,10 @@ public class JsonConverter {
             
             // Nodes
             JSONArray nodesArray = new JSONArray();
-            for (YangNode node : module.getNodes()) {
-                nodesArray.put(convertNodeToJson(node));
-            }
+            convertNodesToJson(module.getNodes(), nodesArray);
             json.put("nodes", nodesArray);
             
+            timer.stop(0);
             return json;
             
         } catch (Exception e) {
@@ -44,47 +63,349 @@ public class JsonConverter {
         }
     }
     
-    private JSONObject convertNodeToJson(YangNode node) {
-        JSONObject nodeJson = new JSONObject();
-        nodeJson.put("name", node.getName());
-        nodeJson.put("type", node.getType());
-        
-        if (node.getDescription() != null && !node.getDescription().isEmpty()) {
-            nodeJson.put("description", node.getDescription());
-        }
-        
-        if (node.getDataType() != null && !node.getDataType().isEmpty()) {
-            nodeJson.put("data-type", node.getDataType());
+    /**
+     * Converts a node list into the given array. Uses an explicit stack
+     * instead of recursion so very deep schemas cannot overflow the Java stack.
+     */
+    private void convertNodesToJson(List<YangNode> nodes, JSONArray target) {
+        Deque<YangNode> stack = new ArrayDeque<>();
+        Deque<JSONArray> targets = new ArrayDeque<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            stack.push(nodes.get(i));
+            targets.push(target);
         }
-        
-        nodeJson.put("mandatory", node.isMandatory());
-        
-        // Children
-        if (!node.getChildren().isEmpty()) {
-            JSONArray childrenArray = new JSONArray();
-            for (YangNode child : node.getChildren()) {
-                childrenArray.put(convertNodeToJson(child));
+        while (!stack.isEmpty()) {
+            YangNode node = stack.pop();
+            JSONArray parent = targets.pop();
+            
+            JSONObject nodeJson = new JSONObject();
+            nodeJson.put("name", node.getName());
+            nodeJson.put("type", node.getType());
+            
+            if (node.getDescription() != null && !node.getDescription().isEmpty()) {
+                nodeJson.put("description", node.getDescription());
+            }
+            
+            if (node.getDataType() != null && !node.getDataType().isEmpty()) {
+                nodeJson.put("data-type", node.getDataType());
+            }
+            
+            nodeJson.put("mandatory", node.isMandatory());
+            
+            if (node.getKey() != null) {
+                nodeJson.put("key", node.getKey());
+            }
+            
+            if (node.getConfig() != null) {
+                nodeJson.put("config", node.getConfig().booleanValue());
+            }
+            
+            if (!node.getMusts().isEmpty()) {
+                nodeJson.put("must", new JSONArray(node.getMusts()));
+            }
+            parent.put(nodeJson);
+            
+            // Children are filled in as they come off the stack, in document order
+            List<YangNode> children = node.getChildren();
+            if (!children.isEmpty()) {
+                JSONArray childrenArray = new JSONArray();
+                nodeJson.put("children", childrenArray);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                    targets.push(childrenArray);
+                }
             }
-            nodeJson.put("children", childrenArray);
         }
-        
-        return nodeJson;
     }
     
-    public void saveJsonToFile(JSONObject json, String outputPath) throws IOException {
-        // Ensure output directory exists
-        File outputDir = new File(outputPath).getParentFile();
-        if (!outputDir.exists()) {
-            outputDir.mkdirs();
+    /**
+     * The result of a schema diff: old-module, new-module, the number of
+     * breaking changes and the change list, in the order of getChanges().
+     */
+    public JSONObject convertToJson(SchemaDiff diff) {
+        JSONObject json = new JSONObject();
+        json.put("old-module", diff.getOldModule());
+        json.put("new-module", diff.getNewModule());
+        json.put("breaking", diff.getBreakingCount());
+        JSONArray changesArray = new JSONArray();
+        for (SchemaDiff.Change change : diff.getChanges()) {
+            changesArray.put(convertToJson(change));
+        }
+        json.put("changes", changesArray);
+        return json;
+    }
+    
+    /**
+     * One change: path, change (e.g. "type-changed"), breaking, and old and
+     * new where the change has them.
+     */
+    public JSONObject convertToJson(SchemaDiff.Change change) {
+        JSONObject json = new JSONObject();
+        json.put("path", change.getPath());
+        json.put("change", change.getType().getLabel());
+        json.put("breaking", change.isBreaking());
+        if (change.getOldValue() != null) {
+            json.put("old", change.getOldValue());
+        }
+        if (change.getNewValue() != null) {
+            json.put("new", change.getNewValue());
         }
-        
-        try (FileWriter file = new FileWriter(outputPath)) {
-            file.write(json.toString(4)); // 4 spaces for indentation
+        return json;
+    }
+    
+    /**
+     * Writes the JSON object as UTF-8, indented by 4 spaces.
+     *
+     * @return false if the file already had this content and was left alone
+     */
+    public boolean saveJsonToFile(JSONObject json, String outputPath) throws IOException {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.WRITE);
+        boolean written = OutputFile.write(Paths.get(outputPath), out -> {
+            Writer file = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            json.write(file, 4, 0); // 4 spaces for indentation
             file.flush();
+        });
+        stopWrite(timer, outputPath);
+        return written;
+    }
+    
+    /**
+     * Streams the module as JSON to the given writer without building a JSONObject tree.
+     * Output matches convertToJson(module).toString(indentFactor).
+     */
+    public void writeJson(YangModule module, Writer out, int indentFactor) throws IOException {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.CONVERT);
+        new YangJsonWriter(indentFactor).write(module, out);
+        timer.stop(0);
+    }
+    
+    /**
+     * Same output as writeJson, with large sibling subtrees converted in
+     * parallel on the common ForkJoinPool.
+     */
+    public void writeJsonParallel(YangModule module, Writer out, int indentFactor) throws IOException {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.CONVERT);
+        new ParallelJsonWriter(indentFactor).write(module, out);
+        timer.stop(0);
+    }
+    
+    /**
+     * Uses the parallel writer unless already running on a ForkJoinPool
+     * worker (as in batch mode), where the files themselves are the unit
+     * of parallelism. Untimed; callers time it as their own phase.
+     */
+    private void writeJsonAuto(YangModule module, Writer out, int indentFactor) throws IOException {
+        if (ForkJoinTask.inForkJoinPool()) {
+            new YangJsonWriter(indentFactor).write(module, out);
+        } else {
+            new ParallelJsonWriter(indentFactor).write(module, out);
+        }
+    }
+    
+    /**
+     * Outcome of streamJsonToFile: the diagnostics (the module is null when
+     * it was streamed), whether it was streamed, whether the file changed,
+     * and the beginning of the JSON.
+     */
+    public static class StreamResult {
+        private final ParseResult parseResult;
+        private final boolean streamed;
+        private final boolean written;
+        private final String preview;
+
+        StreamResult(ParseResult parseResult, boolean streamed, boolean written, String preview) {
+            this.parseResult = parseResult;
+            this.streamed = streamed;
+            this.written = written;
+            this.preview = preview;
+        }
+
+        public ParseResult getParseResult() { return parseResult; }
+        public boolean hasErrors() { return parseResult.hasErrors(); }
+        public boolean isStreamed() { return streamed; }
+        /** False if the file already had this content, or the module has errors. */
+        public boolean isWritten() { return written; }
+        public String getPreview() { return preview; }
+    }
+    
+    /**
+     * Converts a YANG file to JSON as it is parsed: parser events go
+     * straight into a StreamingJsonWriter, so memory is bounded by nesting
+     * depth and each top-level node reaches the file as soon as it closes.
+     * Modules that cannot be written in one pass (see StreamingJsonWriter)
+     * are parsed first and written with the same writer. Either way the file
+     * is byte-identical to saveToFile's JSON. The output is replaced
+     * atomically, and only if the module has no errors.
+     *
+     * @param previewLength number of leading characters of the JSON to keep
+     */
+    public StreamResult streamJsonToFile(String yangPath, String outputPath, int previewLength) throws IOException {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.WRITE);
+        YangParser parser = new YangParser();
+        ByteBuffer source = YangSource.open(Paths.get(yangPath));
+        StringBuilder preview = new StringBuilder(previewLength);
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        ParseResult parsed = null;
+        boolean written = false;
+        try {
+            written = OutputFile.write(Paths.get(outputPath), out -> {
+                Writer file = new PreviewWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), preview,
+                        previewLength);
+                diagnostics.addAll(parser.parse(source, new StreamingJsonWriter(file)));
+                rejectErrors(diagnostics);
+                file.flush();
+            });
+        } catch (StreamingJsonWriter.NotStreamableException e) {
+            parsed = parser.parseFile(yangPath);
+            preview.setLength(0);
+            YangModule module = parsed.getModule();
+            if (!parsed.hasErrors()) {
+                written = OutputFile.write(Paths.get(outputPath), out -> {
+                    Writer file = new PreviewWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), preview,
+                            previewLength);
+                    new StreamingJsonWriter(file).write(module);
+                    file.flush();
+                });
+            }
+        } catch (InvalidModuleException e) {
+            written = false; // the temp file is gone and the old output kept
+        } catch (InternalError e) {
+            throw YangSource.fault(Paths.get(yangPath), source, e);
+        }
+        stopWrite(timer, outputPath);
+        ParseResult result = parsed != null ? parsed : new ParseResult(null, diagnostics);
+        return new StreamResult(result, parsed == null, written, preview.toString());
+    }
+    
+    /** Aborts an output file whose module turned out to have errors. */
+    private static final class InvalidModuleException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidModuleException() {
+            super("Module has errors");
+        }
+    }
+    
+    private static void rejectErrors(List<Diagnostic> diagnostics) throws InvalidModuleException {
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.isError()) {
+                throw new InvalidModuleException();
+            }
+        }
+    }
+    
+    /** Passes everything through and keeps the first characters. */
+    private static final class PreviewWriter extends FilterWriter {
+        private final StringBuilder preview;
+        private final int limit;
+
+        PreviewWriter(Writer out, StringBuilder preview, int limit) {
+            super(new BufferedWriter(out, 64 * 1024));
+            this.preview = preview;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (preview.length() < limit) {
+                preview.append((char) c);
+            }
+            out.write(c);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (preview.length() < limit) {
+                preview.append(chars, offset, Math.min(length, limit - preview.length()));
+            }
+            out.write(chars, offset, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            if (preview.length() < limit) {
+                preview.append(string, offset, offset + Math.min(length, limit - preview.length()));
+            }
+            out.write(string, offset, length);
         }
     }
     
+    public boolean saveJsonToFile(YangModule module, String outputPath) throws IOException {
+        return saveToFile(module, OutputFormat.JSON, OutputFile.Compression.NONE, outputPath);
+    }
+    
     public String convertToJsonString(YangModule module) {
-        return convertToJson(module).toString(4);
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.CONVERT);
+        StringWriter out = new StringWriter();
+        // Take the buffer lock once instead of once per write, as JSONObject.toString does
+        synchronized (out.getBuffer()) {
+            try {
+                writeJsonAuto(module, out, 4);
+            } catch (IOException e) {
+                throw new RuntimeException("Error converting to JSON: " + e.getMessage(), e);
+            }
+            String json = out.toString();
+            timer.stop(json.length());
+            return json;
+        }
+    }
+    
+    /**
+     * Writes the module in any output format; JSON and minified JSON go
+     * through the same streaming writer as saveJsonToFile.
+     */
+    public void write(YangModule module, OutputFormat format, OutputStream out) throws IOException {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.CONVERT);
+        format.write(module, out);
+        timer.stop(0);
+    }
+    
+    public boolean saveToFile(YangModule module, OutputFormat format, String outputPath) throws IOException {
+        return saveToFile(module, format, OutputFile.Compression.NONE, outputPath);
+    }
+    
+    /**
+     * Writes the module to outputPath, replacing it atomically (see
+     * OutputFile). The path is used as given, without adding the
+     * compression's file extension.
+     *
+     * @return false if the file already had this content and was left alone
+     */
+    public boolean saveToFile(YangModule module, OutputFormat format, OutputFile.Compression compression,
+            String outputPath) throws IOException {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.WRITE);
+        boolean written = OutputFile.write(Paths.get(outputPath), compression, out -> {
+            if (format == OutputFormat.JSON) {
+                Writer file = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                writeJsonAuto(module, file, 4); // 4 spaces for indentation
+                file.flush();
+            } else {
+                format.write(module, out);
+            }
+        });
+        stopWrite(timer, outputPath);
+        return written;
+    }
+    
+    /**
+     * Records a file write with the size of the file; the size costs a
+     * stat call, so it is only looked up while metrics are enabled.
+     */
+    private static void stopWrite(Metrics.Timer timer, String outputPath) {
+        if (Metrics.isEnabled()) {
+            timer.stop(new File(outputPath).length());
+        }
+    }
+    
+    /**
+     * Reads back a module saved with saveToFile or saveJsonToFile.
+     */
+    public YangModule loadFromFile(String inputPath, OutputFormat format) throws IOException {
+        try (InputStream file = new BufferedInputStream(new FileInputStream(inputPath), 64 * 1024)) {
+            if (inputPath.endsWith(OutputFile.Compression.GZIP.getFileExtension())) {
+                return format.read(new GZIPInputStream(file, 64 * 1024));
+            }
+            return format.read(file);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+import model.YangModule;
+import model.YangNode;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * JSON output through YangJsonWriter, pretty-printed or minified, and a
+ * reader built on JsonStreamReader.
+ */
+public class JsonFormat implements OutputFormat {
+    private final String name;
+    private final String extension;
+    private final int indentFactor;
+
+    JsonFormat(String name, String extension, int indentFactor) {
+        this.name = name;
+        this.extension = extension;
+        this.indentFactor = indentFactor;
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public String getFileExtension() { return extension; }
+
+    @Override
+    public void write(YangModule module, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        new YangJsonWriter(indentFactor).write(module, writer);
+        writer.flush();
+    }
+
+    @Override
+    public YangModule read(InputStream in) throws IOException {
+        JsonStreamReader json = new JsonStreamReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        expect(json.next(), JsonStreamReader.Token.START_OBJECT, "module object");
+
+        String moduleName = null;
+        String namespace = null;
+        String prefix = null;
+        List<String> imports = new ArrayList<>();
+        List<YangNode> nodes = new ArrayList<>();
+
+        JsonStreamReader.Token token;
+        while ((token = json.next()) == JsonStreamReader.Token.NAME) {
+            String key = json.text();
+            JsonStreamReader.Token value = json.next();
+            switch (key) {
+                case "module":
+                    moduleName = string(json, value);
+                    break;
+                case "namespace":
+                    namespace = string(json, value);
+                    break;
+                case "prefix":
+                    prefix = string(json, value);
+                    break;
+                case "imports":
+                    expect(value, JsonStreamReader.Token.START_ARRAY, "imports array");
+                    while ((value = json.next()) != JsonStreamReader.Token.END_ARRAY) {
+                        imports.add(string(json, value));
+                    }
+                    break;
+                case "nodes":
+                    expect(value, JsonStreamReader.Token.START_ARRAY, "nodes array");
+                    nodes = readNodes(json);
+                    break;
+                default:
+                    throw new IOException("Unexpected module member '" + key + "'");
+            }
+        }
+        expect(token, JsonStreamReader.Token.END_OBJECT, "end of module object");
+        if (moduleName == null) {
+            throw new IOException("Module name is missing");
+        }
+
+        YangModule module = new YangModule(moduleName);
+        module.setNamespace(namespace);
+        module.setPrefix(prefix);
+        for (String imported : imports) {
+            module.addImport(imported);
+        }
+        for (YangNode node : nodes) {
+            module.addNode(node);
+        }
+        module.compact();
+        return module;
+    }
+
+    /**
+     * Reads node objects up to the END_ARRAY matching an already consumed
+     * START_ARRAY, keeping nesting on an explicit stack.
+     */
+    private static List<YangNode> readNodes(JsonStreamReader json) throws IOException {
+        List<YangNode> result = new ArrayList<>();
+        Deque<PendingNode> stack = new ArrayDeque<>();
+        while (true) {
+            PendingNode top = stack.peek();
+            JsonStreamReader.Token token = json.next();
+
+            if (top == null || top.inChildren) {
+                if (token == JsonStreamReader.Token.END_ARRAY) {
+                    if (top == null) {
+                        return result;
+                    }
+                    top.inChildren = false;
+                    continue;
+                }
+                expect(token, JsonStreamReader.Token.START_OBJECT, "node object");
+                stack.push(new PendingNode());
+                continue;
+            }
+
+            if (token == JsonStreamReader.Token.END_OBJECT) {
+                YangNode node = stack.pop().toNode();
+                PendingNode parent = stack.peek();
+                if (parent == null) {
+                    result.add(node);
+                } else {
+                    parent.children.add(node);
+                }
+                continue;
+            }
+
+            expect(token, JsonStreamReader.Token.NAME, "node member");
+            String key = json.text();
+            JsonStreamReader.Token value = json.next();
+            switch (key) {
+                case "mandatory":
+                    if (value != JsonStreamReader.Token.TRUE && value != JsonStreamReader.Token.FALSE) {
+                        throw new IOException("Expected true or false for 'mandatory'");
+                    }
+                    top.mandatory = value == JsonStreamReader.Token.TRUE;
+                    break;
+                case "config":
+                    if (value != JsonStreamReader.Token.TRUE && value != JsonStreamReader.Token.FALSE) {
+                        throw new IOException("Expected true or false for 'config'");
+                    }
+                    top.config = value == JsonStreamReader.Token.TRUE;
+                    break;
+                case "must":
+                    expect(value, JsonStreamReader.Token.START_ARRAY, "must array");
+                    while ((value = json.next()) != JsonStreamReader.Token.END_ARRAY) {
+                        top.musts.add(string(json, value));
+                    }
+                    break;
+                case "children":
+                    expect(value, JsonStreamReader.Token.START_ARRAY, "children array");
+                    top.inChildren = true;
+                    break;
+                default:
+                    top.set(key, string(json, value));
+            }
+        }
+    }
+
+    private static String string(JsonStreamReader json, JsonStreamReader.Token token) throws IOException {
+        expect(token, JsonStreamReader.Token.STRING, "string");
+        return json.text();
+    }
+
+    private static void expect(JsonStreamReader.Token actual, JsonStreamReader.Token expected, String what)
+            throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + what + " but found " + actual);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser for JSON documents.
+ *
+ * Reads from a Reader through a fixed char buffer and reports one token at a
+ * time, so documents are never materialized as a tree. Object member names
+ * are reported as NAME tokens before their value.
+ */
+public class JsonStreamReader {
+
+    public enum Token {
+        START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT
+    }
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+    // Characters consumed by earlier fills
+    private long filled;
+
+    private final StringBuilder text = new StringBuilder();
+
+    // Container nesting: true for objects, false for arrays
+    private boolean[] stack = new boolean[32];
+    private int depth;
+    // Whether the next token in the current container must be preceded by a comma
+    private boolean needComma;
+    // Inside an object, whether the next token is a member name
+    private boolean expectName;
+
+    public JsonStreamReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @throws IOException on read failure or malformed JSON
+     */
+    public Token next() throws IOException {
+        int c = skipWhitespace();
+
+        if (c == '}' || c == ']') {
+            boolean object = c == '}';
+            if (depth == 0 || stack[depth - 1] != object) {
+                throw syntax("Unexpected '" + (char) c + "'");
+            }
+            if (awaitingValue()) {
+                throw syntax("Expected a value");
+            }
+            pos++;
+            depth--;
+            afterValue();
+            return object ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+
+        if (needComma) {
+            if (c != ',') {
+                throw syntax("Expected ',' but found " + describe(c));
+            }
+            pos++;
+            c = skipWhitespace();
+        }
+
+        if (depth > 0 && stack[depth - 1] && expectName) {
+            if (c != '"') {
+                throw syntax("Expected member name but found " + describe(c));
+            }
+            pos++;
+            readString();
+            if (skipWhitespace() != ':') {
+                throw syntax("Expected ':' after member name");
+            }
+            pos++;
+            expectName = false;
+            needComma = false;
+            return Token.NAME;
+        }
+
+        switch (c) {
+            case -1:
+                if (depth > 0) {
+                    throw syntax("Unexpected end of document");
+                }
+                return Token.END_DOCUMENT;
+            case '{':
+                pos++;
+                push(true);
+                return Token.START_OBJECT;
+            case '[':
+                pos++;
+                push(false);
+                return Token.START_ARRAY;
+            case '"':
+                pos++;
+                readString();
+                afterValue();
+                return Token.STRING;
+            case 't':
+                literal("true");
+                return Token.TRUE;
+            case 'f':
+                literal("false");
+                return Token.FALSE;
+            case 'n':
+                literal("null");
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber();
+                    afterValue();
+                    return Token.NUMBER;
+                }
+                throw syntax("Unexpected " + describe(c));
+        }
+    }
+
+    /**
+     * Text of the last NAME, STRING or NUMBER token.
+     */
+    public String text() {
+        return text.toString();
+    }
+
+    /**
+     * Characters consumed from the Reader so far.
+     */
+    public long getCharsRead() {
+        return filled + pos;
+    }
+
+    /**
+     * Skips the value whose first token was just returned by next().
+     */
+    public void skipValue(Token first) throws IOException {
+        if (first != Token.START_OBJECT && first != Token.START_ARRAY) {
+            return;
+        }
+        int target = depth - 1;
+        while (depth > target) {
+            if (next() == Token.END_DOCUMENT) {
+                throw syntax("Unexpected end of document");
+            }
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == stack.length) {
+            boolean[] larger = new boolean[depth * 2];
+            System.arraycopy(stack, 0, larger, 0, depth);
+            stack = larger;
+        }
+        stack[depth++] = object;
+        needComma = false;
+        expectName = object;
+    }
+
+    /** Whether a NAME was returned and its value has not started yet. */
+    private boolean awaitingValue() {
+        return depth > 0 && stack[depth - 1] && !expectName && !needComma;
+    }
+
+    private void afterValue() {
+        needComma = depth > 0;
+        expectName = depth > 0 && stack[depth - 1];
+    }
+
+    private void literal(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (peek() != word.charAt(i)) {
+                throw syntax("Invalid literal, expected '" + word + "'");
+            }
+            pos++;
+        }
+        afterValue();
+    }
+
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (pos >= limit && !fill()) {
+                throw syntax("Unterminated string");
+            }
+            // Copy runs of plain characters in one go
+            int start = pos;
+            while (pos < limit && buf[pos] != '"' && buf[pos] != '\\') {
+                pos++;
+            }
+            text.append(buf, start, pos - start);
+            if (pos >= limit) {
+                continue;
+            }
+            char c = buf[pos++];
+            if (c == '"') {
+                return;
+            }
+            int e = read();
+            switch (e) {
+                case '"': text.append('"'); break;
+                case '\\': text.append('\\'); break;
+                case '/': text.append('/'); break;
+                case 'b': text.append('\b'); break;
+                case 'f': text.append('\f'); break;
+                case 'n': text.append('\n'); break;
+                case 'r': text.append('\r'); break;
+                case 't': text.append('\t'); break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) {
+                            throw syntax("Invalid \\u escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    text.append((char) code);
+                    break;
+                default:
+                    throw syntax("Invalid escape sequence");
+            }
+        }
+    }
+
+    /**
+     * Reads a number in the grammar of RFC 8259:
+     * -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+     */
+    private void readNumber() throws IOException {
+        text.setLength(0);
+        accept('-');
+        if (!accept('0') && digits() == 0) {
+            throw invalidNumber();
+        }
+        if (accept('.') && digits() == 0) {
+            throw invalidNumber();
+        }
+        if (accept('e') || accept('E')) {
+            if (!accept('+')) {
+                accept('-');
+            }
+            if (digits() == 0) {
+                throw invalidNumber();
+            }
+        }
+        int c = peek();
+        if (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+            text.append((char) c);
+            throw invalidNumber();
+        }
+    }
+
+    /** Consumes c into text if it is the next character. */
+    private boolean accept(char c) throws IOException {
+        if (peek() != c) {
+            return false;
+        }
+        text.append(c);
+        pos++;
+        return true;
+    }
+
+    /** Consumes a run of digits into text and returns its length. */
+    private int digits() throws IOException {
+        int count = 0;
+        int c;
+        while ((c = peek()) >= '0' && c <= '9') {
+            text.append((char) c);
+            pos++;
+            count++;
+        }
+        return count;
+    }
+
+    private IOException invalidNumber() {
+        return syntax("Invalid number '" + text + "'");
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            pos++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buf[pos];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c == -1) {
+            throw syntax("Unexpected end of document");
+        }
+        pos++;
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) {
+            return false;
+        }
+        filled += limit;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of document" : "'" + (char) c + "'";
+    }
+
+    private IOException syntax(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
@@ -1,7 +1,27 @@
 import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            System.exit(runBatch(args));
+        }
+        if (args.length > 0 && "--watch".equals(args[0])) {
+            System.exit(runWatch(args));
+        }
+        if (args.length > 0 && "--server".equals(args[0])) {
+            int exitCode = runServer(args);
+            if (exitCode != 0) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+        if (args.length > 0 && CommandLine.isCommand(args[0])) {
+            System.exit(CommandLine.run(args));
+        }
+        
         try {
             System.out.println("=== YANG Model Validator ===");
             System.out.println("Initializing application...");
@@ -52,4 +72,140 @@ public class Main {
             System.exit(1);
         }
     }
+    
+    /**
+     * Usage: java Main --batch [dir] [--parallelism N] [--output dir] [--cache dir] [--compress gzip] [--metrics file]
+     * Validates and converts every .yang file under dir (default input/).
+     * Returns 0 when all files pass, 1 when any file fails, 2 on bad usage.
+     */
+    private static int runBatch(String[] args) {
+        Path inputDir = Paths.get("input");
+        Path outputDir = Paths.get("output");
+        Path cacheDir = null;
+        Path metricsFile = null;
+        OutputFile.Compression compression = OutputFile.Compression.NONE;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--parallelism":
+                        parallelism = Integer.parseInt(args[++i]);
+                        break;
+                    case "--output":
+                        outputDir = Paths.get(args[++i]);
+                        break;
+                    case "--cache":
+                        cacheDir = Paths.get(args[++i]);
+                        break;
+                    case "--metrics":
+                        metricsFile = Paths.get(args[++i]);
+                        break;
+                    case "--compress":
+                        compression = OutputFile.Compression.forName(args[++i]);
+                        break;
+                    default:
+                        inputDir = Paths.get(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Usage: java Main --batch [dir] [--parallelism N] [--output dir] [--cache dir] [--compress gzip] [--metrics file]");
+            return 2;
+        }
+        
+        try {
+            if (metricsFile != null) {
+                Metrics.setEnabled(true);
+            }
+            long start = System.nanoTime();
+            SchemaCache cache = cacheDir != null ? new SchemaCache(cacheDir, 1024) : null;
+            BatchProcessor processor = new BatchProcessor(parallelism, outputDir, cache, compression);
+            List<BatchProcessor.FileResult> results = processor.run(inputDir);
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            int failed = BatchProcessor.printReport(results, elapsed);
+            if (cache != null) {
+                System.out.println("Cache: " + cache.getMemoryHits() + " memory hits, "
+                        + cache.getDiskHits() + " disk hits, " + cache.getMisses() + " misses");
+            }
+            if (metricsFile != null) {
+                Metrics.writePrometheus(metricsFile);
+                System.out.println("✓ Metrics written to " + metricsFile);
+            }
+            return failed == 0 ? 0 : 1;
+        } catch (Exception e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * Usage: java Main --watch [dir] [--output dir]
+     * Validates every .yang file under dir (default input/), then keeps
+     * re-validating files as they are saved until interrupted.
+     */
+    private static int runWatch(String[] args) {
+        Path inputDir = Paths.get("input");
+        Path outputDir = Paths.get("output");
+        
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if ("--output".equals(args[i])) {
+                    outputDir = Paths.get(args[++i]);
+                } else {
+                    inputDir = Paths.get(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Usage: java Main --watch [dir] [--output dir]");
+            return 2;
+        }
+        
+        try {
+            new WatchMode(inputDir.toAbsolutePath(), outputDir).run();
+            return 0;
+        } catch (InterruptedException e) {
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Watch mode failed: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * Usage: java Main --server [--port N] [--cache dir]
+     * Starts the validation server and keeps running until the process is
+     * stopped. Returns 2 on bad usage and 1 if the server cannot start.
+     */
+    private static int runServer(String[] args) {
+        int port = ValidationServer.DEFAULT_PORT;
+        Path cacheDir = null;
+        
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--cache":
+                        cacheDir = Paths.get(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Usage: java Main --server [--port N] [--cache dir]");
+            return 2;
+        }
+        
+        try {
+            ValidationServer server = new ValidationServer(port, cacheDir);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            return 0;
+        } catch (Exception e) {
+            System.err.println("✗ Server failed to start: " + e.getMessage());
+            return 1;
+        }
+    }
 }
@@ -0,0 +1,132 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * MessagePack encoding of the module document, using the smallest header
+ * form for every map, array and string.
+ */
+public class MessagePackFormat extends BinaryFormat {
+    private static final int FIXMAP = 0x80;
+    private static final int FIXARRAY = 0x90;
+    private static final int FIXSTR = 0xa0;
+    private static final int FALSE = 0xc2;
+    private static final int TRUE = 0xc3;
+    private static final int STR8 = 0xd9;
+    private static final int STR16 = 0xda;
+    private static final int STR32 = 0xdb;
+    private static final int ARRAY16 = 0xdc;
+    private static final int ARRAY32 = 0xdd;
+    private static final int MAP16 = 0xde;
+    private static final int MAP32 = 0xdf;
+
+    @Override
+    public String getName() { return "msgpack"; }
+
+    @Override
+    public String getFileExtension() { return ".msgpack"; }
+
+    @Override
+    protected void writeMapHeader(DataOutputStream out, int size) throws IOException {
+        writeHeader(out, size, FIXMAP, MAP16, MAP32);
+    }
+
+    @Override
+    protected void writeArrayHeader(DataOutputStream out, int size) throws IOException {
+        writeHeader(out, size, FIXARRAY, ARRAY16, ARRAY32);
+    }
+
+    private static void writeHeader(DataOutputStream out, int size, int fix, int size16, int size32)
+            throws IOException {
+        if (size < 16) {
+            out.writeByte(fix | size);
+        } else if (size < 0x10000) {
+            out.writeByte(size16);
+            out.writeShort(size);
+        } else {
+            out.writeByte(size32);
+            out.writeInt(size);
+        }
+    }
+
+    @Override
+    protected void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = utf8Bytes(value);
+        int length = bytes.length;
+        if (length < 32) {
+            out.writeByte(FIXSTR | length);
+        } else if (length < 0x100) {
+            out.writeByte(STR8);
+            out.writeByte(length);
+        } else if (length < 0x10000) {
+            out.writeByte(STR16);
+            out.writeShort(length);
+        } else {
+            out.writeByte(STR32);
+            out.writeInt(length);
+        }
+        out.write(bytes);
+    }
+
+    @Override
+    protected void writeBoolean(DataOutputStream out, boolean value) throws IOException {
+        out.writeByte(value ? TRUE : FALSE);
+    }
+
+    @Override
+    protected int readMapHeader(ByteBuffer in) throws IOException {
+        return checkedCount(in, readHeader(in, FIXMAP, MAP16, MAP32, "map"), "map");
+    }
+
+    @Override
+    protected int readArrayHeader(ByteBuffer in) throws IOException {
+        return checkedCount(in, readHeader(in, FIXARRAY, ARRAY16, ARRAY32, "array"), "array");
+    }
+
+    private static int readHeader(ByteBuffer in, int fix, int size16, int size32, String what)
+            throws IOException {
+        int b = Byte.toUnsignedInt(in.get());
+        if ((b & 0xf0) == fix) {
+            return b & 0x0f;
+        } else if (b == size16) {
+            return Short.toUnsignedInt(in.getShort());
+        } else if (b == size32) {
+            return checkedSize(in.getInt() & 0xFFFFFFFFL, what);
+        }
+        throw new IOException("Malformed MessagePack: expected a " + what);
+    }
+
+    @Override
+    protected String readString(ByteBuffer in) throws IOException {
+        int b = Byte.toUnsignedInt(in.get());
+        long length;
+        if ((b & 0xe0) == FIXSTR) {
+            length = b & 0x1f;
+        } else if (b == STR8) {
+            length = Byte.toUnsignedInt(in.get());
+        } else if (b == STR16) {
+            length = Short.toUnsignedInt(in.getShort());
+        } else if (b == STR32) {
+            length = checkedSize(in.getInt() & 0xFFFFFFFFL, "string");
+        } else {
+            throw new IOException("Malformed MessagePack: expected a string");
+        }
+        return readUtf8(in, length);
+    }
+
+    @Override
+    protected boolean readBoolean(ByteBuffer in) throws IOException {
+        int b = Byte.toUnsignedInt(in.get());
+        if (b != TRUE && b != FALSE) {
+            throw new IOException("Malformed MessagePack: expected a boolean");
+        }
+        return b == TRUE;
+    }
+
+    private static int checkedSize(long size, String what) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Malformed MessagePack: " + what + " too large");
+        }
+        return (int) size;
+    }
+}
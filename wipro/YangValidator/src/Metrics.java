@@ -0,0 +1,331 @@
+import model.NodeKind;
+import model.YangModule;
+import model.YangNode;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Process-wide timings and counters for the read, parse, validate, convert
+ * and write phases.
+ *
+ * Off by default. While disabled, start() hands out a shared no-op Timer,
+ * so an instrumented call site costs one field read and no allocation.
+ * Enable with -Dyang.metrics=true, the --metrics option of the commands and
+ * batch mode, or setEnabled(true); the validation server always enables it.
+ *
+ * Enabled, every phase records a duration histogram, bytes processed and
+ * bytes allocated by the calling thread (where the JVM can measure it).
+ * Each parse also adds its line count and node counts per kind. Totals are
+ * exported in the Prometheus text format by toPrometheus() and
+ * writePrometheus(). While a flight recording is running, each phase and
+ * parse is also committed as a yang.Phase or yang.Parse JFR event.
+ */
+public final class Metrics {
+
+    public enum Phase {
+        READ, PARSE, VALIDATE, CONVERT, WRITE;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    // Upper bounds of the duration histogram buckets, in seconds
+    private static final double[] BUCKETS = {0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5};
+    private static final String[] BUCKET_LABELS = {"0.0005", "0.001", "0.005", "0.01", "0.05", "0.1", "0.5", "1", "5"};
+    private static final int PHASES = Phase.values().length;
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+    private static volatile boolean enabled = Boolean.getBoolean("yang.metrics");
+
+    private static final LongAdder[] calls = adders(PHASES);
+    private static final LongAdder[] nanos = adders(PHASES);
+    private static final LongAdder[] bytes = adders(PHASES);
+    private static final LongAdder[] allocated = adders(PHASES);
+    private static final LongAdder[] buckets = adders(PHASES * BUCKETS.length);
+    private static final LongAdder[] nodes = adders(KINDS.length);
+    private static final LongAdder files = new LongAdder();
+    private static final LongAdder lines = new LongAdder();
+
+    private static final Timer DISABLED = new Timer(null);
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Starts timing one phase on the current thread. Call stop() on the
+     * same thread when the phase is done.
+     */
+    public static Timer start(Phase phase) {
+        return enabled ? new Timer(phase) : DISABLED;
+    }
+
+    /**
+     * Stops a parse timer and records the parse as one file: its bytes,
+     * lines and nodes per kind.
+     *
+     * @param source file name for the JFR event, or null
+     */
+    static void recordParse(Timer timer, String source, long size, long lineCount, YangModule module) {
+        if (timer == DISABLED) {
+            return;
+        }
+        timer.stop(size);
+        long[] counts = countNodes(module);
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            nodes[i].add(counts[i]);
+            total += counts[i];
+        }
+        files.increment();
+        lines.add(lineCount);
+
+        ParseEvent event = new ParseEvent();
+        if (event.isEnabled()) {
+            event.source = source;
+            event.bytes = size;
+            event.lines = lineCount;
+            event.nodes = total;
+            event.allocated = timer.allocatedBytes;
+            event.commit();
+        }
+    }
+
+    private static long[] countNodes(YangModule module) {
+        long[] counts = new long[KINDS.length];
+        if (module == null) {
+            return counts;
+        }
+        // Declared statements, so groupings count once however often they are used
+        Deque<YangNode> stack = new ArrayDeque<>(module.getDeclaredNodes());
+        while (!stack.isEmpty()) {
+            YangNode node = stack.pop();
+            counts[node.getKind().ordinal()]++;
+            List<YangNode> children = node.getDeclaredChildren();
+            for (int i = 0; i < children.size(); i++) {
+                stack.push(children.get(i));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Clears every counter; the enabled state is left as is.
+     */
+    public static void reset() {
+        for (LongAdder[] group : List.of(calls, nanos, bytes, allocated, buckets, nodes)) {
+            for (LongAdder adder : group) {
+                adder.reset();
+            }
+        }
+        files.reset();
+        lines.reset();
+    }
+
+    /**
+     * Current totals in the Prometheus text exposition format (version 0.0.4).
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        header(sb, "yang_phase_duration_seconds", "histogram", "Time spent per processing phase.");
+        for (Phase phase : Phase.values()) {
+            int p = phase.ordinal();
+            long cumulative = 0;
+            for (int b = 0; b < BUCKETS.length; b++) {
+                cumulative += buckets[p * BUCKETS.length + b].sum();
+                sample(sb, "yang_phase_duration_seconds_bucket", phase, "le=\"" + BUCKET_LABELS[b] + "\"", cumulative);
+            }
+            sample(sb, "yang_phase_duration_seconds_bucket", phase, "le=\"+Inf\"", calls[p].sum());
+            sb.append("yang_phase_duration_seconds_sum{phase=\"").append(phase.label).append("\"} ")
+                    .append(nanos[p].sum() / 1e9).append('\n');
+            sample(sb, "yang_phase_duration_seconds_count", phase, null, calls[p].sum());
+        }
+        header(sb, "yang_phase_bytes_total", "counter", "Bytes read, parsed, validated or written per phase.");
+        for (Phase phase : Phase.values()) {
+            sample(sb, "yang_phase_bytes_total", phase, null, bytes[phase.ordinal()].sum());
+        }
+        if (ALLOCATION != null) {
+            header(sb, "yang_phase_allocated_bytes_total", "counter",
+                    "Heap bytes allocated by the threads running each phase.");
+            for (Phase phase : Phase.values()) {
+                sample(sb, "yang_phase_allocated_bytes_total", phase, null, allocated[phase.ordinal()].sum());
+            }
+        }
+        header(sb, "yang_files_parsed_total", "counter", "YANG sources parsed.");
+        sb.append("yang_files_parsed_total ").append(files.sum()).append('\n');
+        header(sb, "yang_lines_total", "counter", "YANG source lines parsed.");
+        sb.append("yang_lines_total ").append(lines.sum()).append('\n');
+        header(sb, "yang_nodes_total", "counter", "Schema nodes parsed, by kind.");
+        for (NodeKind kind : KINDS) {
+            sb.append("yang_nodes_total{kind=\"").append(kind.getKeyword()).append("\"} ")
+                    .append(nodes[kind.ordinal()].sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes toPrometheus() to a file, e.g. for the node_exporter textfile
+     * collector. The file is replaced atomically so a scrape never sees it
+     * half written.
+     */
+    public static void writePrometheus(Path file) throws IOException {
+        String text = toPrometheus();
+        OutputFile.write(file, out -> out.write(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, Phase phase, String label, long value) {
+        sb.append(name).append("{phase=\"").append(phase.label).append('"');
+        if (label != null) {
+            sb.append(',').append(label);
+        }
+        sb.append("} ").append(value).append('\n');
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Per-thread allocation counters are a HotSpot extension; without them
+     * allocation is simply not reported.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun;
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedByThread() {
+        return ALLOCATION != null ? ALLOCATION.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * One timed phase. The instance returned while metrics are disabled
+     * ignores stop().
+     */
+    public static final class Timer {
+        private final Phase phase;
+        private final long startNanos;
+        private final long startAllocated;
+        private long allocatedBytes;
+
+        private Timer(Phase phase) {
+            this.phase = phase;
+            this.startNanos = phase != null ? System.nanoTime() : 0;
+            this.startAllocated = phase != null ? allocatedByThread() : 0;
+        }
+
+        /**
+         * @param size bytes or characters the phase processed, or 0 if unknown
+         */
+        public void stop(long size) {
+            if (phase == null) {
+                return;
+            }
+            long elapsed = System.nanoTime() - startNanos;
+            allocatedBytes = allocatedByThread() - startAllocated;
+            int p = phase.ordinal();
+            calls[p].increment();
+            nanos[p].add(elapsed);
+            bytes[p].add(size);
+            allocated[p].add(allocatedBytes);
+            double seconds = elapsed / 1e9;
+            for (int b = 0; b < BUCKETS.length; b++) {
+                if (seconds <= BUCKETS[b]) {
+                    buckets[p * BUCKETS.length + b].increment();
+                    break;
+                }
+            }
+
+            PhaseEvent event = new PhaseEvent();
+            if (event.isEnabled()) {
+                event.phase = phase.label;
+                event.elapsed = elapsed;
+                event.bytes = size;
+                event.allocated = allocatedBytes;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("yang.Phase")
+    @Label("YANG Phase")
+    @Category("YANG Validator")
+    @Description("One read, parse, validate, convert or write step")
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("yang.Parse")
+    @Label("YANG Parse")
+    @Category("YANG Validator")
+    @Description("One YANG source parsed")
+    static final class ParseEvent extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Lines")
+        long lines;
+
+        @Label("Nodes")
+        long nodes;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+}
@@ -0,0 +1,342 @@
+import model.Diagnostic;
+import model.NodeKind;
+import model.ParseResult;
+import model.YangModule;
+import model.YangNode;
+import model.YangUses;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a ParseResult for the schema cache.
+ *
+ * Layout: magic, format version, parser version, module header, declared
+ * nodes in pre-order with their child counts, diagnostics and an optional
+ * JSON rendering. Every string is written once; repeats are back-references
+ * into a table both sides build in the same order. Groupings are stored
+ * once, as declared, and uses are linked again when the entry is read.
+ */
+public final class ModuleCodec {
+    private static final int MAGIC = 0x594D4331; // "YMC1"
+    private static final int FORMAT_VERSION = 4;
+
+    private static final int FLAG_MANDATORY = 1;
+    private static final int FLAG_DESCRIPTION = 2;
+    private static final int FLAG_DATA_TYPE = 4;
+    private static final int FLAG_KEY = 8;
+    private static final int FLAG_CONFIG_SET = 16;
+    private static final int FLAG_CONFIG = 32;
+    private static final int FLAG_MUST = 64;
+    private static final int FLAG_ELEMENTS = 128;
+
+    private ModuleCodec() {
+    }
+
+    public static void write(ParseResult result, String json, DataOutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        YangModule module = result.getModule();
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(YangParser.VERSION);
+
+        out.writeBoolean(module != null);
+        if (module != null) {
+            writer.string(module.getName());
+            writer.string(module.getNamespace());
+            writer.string(module.getPrefix());
+            writer.varint(module.getImports().size());
+            for (String imp : module.getImports()) {
+                writer.string(imp);
+            }
+
+            List<YangNode> declared = module.getDeclaredNodes();
+            writer.varint(declared.size());
+            Deque<YangNode> stack = new ArrayDeque<>();
+            for (int i = declared.size() - 1; i >= 0; i--) {
+                stack.push(declared.get(i));
+            }
+            while (!stack.isEmpty()) {
+                YangNode node = stack.pop();
+                writeNode(writer, node);
+                List<YangNode> children = node.getDeclaredChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+
+        writer.varint(result.getDiagnostics().size());
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            writer.varint(diagnostic.getLine());
+            writer.varint(diagnostic.getColumn());
+            out.writeByte(diagnostic.getSeverity().ordinal());
+            writer.string(diagnostic.getMessage());
+            writer.string(diagnostic.getPath());
+        }
+
+        out.writeBoolean(json != null);
+        if (json != null) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            writer.varint(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeNode(Writer writer, YangNode node) throws IOException {
+        int flags = 0;
+        if (node.isMandatory()) flags |= FLAG_MANDATORY;
+        if (node.getDescription() != null) flags |= FLAG_DESCRIPTION;
+        if (node.getDataType() != null) flags |= FLAG_DATA_TYPE;
+        if (node.getKey() != null) flags |= FLAG_KEY;
+        if (node.getConfig() != null) flags |= FLAG_CONFIG_SET;
+        if (Boolean.TRUE.equals(node.getConfig())) flags |= FLAG_CONFIG;
+        if (!node.getMusts().isEmpty()) flags |= FLAG_MUST;
+        boolean elements = node.getMinElements() != 0 || node.getMaxElements() != Integer.MAX_VALUE;
+        if (elements) flags |= FLAG_ELEMENTS;
+
+        writer.out.writeByte(node.getKind().ordinal());
+        writer.out.writeByte(flags);
+        writer.string(node.getName());
+        if (node.getDescription() != null) writer.string(node.getDescription());
+        if (node.getDataType() != null) writer.string(node.getDataType());
+        if (node.getKey() != null) writer.string(node.getKey());
+        if (!node.getMusts().isEmpty()) {
+            writer.varint(node.getMusts().size());
+            for (String must : node.getMusts()) {
+                writer.string(must);
+            }
+        }
+        if (elements) {
+            writer.varint(node.getMinElements());
+            writer.varint(node.getMaxElements());
+        }
+        writer.varint(node.getDeclaredChildren().size());
+    }
+
+    /**
+     * Decoded cache entry: the parse result and, if it was stored, its JSON.
+     */
+    public static final class Entry {
+        private final ParseResult result;
+        private final String json;
+
+        Entry(ParseResult result, String json) {
+            this.result = result;
+            this.json = json;
+        }
+
+        public ParseResult getResult() { return result; }
+        public String getJson() { return json; }
+    }
+
+    /**
+     * Reads an entry, or returns null if it was written by a different
+     * format or parser version. Counts, lengths and ordinals are checked
+     * against the buffer, so a corrupt entry fails with an IOException
+     * instead of an allocation sized from garbage.
+     */
+    public static Entry read(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION || in.getInt() != YangParser.VERSION) {
+                return null;
+            }
+            return readEntry(in);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated cache entry");
+        }
+    }
+
+    private static Entry readEntry(ByteBuffer in) throws IOException {
+        Reader reader = new Reader(in);
+        NodeKind[] kinds = NodeKind.values();
+        Diagnostic.Severity[] severities = Diagnostic.Severity.values();
+
+        YangModule module = null;
+        if (in.get() != 0) {
+            module = new YangModule(reader.string());
+            module.setNamespace(reader.string());
+            module.setPrefix(reader.string());
+            int imports = reader.size();
+            for (int i = 0; i < imports; i++) {
+                module.addImport(reader.string());
+            }
+
+            boolean needsLink = false;
+            // Parents waiting for children, with the number still to read
+            Deque<YangNode> parents = new ArrayDeque<>();
+            Deque<int[]> remaining = new ArrayDeque<>();
+            int topLevel = reader.size();
+            for (int i = 0; i < topLevel; i++) {
+                YangNode node = readNode(reader, kinds);
+                needsLink |= node.getKind().isDefinition();
+                module.addNode(node);
+                int children = reader.size();
+                parents.push(node);
+                remaining.push(new int[] {children});
+                while (!parents.isEmpty()) {
+                    if (remaining.peek()[0] == 0) {
+                        parents.pop();
+                        remaining.pop();
+                        continue;
+                    }
+                    remaining.peek()[0]--;
+                    YangNode child = readNode(reader, kinds);
+                    needsLink |= child.getKind().isDefinition();
+                    parents.peek().addChild(child);
+                    parents.push(child);
+                    remaining.push(new int[] {reader.size()});
+                }
+            }
+            module.compact();
+            if (needsLink) {
+                // Problems are already among the stored diagnostics
+                module.link();
+            }
+        }
+
+        int count = reader.size();
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int line = reader.varint();
+            int column = reader.varint();
+            Diagnostic.Severity severity = ordinal(severities, in.get(), "severity");
+            String message = reader.string();
+            diagnostics.add(new Diagnostic(line, column, severity, message, reader.string()));
+        }
+
+        String json = null;
+        if (in.get() != 0) {
+            json = reader.utf8(reader.size());
+        }
+
+        return new Entry(new ParseResult(module, diagnostics), json);
+    }
+
+    private static YangNode readNode(Reader reader, NodeKind[] kinds) throws IOException {
+        NodeKind kind = ordinal(kinds, reader.in.get(), "node kind");
+        int flags = reader.in.get();
+        String name = reader.string();
+        YangNode node = kind == NodeKind.USES ? new YangUses(name) : new YangNode(name, kind);
+        node.setMandatory((flags & FLAG_MANDATORY) != 0);
+        if ((flags & FLAG_DESCRIPTION) != 0) node.setDescription(reader.string());
+        if ((flags & FLAG_DATA_TYPE) != 0) node.setDataType(reader.string());
+        if ((flags & FLAG_KEY) != 0) node.setKey(reader.string());
+        if ((flags & FLAG_CONFIG_SET) != 0) node.setConfig((flags & FLAG_CONFIG) != 0);
+        if ((flags & FLAG_MUST) != 0) {
+            int musts = reader.size();
+            for (int i = 0; i < musts; i++) {
+                node.addMust(reader.string());
+            }
+        }
+        if ((flags & FLAG_ELEMENTS) != 0) {
+            int min = reader.varint();
+            node.setElements(min, reader.varint());
+        }
+        return node;
+    }
+
+    private static <T> T ordinal(T[] values, int ordinal, String what) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Invalid " + what + " " + ordinal + " in cache entry");
+        }
+        return values[ordinal];
+    }
+
+    private static final class Writer {
+        final DataOutputStream out;
+        final Map<String, Integer> table = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        // 0 = null, 1..n = back-reference, n+1 = new string follows
+        void string(String value) throws IOException {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            Integer index = table.get(value);
+            if (index != null) {
+                varint(index);
+                return;
+            }
+            table.put(value, table.size() + 1);
+            varint(table.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            out.write(bytes);
+        }
+
+        void varint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    private static final class Reader {
+        final ByteBuffer in;
+        final List<String> table = new ArrayList<>();
+
+        Reader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        String string() throws IOException {
+            int index = varint();
+            if (index == 0) {
+                return null;
+            }
+            if (index <= table.size()) {
+                return table.get(index - 1);
+            }
+            if (index != table.size() + 1) {
+                throw new IOException("Invalid string reference " + index + " in cache entry");
+            }
+            String value = utf8(size());
+            table.add(value);
+            return value;
+        }
+
+        String utf8(int length) {
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+
+        /** A length or element count; each element takes at least a byte. */
+        int size() throws IOException {
+            int size = varint();
+            if (size < 0 || size > in.remaining()) {
+                throw new IOException("Invalid size " + size + " with " + in.remaining()
+                        + " bytes left in cache entry");
+            }
+            return size;
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = in.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid varint in cache entry");
+        }
+    }
+}
@@ -0,0 +1,258 @@
+import model.ParseResult;
+import model.YangModule;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Loads modules and their imports from a search path.
+ *
+ * Every module is parsed at most once per registry, however many importers
+ * reference it: the first request installs a future and later requests
+ * share it. A module's imports are scheduled as soon as it is parsed, so
+ * independent branches of the import graph load in parallel. Loads never
+ * wait on each other, which keeps circular imports from deadlocking; cycles
+ * are reported once the graph is complete.
+ */
+public class ModuleRegistry implements AutoCloseable {
+    private final List<Path> searchPath;
+    private final YangParser parser;
+    private final SchemaCache cache;
+    private final ForkJoinPool pool;
+    private final ConcurrentHashMap<String, CompletableFuture<ParseResult>> modules = new ConcurrentHashMap<>();
+
+    public ModuleRegistry(List<Path> searchPath, int parallelism) {
+        this(searchPath, parallelism, null);
+    }
+
+    /**
+     * @param cache parsed-schema cache consulted before parsing, or null
+     */
+    public ModuleRegistry(List<Path> searchPath, int parallelism, SchemaCache cache) {
+        this.searchPath = new ArrayList<>(searchPath);
+        this.parser = new YangParser();
+        this.cache = cache;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * A module together with everything it transitively imports.
+     */
+    public static class Resolution {
+        private final YangModule root;
+        private final Map<String, YangModule> modules;
+        private final List<String> errors;
+        private final List<List<String>> cycles;
+
+        Resolution(YangModule root, Map<String, YangModule> modules, List<String> errors, List<List<String>> cycles) {
+            this.root = root;
+            this.modules = modules;
+            this.errors = errors;
+            this.cycles = cycles;
+        }
+
+        public YangModule getRoot() { return root; }
+        public Map<String, YangModule> getModules() { return modules; }
+        public List<String> getErrors() { return errors; }
+        public List<List<String>> getCycles() { return cycles; }
+        public boolean isComplete() { return errors.isEmpty() && cycles.isEmpty(); }
+    }
+
+    /**
+     * Resolves a module by name from the search path.
+     */
+    public Resolution resolve(String moduleName) {
+        load(moduleName);
+        return collect(moduleName);
+    }
+
+    /**
+     * Resolves the module in the given file, looking its imports up on the
+     * search path.
+     */
+    public Resolution resolveFile(Path file) throws IOException {
+        ParseResult result = parse(file);
+        YangModule module = result.getModule();
+        if (module == null) {
+            throw new IOException("No module declaration found in " + file);
+        }
+        CompletableFuture<ParseResult> loaded = CompletableFuture.completedFuture(result);
+        if (modules.putIfAbsent(module.getName(), loaded) == null) {
+            scheduleImports(module);
+        }
+        return collect(module.getName());
+    }
+
+    /**
+     * Returns the future for a module, starting its load if this is the first request.
+     */
+    public CompletableFuture<ParseResult> load(String moduleName) {
+        return modules.computeIfAbsent(moduleName, name -> CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return parse(locate(name));
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, pool)
+                .thenApplyAsync(result -> {
+                    if (result.getModule() != null) {
+                        scheduleImports(result.getModule());
+                    }
+                    return result;
+                }, pool));
+    }
+
+    private void scheduleImports(YangModule module) {
+        for (String imported : module.getImports()) {
+            load(imported);
+        }
+    }
+
+    private ParseResult parse(Path file) throws IOException {
+        return cache != null ? cache.parseFile(file.toString()) : parser.parseFile(file.toString());
+    }
+
+    /**
+     * Finds NAME.yang or the latest NAME@REVISION.yang in the search path.
+     */
+    Path locate(String moduleName) throws IOException {
+        for (Path dir : searchPath) {
+            Path exact = dir.resolve(moduleName + ".yang");
+            if (Files.isRegularFile(exact)) {
+                return exact;
+            }
+            Path latest = null;
+            try (DirectoryStream<Path> revisions = Files.newDirectoryStream(dir, moduleName + "@*.yang")) {
+                for (Path candidate : revisions) {
+                    if (latest == null || candidate.getFileName().toString()
+                            .compareTo(latest.getFileName().toString()) > 0) {
+                        latest = candidate;
+                    }
+                }
+            } catch (IOException e) {
+                continue; // unreadable or missing directory
+            }
+            if (latest != null) {
+                return latest;
+            }
+        }
+        throw new IOException("Module '" + moduleName + "' not found in search path");
+    }
+
+    /**
+     * Waits for the root and everything reachable from it, then checks the
+     * import graph for cycles.
+     */
+    private Resolution collect(String rootName) {
+        Map<String, YangModule> resolved = new LinkedHashMap<>();
+        Map<String, List<String>> graph = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(rootName);
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            if (graph.containsKey(name)) {
+                continue;
+            }
+            graph.put(name, Collections.emptyList());
+
+            ParseResult result;
+            try {
+                result = load(name).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                errors.add(name + ": " + cause.getMessage());
+                continue;
+            }
+
+            YangModule module = result.getModule();
+            if (result.hasErrors() || module == null) {
+                errors.add(name + ": " + (result.hasErrors()
+                        ? result.getErrors().get(0).toString() : "No module declaration found"));
+            }
+            if (module == null) {
+                continue;
+            }
+            if (!name.equals(module.getName())) {
+                errors.add(name + ": file declares module '" + module.getName() + "'");
+            }
+            resolved.put(name, module);
+            graph.put(name, module.getImports());
+            for (String imported : module.getImports()) {
+                pending.push(imported);
+            }
+        }
+
+        return new Resolution(resolved.get(rootName), resolved, errors, findCycles(graph));
+    }
+
+    /**
+     * Iterative depth-first search; every back edge closes one cycle.
+     */
+    static List<List<String>> findCycles(Map<String, List<String>> graph) {
+        List<List<String>> cycles = new ArrayList<>();
+        Map<String, Integer> state = new HashMap<>(); // 1 = on path, 2 = done
+
+        for (String start : graph.keySet()) {
+            if (state.containsKey(start)) {
+                continue;
+            }
+            List<String> path = new ArrayList<>();
+            Deque<int[]> positions = new ArrayDeque<>();
+            path.add(start);
+            positions.push(new int[] {0});
+            state.put(start, 1);
+
+            while (!path.isEmpty()) {
+                String current = path.get(path.size() - 1);
+                List<String> edges = graph.getOrDefault(current, Collections.emptyList());
+                int[] position = positions.peek();
+                if (position[0] >= edges.size()) {
+                    state.put(current, 2);
+                    path.remove(path.size() - 1);
+                    positions.pop();
+                    continue;
+                }
+                String next = edges.get(position[0]++);
+                Integer nextState = state.get(next);
+                if (nextState == null) {
+                    state.put(next, 1);
+                    path.add(next);
+                    positions.push(new int[] {0});
+                } else if (nextState == 1) {
+                    List<String> cycle = new ArrayList<>(path.subList(path.indexOf(next), path.size()));
+                    cycle.add(next);
+                    cycles.add(cycle);
+                }
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * Number of distinct modules requested so far.
+     */
+    public int size() {
+        return modules.size();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
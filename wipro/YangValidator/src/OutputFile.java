@@ -0,0 +1,265 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes output files atomically and only when their content changes.
+ *
+ * Content is written through a large buffer into a temp file in the target
+ * directory, which is then renamed over the target. Readers see either the
+ * old file or the complete new one, and any number of threads may write
+ * into the same directory, even to the same target; the last rename wins.
+ * The temp file is forced to disk before the rename and the directory
+ * after it, so a crash cannot leave a truncated target behind.
+ *
+ * While an older version of the target exists, new bytes are first
+ * compared with it as they are produced and nothing is written. Only at the
+ * first difference is the temp file created and the matching prefix copied
+ * over by the channel. Unchanged output therefore costs one read of the
+ * old file, no writes, and leaves the target and its timestamp untouched.
+ */
+public final class OutputFile {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /** Optional compression of the written bytes. */
+    public enum Compression {
+        NONE(""),
+        GZIP(".gz");
+
+        private final String extension;
+
+        Compression(String extension) {
+            this.extension = extension;
+        }
+
+        /** Suffix appended to the output file name, e.g. ".gz". */
+        public String getFileExtension() { return extension; }
+
+        public String getName() { return name().toLowerCase(Locale.ROOT); }
+
+        /**
+         * @throws IllegalArgumentException if the name is not a known compression
+         */
+        public static Compression forName(String name) {
+            for (Compression compression : values()) {
+                if (compression.getName().equals(name)) {
+                    return compression;
+                }
+            }
+            throw new IllegalArgumentException("Unknown compression '" + name + "', expected none or gzip");
+        }
+    }
+
+    /** Produces the file content. */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private OutputFile() {
+    }
+
+    public static boolean write(Path target, Content content) throws IOException {
+        return write(target, Compression.NONE, content);
+    }
+
+    /**
+     * Writes content to target, creating parent directories as needed.
+     * The target name is used as given; add compression.getFileExtension()
+     * beforehand if wanted.
+     *
+     * @return false if target already held exactly these bytes and was left alone
+     */
+    public static boolean write(Path target, Compression compression, Content content) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        ChangeDetector detector = new ChangeDetector(absolute);
+        try {
+            OutputStream buffered = new BufferedOutputStream(detector, BUFFER_SIZE);
+            if (compression == Compression.GZIP) {
+                // The gzip header carries no timestamp, so equal input gives equal bytes
+                try (OutputStream gzip = new GZIPOutputStream(buffered, BUFFER_SIZE)) {
+                    content.writeTo(gzip);
+                }
+            } else {
+                try (OutputStream out = buffered) {
+                    content.writeTo(out);
+                }
+            }
+            return detector.commit();
+        } finally {
+            detector.discard();
+        }
+    }
+
+    /**
+     * Compares written bytes with the existing target until they differ,
+     * then switches to writing a temp file. Expects large writes, as
+     * delivered by the BufferedOutputStream in front of it.
+     */
+    private static final class ChangeDetector extends OutputStream {
+        private final Path target;
+        private FileChannel existing; // open while all bytes so far match it
+        private ByteBuffer compare;
+        private long matched;
+        private Path tempPath;
+        private FileChannel temp;
+        private boolean closed;
+
+        ChangeDetector(Path target) throws IOException {
+            this.target = target;
+            try {
+                if (Files.isRegularFile(target)) {
+                    existing = FileChannel.open(target, StandardOpenOption.READ);
+                    compare = ByteBuffer.allocate(BUFFER_SIZE);
+                }
+            } catch (NoSuchFileException e) {
+                existing = null; // removed in the meantime
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (temp == null) {
+                int same = existing != null ? matchExisting(bytes, offset, length) : 0;
+                matched += same;
+                if (same == length) {
+                    return;
+                }
+                offset += same;
+                length -= same;
+                diverge();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+            while (buffer.hasRemaining()) {
+                temp.write(buffer);
+            }
+        }
+
+        /** Number of leading bytes that equal the existing file at the current position. */
+        private int matchExisting(byte[] bytes, int offset, int length) throws IOException {
+            int done = 0;
+            while (done < length) {
+                compare.clear().limit(Math.min(compare.capacity(), length - done));
+                int read = existing.read(compare, matched + done);
+                if (read <= 0) {
+                    return done;
+                }
+                int mismatch = Arrays.mismatch(bytes, offset + done, offset + done + read, compare.array(), 0, read);
+                if (mismatch >= 0) {
+                    return done + mismatch;
+                }
+                done += read;
+            }
+            return done;
+        }
+
+        /** Starts the temp file with the prefix that matched so far. */
+        private void diverge() throws IOException {
+            createTemp();
+            if (existing != null) {
+                long copied = 0;
+                while (copied < matched) {
+                    copied += existing.transferTo(copied, matched - copied, temp);
+                }
+                existing.close();
+                existing = null;
+            }
+        }
+
+        /**
+         * Creates the temp file next to the target. Files.createTempFile
+         * would make it owner-only, and the rename would carry that over to
+         * the output; this one gets the permissions of any new file.
+         */
+        private void createTemp() throws IOException {
+            Path dir = target.getParent();
+            String prefix = target.getFileName() + ".";
+            while (temp == null) {
+                Path path = dir.resolve(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36)
+                        + ".tmp");
+                try {
+                    temp = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                    tempPath = path;
+                } catch (FileAlreadyExistsException e) {
+                    // Taken by a concurrent writer; draw another name
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+
+        /**
+         * Moves the temp file into place, or returns false if the content
+         * was identical to the existing file.
+         */
+        boolean commit() throws IOException {
+            if (!closed) {
+                throw new IOException("Output was not closed");
+            }
+            if (temp == null) {
+                if (existing != null && existing.size() == matched) {
+                    return false;
+                }
+                diverge(); // shorter than the old file, or no old file and no bytes
+            }
+            temp.force(true);
+            temp.close();
+            try {
+                Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempPath = null;
+            syncDirectory(target.getParent());
+            return true;
+        }
+
+        /**
+         * Forces the directory entry of the rename to disk. Not every
+         * platform can open a directory as a channel (Windows cannot); there
+         * the rename is left to the file system.
+         */
+        private static void syncDirectory(Path dir) {
+            try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Directories cannot be opened or synced here
+            }
+        }
+
+        /** Releases everything; removes the temp file unless it was committed. */
+        void discard() throws IOException {
+            if (existing != null) {
+                existing.close();
+            }
+            if (temp != null) {
+                temp.close();
+            }
+            if (tempPath != null) {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+}
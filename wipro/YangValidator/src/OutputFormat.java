@@ -0,0 +1,63 @@
+import model.YangModule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * An encoding of a YangModule that can be written and read back.
+ *
+ * Every format carries the same document as JsonConverter.convertToJson:
+ * module, namespace, prefix, imports and the node tree with name, type,
+ * description, data-type, mandatory and children. Formats are stateless
+ * and may be shared between threads.
+ */
+public interface OutputFormat {
+
+    /** Pretty-printed JSON, the same output as saveJsonToFile. */
+    OutputFormat JSON = new JsonFormat("json", ".json", 4);
+    /** JSON without any whitespace. */
+    OutputFormat JSON_MINIFIED = new JsonFormat("json-min", ".min.json", 0);
+    /** CBOR (RFC 8949) with text-string member names. */
+    OutputFormat CBOR = new CborFormat();
+    /** MessagePack. */
+    OutputFormat MESSAGE_PACK = new MessagePackFormat();
+
+    /**
+     * Name used on the command line, e.g. "cbor".
+     */
+    String getName();
+
+    /**
+     * Extension for output files, including the leading dot.
+     */
+    String getFileExtension();
+
+    /**
+     * Encodes the module. The stream is flushed but not closed.
+     */
+    void write(YangModule module, OutputStream out) throws IOException;
+
+    /**
+     * Decodes a module written by write(). The stream is not closed.
+     *
+     * @throws IOException on read failure or malformed input
+     */
+    YangModule read(InputStream in) throws IOException;
+
+    static List<OutputFormat> all() {
+        return List.of(JSON, JSON_MINIFIED, CBOR, MESSAGE_PACK);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no format has that name
+     */
+    static OutputFormat forName(String name) {
+        for (OutputFormat format : all()) {
+            if (format.getName().equals(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+}
@@ -0,0 +1,216 @@
+import model.YangModule;
+import model.YangNode;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Writes the same JSON as YangJsonWriter, converting large sibling
+ * subtrees in parallel on a ForkJoinPool.
+ *
+ * A node is split off when its subtree holds at least `threshold` nodes
+ * and it has siblings. Its text is rendered into a separate buffer by a
+ * forked task, and the parent's output keeps a placeholder at that
+ * position. Split subtrees may split again. The buffers are stitched back
+ * together in document order while later tasks are still running, so the
+ * output is byte-identical to the sequential writer. Small modules are
+ * written sequentially.
+ */
+public class ParallelJsonWriter {
+    public static final int DEFAULT_THRESHOLD = 4096;
+
+    private final YangJsonWriter writer;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelJsonWriter(int indentFactor) {
+        this(indentFactor, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold minimum subtree size, in nodes, worth a separate task
+     */
+    public ParallelJsonWriter(int indentFactor, ForkJoinPool pool, int threshold) {
+        this.writer = new YangJsonWriter(indentFactor);
+        this.pool = pool;
+        this.threshold = Math.max(1, threshold);
+    }
+
+    public void write(YangModule module, Writer out) throws IOException {
+        Set<YangNode> large = largeSubtrees(module, threshold);
+        if (large.isEmpty()) {
+            writer.write(module, out);
+            return;
+        }
+
+        Chunks root = pool.invoke(new RecursiveTask<Chunks>() {
+            @Override
+            protected Chunks compute() {
+                Chunks chunks = new Chunks();
+                try {
+                    writer.write(module, chunks, splitter(large, chunks));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e); // Chunks never throws
+                }
+                return chunks.finish();
+            }
+        });
+        drain(root, out);
+    }
+
+    /** Renders one split-off node at the indent it would have had in place. */
+    @SuppressWarnings("serial") // Serializable only through ForkJoinTask; never serialized
+    private final class SubtreeTask extends RecursiveTask<Chunks> {
+        private final YangNode node;
+        private final int indent;
+        private final Set<YangNode> large;
+
+        SubtreeTask(YangNode node, int indent, Set<YangNode> large) {
+            this.node = node;
+            this.indent = indent;
+            this.large = large;
+        }
+
+        @Override
+        protected Chunks compute() {
+            Chunks chunks = new Chunks();
+            try {
+                writer.writeNode(node, chunks, indent, splitter(large, chunks));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return chunks.finish();
+        }
+    }
+
+    private YangJsonWriter.SubtreeHandler splitter(Set<YangNode> large, Chunks chunks) {
+        return (node, siblings, indent, out) -> {
+            if (siblings < 2 || !large.contains(node)) {
+                return false;
+            }
+            chunks.defer(new SubtreeTask(node, indent, large).fork());
+            return true;
+        };
+    }
+
+    /**
+     * Writes the buffers in document order, waiting for each forked subtree
+     * as it is reached. Iterative, since splits can nest deeply.
+     */
+    private static void drain(Chunks root, Writer out) throws IOException {
+        Deque<Iterator<Object>> stack = new ArrayDeque<>();
+        stack.push(root.segments.iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Object> segments = stack.peek();
+            if (!segments.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            Object segment = segments.next();
+            if (segment instanceof String) {
+                out.write((String) segment);
+            } else {
+                @SuppressWarnings("unchecked")
+                ForkJoinTask<Chunks> task = (ForkJoinTask<Chunks>) segment;
+                stack.push(task.join().segments.iterator());
+            }
+        }
+    }
+
+    /**
+     * Nodes whose subtrees hold at least threshold nodes, found by an
+     * iterative post-order walk. Only these are kept, so the set stays small.
+     */
+    static Set<YangNode> largeSubtrees(YangModule module, int threshold) {
+        Set<YangNode> large = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<YangNode> nodes = new ArrayDeque<>();
+        Deque<int[]> progress = new ArrayDeque<>(); // {next child index, size so far}
+        for (YangNode top : module.getNodes()) {
+            nodes.push(top);
+            progress.push(new int[] {0, 1});
+            while (!nodes.isEmpty()) {
+                YangNode node = nodes.peek();
+                int[] state = progress.peek();
+                List<YangNode> children = node.getChildren();
+                if (state[0] < children.size()) {
+                    nodes.push(children.get(state[0]++));
+                    progress.push(new int[] {0, 1});
+                    continue;
+                }
+                nodes.pop();
+                progress.pop();
+                if (state[1] >= threshold) {
+                    large.add(node);
+                }
+                if (!progress.isEmpty()) {
+                    progress.peek()[1] += state[1];
+                }
+            }
+        }
+        return large;
+    }
+
+    /**
+     * Unsynchronized in-memory Writer that records text and forked
+     * subtrees in order.
+     */
+    private static final class Chunks extends Writer {
+        final List<Object> segments = new ArrayList<>(); // String or ForkJoinTask<Chunks>
+        private final StringBuilder current = new StringBuilder(8192);
+
+        void defer(ForkJoinTask<Chunks> task) {
+            flushText();
+            segments.add(task);
+        }
+
+        Chunks finish() {
+            flushText();
+            return this;
+        }
+
+        private void flushText() {
+            if (current.length() > 0) {
+                segments.add(current.toString());
+                current.setLength(0);
+            }
+        }
+
+        @Override
+        public void write(int c) {
+            current.append((char) c);
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            current.append(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            current.append(text, offset, offset + length);
+        }
+
+        @Override
+        public void write(String text) {
+            current.append(text);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
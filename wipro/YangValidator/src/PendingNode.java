@@ -0,0 +1,65 @@
+import model.NodeKind;
+import model.YangNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node whose members are still being decoded. Member order in the input
+ * is not fixed, so the YangNode is only created once the object is complete.
+ */
+final class PendingNode {
+    String name;
+    String type;
+    String description;
+    String dataType;
+    boolean mandatory;
+    String key;
+    Boolean config;
+    final List<String> musts = new ArrayList<>(0);
+    final List<YangNode> children = new ArrayList<>();
+
+    // Decoder position: members still to read and children still to read
+    // for length-prefixed formats, or whether the children array is open for JSON
+    int membersLeft;
+    int childrenLeft;
+    boolean inChildren;
+
+    /**
+     * Sets one of the string members.
+     */
+    void set(String key, String value) throws IOException {
+        switch (key) {
+            case "name": name = value; break;
+            case "type": type = value; break;
+            case "description": description = value; break;
+            case "data-type": dataType = value; break;
+            case "key": this.key = value; break;
+            default:
+                throw new IOException("Unexpected node member '" + key + "'");
+        }
+    }
+
+    YangNode toNode() throws IOException {
+        if (name == null || type == null) {
+            throw new IOException("Node is missing its name or type");
+        }
+        NodeKind kind = NodeKind.fromKeyword(type);
+        if (kind == null || kind.isDefinition()) {
+            throw new IOException("Unknown node type: " + type);
+        }
+        YangNode node = new YangNode(name, kind);
+        node.setDescription(description);
+        node.setDataType(dataType);
+        node.setMandatory(mandatory);
+        node.setKey(key);
+        node.setConfig(config);
+        for (String must : musts) {
+            node.addMust(must);
+        }
+        for (YangNode child : children) {
+            node.addChild(child);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,180 @@
+import model.ParseResult;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache in front of YangParser keyed by a SHA-256 hash of the source bytes
+ * and the parser version.
+ *
+ * Lookups go to a bounded in-memory LRU first, then to binary entries under
+ * the cache directory (see ModuleCodec), and only then to the parser. Changed
+ * sources hash to a new key, and a new parser version changes every key, so
+ * stale entries are never read. The cache is safe for concurrent use.
+ * Cached modules are shared between callers and must not be modified.
+ */
+public class SchemaCache {
+    private static final String ENTRY_SUFFIX = ".ymc";
+
+    private final YangParser parser;
+    private final JsonConverter converter;
+    private final Path cacheDir;
+    private final Map<String, ModuleCodec.Entry> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param cacheDir directory for on-disk entries, or null for memory only
+     * @param memoryCapacity maximum number of entries kept in memory
+     */
+    public SchemaCache(Path cacheDir, int memoryCapacity) {
+        this.parser = new YangParser();
+        this.converter = new JsonConverter();
+        this.cacheDir = cacheDir;
+        this.memory = new LinkedHashMap<String, ModuleCodec.Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ModuleCodec.Entry> eldest) {
+                return size() > memoryCapacity;
+            }
+        };
+    }
+
+    /**
+     * Same result as YangParser.parseFile, served from the cache when the
+     * file content has been seen before.
+     */
+    public ParseResult parseFile(String filePath) throws IOException {
+        return load(filePath, false).getResult();
+    }
+
+    /**
+     * Returns the pretty-printed JSON for a file, from the cache when
+     * possible. Returns null when the file has syntax errors.
+     */
+    public String convertToJsonString(String filePath) throws IOException {
+        return load(filePath, true).getJson();
+    }
+
+    private ModuleCodec.Entry load(String filePath, boolean needJson) throws IOException {
+        Path path = Paths.get(filePath);
+        ByteBuffer source = YangSource.open(path);
+        try {
+            return load(source, needJson);
+        } catch (InternalError e) {
+            throw YangSource.fault(path, source, e);
+        }
+    }
+
+    private ModuleCodec.Entry load(ByteBuffer source, boolean needJson) throws IOException {
+        String key = key(source.duplicate());
+
+        ModuleCodec.Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry != null && (!needJson || entry.getJson() != null || entry.getResult().hasErrors())) {
+            memoryHits.incrementAndGet();
+            return entry;
+        }
+
+        if (entry == null) {
+            entry = readEntry(key);
+            if (entry != null && (!needJson || entry.getJson() != null || entry.getResult().hasErrors())) {
+                diskHits.incrementAndGet();
+                remember(key, entry);
+                return entry;
+            }
+        }
+
+        misses.incrementAndGet();
+        ParseResult result = entry != null ? entry.getResult() : parser.parse(source);
+        String json = null;
+        if (needJson && !result.hasErrors()) {
+            StringWriter out = new StringWriter();
+            converter.writeJson(result.getModule(), out, 4);
+            json = out.toString();
+        }
+        entry = new ModuleCodec.Entry(result, json);
+        writeEntry(key, entry);
+        remember(key, entry);
+        return entry;
+    }
+
+    private void remember(String key, ModuleCodec.Entry entry) {
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+    }
+
+    private ModuleCodec.Entry readEntry(String key) {
+        if (cacheDir == null) {
+            return null;
+        }
+        Path file = cacheDir.resolve(key + ENTRY_SUFFIX);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return ModuleCodec.read(ByteBuffer.wrap(Files.readAllBytes(file)));
+        } catch (IOException | RuntimeException e) {
+            // A corrupt or truncated entry is treated as a miss, dropped and rewritten
+            discard(file);
+            return null;
+        }
+    }
+
+    private static void discard(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // The entry is replaced when the module is written back anyway
+        }
+    }
+
+    private void writeEntry(String key, ModuleCodec.Entry entry) throws IOException {
+        if (cacheDir == null) {
+            return;
+        }
+        OutputFile.write(cacheDir.resolve(key + ENTRY_SUFFIX), out -> {
+            DataOutputStream data = new DataOutputStream(out);
+            ModuleCodec.write(entry.getResult(), entry.getJson(), data);
+            data.flush();
+        });
+    }
+
+    private static String key(ByteBuffer source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(ByteBuffer.allocate(4).putInt(YangParser.VERSION).flip());
+            digest.update(source);
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Statistics
+    public long getMemoryHits() { return memoryHits.get(); }
+    public long getDiskHits() { return diskHits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    @Override
+    public String toString() {
+        return "SchemaCache{memoryHits=" + memoryHits + ", diskHits=" + diskHits + ", misses=" + misses + "}";
+    }
+}
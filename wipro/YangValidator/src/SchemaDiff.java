@@ -0,0 +1,252 @@
+import model.YangModule;
+import model.YangNode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Differences between two revisions of a module.
+ *
+ * Both trees are walked together over their expanded nodes, so a change
+ * inside a grouping is reported at every place the grouping is used. Siblings
+ * are matched by name. When both sibling lists have the same names in the
+ * same order, which is the common case, they are paired by position.
+ * Otherwise the old list is hashed by name. Either way each node is visited
+ * once, and the walk uses an explicit stack, so time is linear in the size
+ * of the trees and depth is unbounded.
+ *
+ * A change is breaking when configuration or data valid for the old
+ * revision may be rejected by the new one. This covers removed nodes, new
+ * mandatory nodes, nodes that become mandatory, changed kinds, keys and
+ * namespaces, nodes that stop being config, and data types that resolve to
+ * a different built-in type.
+ */
+public class SchemaDiff {
+
+    public enum ChangeType {
+        ADDED, REMOVED, KIND_CHANGED, TYPE_CHANGED, MANDATORY_CHANGED, KEY_CHANGED, CONFIG_CHANGED,
+        NAMESPACE_CHANGED;
+
+        private final String label = name().toLowerCase(Locale.ROOT).replace('_', '-');
+
+        /** Name used in JSON output, e.g. "type-changed". */
+        public String getLabel() { return label; }
+    }
+
+    public static class Change {
+        private final String path;
+        private final ChangeType type;
+        private final boolean breaking;
+        private final String oldValue;
+        private final String newValue;
+
+        Change(String path, ChangeType type, boolean breaking, String oldValue, String newValue) {
+            this.path = path;
+            this.type = type;
+            this.breaking = breaking;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /** Schema path of the node, e.g. "/interfaces/interface/mtu"; "/" for the module. */
+        public String getPath() { return path; }
+        public ChangeType getType() { return type; }
+        public boolean isBreaking() { return breaking; }
+        /** The old value of the changed property, or the node kind for added and removed nodes. */
+        public String getOldValue() { return oldValue; }
+        public String getNewValue() { return newValue; }
+
+        @Override
+        public String toString() {
+            return path + ": " + type.getLabel() + (breaking ? " (breaking)" : "")
+                    + (oldValue != null ? " " + oldValue : "") + (newValue != null ? " -> " + newValue : "");
+        }
+    }
+
+    /** A node, or a pair of nodes, still to be reported or compared. */
+    private static final class Pending {
+        final YangNode oldNode; // null for an added node
+        final YangNode newNode; // null for a removed node
+        final String path;
+
+        Pending(YangNode oldNode, YangNode newNode, String path) {
+            this.oldNode = oldNode;
+            this.newNode = newNode;
+            this.path = path;
+        }
+    }
+
+    private final String oldModule;
+    private final String newModule;
+    private final List<Change> changes;
+    private final int breaking;
+
+    private SchemaDiff(String oldModule, String newModule, List<Change> changes) {
+        this.oldModule = oldModule;
+        this.newModule = newModule;
+        this.changes = Collections.unmodifiableList(changes);
+        int count = 0;
+        for (Change change : changes) {
+            if (change.isBreaking()) {
+                count++;
+            }
+        }
+        this.breaking = count;
+    }
+
+    // Getters
+    public String getOldModule() { return oldModule; }
+    public String getNewModule() { return newModule; }
+
+    /**
+     * Changes in document order of the new revision. Removed nodes follow
+     * the last sibling of their level.
+     */
+    public List<Change> getChanges() { return changes; }
+
+    public int getBreakingCount() { return breaking; }
+    public boolean hasBreakingChanges() { return breaking > 0; }
+
+    /**
+     * Compares two revisions. An added or removed subtree is reported once,
+     * at its root.
+     */
+    public static SchemaDiff compare(YangModule oldModule, YangModule newModule) {
+        List<Change> changes = new ArrayList<>();
+        if (!Objects.equals(oldModule.getNamespace(), newModule.getNamespace())) {
+            changes.add(new Change("/", ChangeType.NAMESPACE_CHANGED, true,
+                    oldModule.getNamespace(), newModule.getNamespace()));
+        }
+
+        Deque<Pending> stack = new ArrayDeque<>();
+        pushChildren(oldModule.getNodes(), newModule.getNodes(), "", stack);
+        while (!stack.isEmpty()) {
+            Pending pending = stack.pop();
+            YangNode oldNode = pending.oldNode;
+            YangNode newNode = pending.newNode;
+            if (oldNode == null) {
+                changes.add(new Change(pending.path, ChangeType.ADDED, newNode.isMandatory(),
+                        null, newNode.getType()));
+            } else if (newNode == null) {
+                changes.add(new Change(pending.path, ChangeType.REMOVED, true, oldNode.getType(), null));
+            } else if (oldNode != newNode) {
+                compareNodes(oldModule, newModule, oldNode, newNode, pending.path, changes);
+                pushChildren(oldNode.getChildren(), newNode.getChildren(), pending.path, stack);
+            }
+        }
+        return new SchemaDiff(oldModule.getName(), newModule.getName(), changes);
+    }
+
+    private static void compareNodes(YangModule oldModule, YangModule newModule, YangNode oldNode,
+                                     YangNode newNode, String path, List<Change> changes) {
+        if (oldNode.getKind() != newNode.getKind()) {
+            changes.add(new Change(path, ChangeType.KIND_CHANGED, true, oldNode.getType(), newNode.getType()));
+        }
+        String oldType = oldNode.getDataType();
+        String newType = newNode.getDataType();
+        if (!Objects.equals(oldType, newType)) {
+            // Renaming a typedef, or replacing it by its base type, keeps the same values valid
+            boolean breaking = oldType == null || newType == null
+                    || !Objects.equals(oldModule.resolveType(oldType), newModule.resolveType(newType));
+            changes.add(new Change(path, ChangeType.TYPE_CHANGED, breaking, oldType, newType));
+        }
+        if (oldNode.isMandatory() != newNode.isMandatory()) {
+            changes.add(new Change(path, ChangeType.MANDATORY_CHANGED, newNode.isMandatory(),
+                    String.valueOf(oldNode.isMandatory()), String.valueOf(newNode.isMandatory())));
+        }
+        if (!Objects.equals(oldNode.getKey(), newNode.getKey())) {
+            changes.add(new Change(path, ChangeType.KEY_CHANGED, true, oldNode.getKey(), newNode.getKey()));
+        }
+        Boolean oldConfig = oldNode.getConfig();
+        Boolean newConfig = newNode.getConfig();
+        if (!Objects.equals(oldConfig, newConfig)) {
+            changes.add(new Change(path, ChangeType.CONFIG_CHANGED, Boolean.FALSE.equals(newConfig),
+                    Objects.toString(oldConfig, null), Objects.toString(newConfig, null)));
+        }
+    }
+
+    /**
+     * Matches two sibling lists and pushes the results so that they pop in
+     * document order: the new list in its order, then old nodes without a
+     * match.
+     */
+    private static void pushChildren(List<YangNode> oldChildren, List<YangNode> newChildren, String parentPath,
+                                     Deque<Pending> stack) {
+        int newSize = newChildren.size();
+        int oldSize = oldChildren.size();
+        if (oldSize == 0 && newSize == 0) {
+            return;
+        }
+        if (sameNames(oldChildren, newChildren)) {
+            for (int i = newSize - 1; i >= 0; i--) {
+                YangNode node = newChildren.get(i);
+                stack.push(new Pending(oldChildren.get(i), node, parentPath + "/" + node.getName()));
+            }
+            return;
+        }
+
+        // First old index per name; later siblings with the same name are
+        // chained through next[], so duplicates match in order
+        Map<String, Integer> first = new HashMap<>(Math.max(4, oldSize * 2));
+        int[] next = new int[oldSize];
+        int[] last = new int[oldSize];
+        for (int i = 0; i < oldSize; i++) {
+            next[i] = -1;
+            Integer head = first.putIfAbsent(oldChildren.get(i).getName(), i);
+            if (head != null) {
+                next[last[head]] = i;
+                last[head] = i;
+            } else {
+                last[i] = i;
+            }
+        }
+        boolean[] matched = new boolean[oldSize];
+        YangNode[] partners = new YangNode[newSize];
+        for (int i = 0; i < newSize; i++) {
+            String name = newChildren.get(i).getName();
+            Integer index = first.get(name);
+            if (index != null) {
+                partners[i] = oldChildren.get(index);
+                matched[index] = true;
+                if (next[index] >= 0) {
+                    last[next[index]] = last[index];
+                    first.put(name, next[index]);
+                } else {
+                    first.remove(name);
+                }
+            }
+        }
+
+        for (int i = oldSize - 1; i >= 0; i--) {
+            if (!matched[i]) {
+                YangNode node = oldChildren.get(i);
+                stack.push(new Pending(node, null, parentPath + "/" + node.getName()));
+            }
+        }
+        for (int i = newSize - 1; i >= 0; i--) {
+            YangNode node = newChildren.get(i);
+            stack.push(new Pending(partners[i], node, parentPath + "/" + node.getName()));
+        }
+    }
+
+    private static boolean sameNames(List<YangNode> oldChildren, List<YangNode> newChildren) {
+        if (oldChildren.size() != newChildren.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldChildren.size(); i++) {
+            String oldName = oldChildren.get(i).getName();
+            String newName = newChildren.get(i).getName();
+            // Names are interned, so equal names are usually the same instance
+            if (oldName != newName && (oldName == null || !oldName.equals(newName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,530 @@
+import model.NodeKind;
+import model.YangModule;
+import model.YangNode;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a module as JSON while it is being parsed. Plugged into
+ * YangParser.parse(content, listener), it turns parser events straight into
+ * output, and keeps only the nodes that are still open, so memory is
+ * bounded by nesting depth rather than module size. Each top-level node is
+ * flushed as soon as it closes.
+ *
+ * One pass works because of the member order YangJsonWriter reproduces from
+ * org.json: a node's "children" and the module's "imports" and "nodes" come
+ * before everything else, so a node's own members are written when it
+ * closes. The output is byte-identical to YangJsonWriter, and so to
+ * org.json. org.json writes a single-element array inline, one level less
+ * indented than the elements of a longer array, so the first node of each
+ * array is held in a buffer until a second one starts (it is then written
+ * re-indented) or the array closes. Memory is therefore bounded by nesting
+ * depth plus the first node of each open array; with indentFactor 0 the
+ * layouts agree and nothing is held.
+ *
+ * Groupings are kept as recorded events and replayed where they are used.
+ * A module whose output depends on something further down cannot be
+ * written in one pass: a top-level augment, a uses of a grouping that is
+ * defined later, in another module or in a cycle, or an import after the
+ * first data node. For those the writer throws NotStreamableException;
+ * parse the module and call write(module) instead, which gives the same
+ * layout.
+ */
+public class StreamingJsonWriter implements YangParser.Listener {
+
+    /** The module cannot be written in one pass; see the class comment. */
+    public static class NotStreamableException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        NotStreamableException(String message) {
+            super(message);
+        }
+    }
+
+    /** A node that is open in the output, with the members written at its end. */
+    private static final class OpenNode {
+        final NodeKind kind;
+        final String name;
+        final int indent;
+        int fields;
+        int children;
+        String description;
+        String dataType;
+        boolean mandatory;
+        String key;
+        Boolean config;
+        List<String> musts;
+        Map<String, List<Event>> groupings; // declared at this level, null if none
+        Pending first;                       // first child, while it is the only one
+
+        OpenNode(NodeKind kind, String name, int indent) {
+            this.kind = kind;
+            this.name = name;
+            this.indent = indent;
+        }
+    }
+
+    /** A recorded statement inside a grouping. */
+    private static final class Event {
+        final NodeKind kind; // null for a property or an end
+        final String name;   // node name or property keyword, null for an end
+        final String value;
+
+        Event(NodeKind kind, String name, String value) {
+            this.kind = kind;
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private static final Event END = new Event(null, null, null);
+
+    /** The first node of a node array, held until it is known whether it is the only one. */
+    private static final class Pending {
+        final StringWriter text = new StringWriter();
+        final Writer outer; // where the text goes once the array has a second node or closes
+
+        Pending(Writer outer) {
+            this.outer = outer;
+        }
+    }
+
+    private final Writer out;
+    private Writer sink;                 // out, or the innermost pending first node
+    private final int indentFactor;
+    private final YangJsonWriter layout;
+
+    private String moduleName;
+    private String namespace;
+    private String prefix;
+    private final List<String> imports = new ArrayList<>(2);
+    private int moduleFields;
+    private boolean nodesOpen;
+    private int topLevelNodes;
+    private Pending firstTopLevel;
+    private Map<String, List<Event>> moduleGroupings;
+
+    private final Deque<OpenNode> open = new ArrayDeque<>();
+    private int skipping;                // depth inside a definition that is not written
+    private List<Event> recording;       // events of the grouping being recorded
+    private String recordingName;
+    private int recordingDepth;
+    private final Map<List<Event>, Boolean> replaying = new IdentityHashMap<>();
+
+    public StreamingJsonWriter(Writer out) {
+        this(out, 4);
+    }
+
+    /**
+     * @param indentFactor spaces per nesting level, 0 for compact output
+     */
+    public StreamingJsonWriter(Writer out, int indentFactor) {
+        this.out = out;
+        this.sink = out;
+        this.indentFactor = indentFactor;
+        this.layout = new YangJsonWriter(indentFactor);
+    }
+
+    /**
+     * Writes a parsed module through the same events, for modules the
+     * parser cannot stream. Uses an explicit stack, like YangJsonWriter.
+     */
+    public void write(YangModule module) throws IOException {
+        startModule(module.getName());
+        if (module.getNamespace() != null) {
+            header("namespace", module.getNamespace());
+        }
+        if (module.getPrefix() != null) {
+            header("prefix", module.getPrefix());
+        }
+        for (String imported : module.getImports()) {
+            header("import", imported);
+        }
+
+        Deque<Object> stack = new ArrayDeque<>();
+        List<YangNode> nodes = module.getNodes();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            stack.push(nodes.get(i));
+        }
+        while (!stack.isEmpty()) {
+            Object top = stack.pop();
+            if (top == END) {
+                endNode();
+                continue;
+            }
+            YangNode node = (YangNode) top;
+            startNode(node.getKind(), node.getName(), 0, 0);
+            if (node.getDescription() != null) property("description", node.getDescription());
+            if (node.getDataType() != null) property("type", node.getDataType());
+            if (node.getKey() != null) property("key", node.getKey());
+            if (node.getConfig() != null) property("config", node.getConfig().toString());
+            for (String must : node.getMusts()) {
+                property("must", must);
+            }
+            property("mandatory", String.valueOf(node.isMandatory()));
+            stack.push(END); // ends the node once its children are written
+            List<YangNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+        endModule();
+    }
+
+    @Override
+    public void startModule(String name) throws IOException {
+        moduleName = name;
+        sink.write('{');
+    }
+
+    @Override
+    public void header(String keyword, String argument) throws IOException {
+        switch (keyword) {
+            case "namespace": namespace = argument; break;
+            case "prefix": prefix = argument; break;
+            case "import":
+                if (nodesOpen) {
+                    throw new NotStreamableException("Import of '" + argument + "' after the first data node");
+                }
+                imports.add(argument);
+                break;
+            default: break;
+        }
+    }
+
+    @Override
+    public void startNode(NodeKind kind, String name, int line, int offset) throws IOException {
+        if (recording != null) {
+            recordingDepth++;
+            recording.add(new Event(kind, name, null));
+            return;
+        }
+        if (skipping > 0) {
+            skipping++;
+            return;
+        }
+        switch (kind) {
+            case GROUPING:
+                recording = new ArrayList<>();
+                recordingName = name;
+                recordingDepth = 1;
+                return;
+            case USES:
+                replay(name);
+                skipping = 1; // swallows the uses' own endNode
+                return;
+            case AUGMENT:
+                if (open.isEmpty()) {
+                    throw new NotStreamableException("Augment '" + name + "' changes nodes already written");
+                }
+                skipping = 1; // only top-level augments are applied
+                return;
+            case TYPEDEF:
+                skipping = 1;
+                return;
+            default:
+                break;
+        }
+
+        OpenNode parent = open.peek();
+        int index;
+        if (parent == null) {
+            openNodes();
+            index = topLevelNodes++;
+        } else {
+            if (parent.children == 0) {
+                parent.fields = layout.key(sink, "children", parent.fields, parent.indent);
+                sink.write('[');
+            }
+            index = parent.children++;
+        }
+        int indent = startElement(parent, index);
+        sink.write('{');
+        open.push(new OpenNode(kind, name, indent));
+    }
+
+    /**
+     * Starts the node at index in the node array of parent (null for the
+     * module's "nodes") and returns the indent of its closing brace. The
+     * first node is written inline into a Pending buffer; when a second one
+     * starts, the first is moved into place one level deeper.
+     */
+    private int startElement(OpenNode parent, int index) throws IOException {
+        int arrayIndent = parent == null ? indentFactor : parent.indent + indentFactor;
+        if (indentFactor == 0) {
+            layout.element(sink, index, arrayIndent);
+            return arrayIndent;
+        }
+        if (index == 0) {
+            Pending first = new Pending(sink);
+            if (parent == null) {
+                firstTopLevel = first;
+            } else {
+                parent.first = first;
+            }
+            sink = first.text;
+            return arrayIndent;
+        }
+        if (index == 1) {
+            Pending first = takeFirst(parent);
+            layout.element(sink, 0, arrayIndent + indentFactor);
+            shift(first.text.getBuffer(), sink);
+        }
+        layout.element(sink, index, arrayIndent + indentFactor);
+        return arrayIndent + indentFactor;
+    }
+
+    /** Removes the pending first node of an array and writes to where it was going again. */
+    private Pending takeFirst(OpenNode parent) {
+        Pending first = parent == null ? firstTopLevel : parent.first;
+        if (parent == null) {
+            firstTopLevel = null;
+        } else {
+            parent.first = null;
+        }
+        if (first != null) {
+            sink = first.outer;
+        }
+        return first;
+    }
+
+    /** Writes text indented by one more level; JSON strings never contain a raw newline. */
+    private void shift(CharSequence text, Writer target) throws IOException {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                target.append(text, start, i + 1);
+                for (int j = 0; j < indentFactor; j++) {
+                    target.write(' ');
+                }
+                start = i + 1;
+            }
+        }
+        target.append(text, start, text.length());
+    }
+
+    @Override
+    public void property(String keyword, String argument) throws IOException {
+        if (recording != null) {
+            // The grouping's own description is not copied to where it is used
+            if (recordingDepth > 1) {
+                recording.add(new Event(null, keyword, argument));
+            }
+            return;
+        }
+        if (skipping > 0) {
+            return;
+        }
+        OpenNode node = open.peek();
+        switch (keyword) {
+            case "description": node.description = argument; break;
+            case "type": node.dataType = argument; break;
+            case "key": node.key = argument; break;
+            case "config": node.config = "true".equals(argument); break;
+            case "mandatory": node.mandatory = "true".equals(argument); break;
+            case "must":
+                if (node.musts == null) {
+                    node.musts = new ArrayList<>(2);
+                }
+                node.musts.add(argument);
+                break;
+            default: break;
+        }
+    }
+
+    @Override
+    public void endNode() throws IOException {
+        if (recording != null) {
+            if (--recordingDepth > 0) {
+                recording.add(END);
+                return;
+            }
+            List<Event> events = recording;
+            recording = null;
+            OpenNode scope = open.peek();
+            if (scope == null) {
+                if (moduleGroupings == null) {
+                    moduleGroupings = new HashMap<>();
+                }
+                moduleGroupings.putIfAbsent(recordingName, events);
+            } else {
+                if (scope.groupings == null) {
+                    scope.groupings = new HashMap<>();
+                }
+                scope.groupings.putIfAbsent(recordingName, events);
+            }
+            return;
+        }
+        if (skipping > 0) {
+            skipping--;
+            return;
+        }
+
+        OpenNode node = open.pop();
+        if (node.children > 0) {
+            closeNodeArray(node, node.children);
+        }
+        for (String key : YangJsonWriter.NODE_KEYS) {
+            switch (key) {
+                case "name":
+                    if (node.name != null) {
+                        node.fields = layout.key(sink, key, node.fields, node.indent);
+                        YangJsonWriter.quote(node.name, sink);
+                    }
+                    break;
+                case "type":
+                    node.fields = layout.key(sink, key, node.fields, node.indent);
+                    YangJsonWriter.quote(node.kind.getKeyword(), sink);
+                    break;
+                case "description":
+                    if (node.description != null && !node.description.isEmpty()) {
+                        node.fields = layout.key(sink, key, node.fields, node.indent);
+                        YangJsonWriter.quote(node.description, sink);
+                    }
+                    break;
+                case "data-type":
+                    if (node.dataType != null && !node.dataType.isEmpty()) {
+                        node.fields = layout.key(sink, key, node.fields, node.indent);
+                        YangJsonWriter.quote(node.dataType, sink);
+                    }
+                    break;
+                case "mandatory":
+                    node.fields = layout.key(sink, key, node.fields, node.indent);
+                    sink.write(node.mandatory ? "true" : "false");
+                    break;
+                case "key":
+                    if (node.key != null) {
+                        node.fields = layout.key(sink, key, node.fields, node.indent);
+                        YangJsonWriter.quote(node.key, sink);
+                    }
+                    break;
+                case "config":
+                    if (node.config != null) {
+                        node.fields = layout.key(sink, key, node.fields, node.indent);
+                        sink.write(node.config ? "true" : "false");
+                    }
+                    break;
+                case "must":
+                    if (node.musts != null) {
+                        node.fields = layout.key(sink, key, node.fields, node.indent);
+                        layout.writeStrings(node.musts, sink, node.indent + indentFactor);
+                    }
+                    break;
+                default:
+                    break; // children were written first
+            }
+        }
+        layout.close(sink, '}', node.fields, node.indent);
+        if (open.isEmpty()) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void endModule() throws IOException {
+        openNodes();
+        closeNodeArray(null, topLevelNodes);
+        for (String key : YangJsonWriter.MODULE_KEYS) {
+            switch (key) {
+                case "module":
+                    if (moduleName != null) {
+                        moduleFields = layout.key(sink, key, moduleFields, 0);
+                        YangJsonWriter.quote(moduleName, sink);
+                    }
+                    break;
+                case "namespace":
+                    if (namespace != null) {
+                        moduleFields = layout.key(sink, key, moduleFields, 0);
+                        YangJsonWriter.quote(namespace, sink);
+                    }
+                    break;
+                case "prefix":
+                    if (prefix != null) {
+                        moduleFields = layout.key(sink, key, moduleFields, 0);
+                        YangJsonWriter.quote(prefix, sink);
+                    }
+                    break;
+                default:
+                    break; // imports and nodes were written first
+            }
+        }
+        layout.close(sink, '}', moduleFields, 0);
+        out.flush();
+    }
+
+    /** Writes the imports and opens the "nodes" array, once. */
+    private void openNodes() throws IOException {
+        if (nodesOpen) {
+            return;
+        }
+        nodesOpen = true;
+        for (String key : YangJsonWriter.MODULE_KEYS) {
+            if (key.equals("imports") && !imports.isEmpty()) {
+                moduleFields = layout.key(sink, key, moduleFields, 0);
+                layout.writeStrings(imports, sink, indentFactor);
+            } else if (key.equals("nodes")) {
+                moduleFields = layout.key(sink, key, moduleFields, 0);
+                sink.write('[');
+                return;
+            }
+        }
+    }
+
+    /** Closes the node array of parent (null for the module), writing out a lone first node. */
+    private void closeNodeArray(OpenNode parent, int count) throws IOException {
+        Pending first = takeFirst(parent);
+        if (first != null) {
+            StringBuffer text = first.text.getBuffer();
+            sink.append(text, 0, text.length());
+        }
+        layout.close(sink, ']', count, parent == null ? indentFactor : parent.indent + indentFactor);
+    }
+
+    /**
+     * Writes the nodes of a grouping in place of a uses by replaying its
+     * events. Groupings used inside it are resolved when they are reached.
+     */
+    private void replay(String name) throws IOException {
+        String local = name;
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            if (!name.substring(0, colon).equals(prefix)) {
+                throw new NotStreamableException("Grouping '" + name + "' is defined in another module");
+            }
+            local = name.substring(colon + 1);
+        }
+        List<Event> events = null;
+        for (OpenNode scope : open) {
+            if (scope.groupings != null && (events = scope.groupings.get(local)) != null) {
+                break;
+            }
+        }
+        if (events == null && moduleGroupings != null) {
+            events = moduleGroupings.get(local);
+        }
+        if (events == null) {
+            throw new NotStreamableException("Grouping '" + name + "' is not defined before its use");
+        }
+        if (replaying.put(events, Boolean.TRUE) != null) {
+            throw new NotStreamableException("Circular uses of grouping '" + name + "'");
+        }
+        for (Event event : events) {
+            if (event == END) {
+                endNode();
+            } else if (event.kind != null) {
+                startNode(event.kind, event.name, 0, 0);
+            } else {
+                property(event.name, event.value);
+            }
+        }
+        replaying.remove(events);
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin client for ValidationServer with the same arguments, output and exit
+ * codes as the validate/show/convert/diff commands of Main.
+ *
+ * Usage: java ValidationClient [--port N] validate|show|convert|diff ...
+ *
+ * The port defaults to YANG_SERVER_PORT or 7979. Requests carry the secret
+ * from the server's token file. If no server is running, or its token file
+ * is missing, the command is run in this JVM instead, so scripts keep
+ * working either way.
+ * The client speaks just enough HTTP over a plain socket to keep its own
+ * startup small.
+ */
+public class ValidationClient {
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        int port = defaultPort();
+        List<String> command = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("--port".equals(args[i]) && command.isEmpty()) {
+                    port = Integer.parseInt(args[++i]);
+                } else if ("--files-from".equals(args[i]) && i + 1 < args.length && "-".equals(args[i + 1])) {
+                    // The server cannot see our stdin, so send the paths themselves
+                    i++;
+                    command.addAll(readStdin());
+                } else {
+                    command.add(args[i]);
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return CommandLine.EXIT_USAGE;
+        }
+
+        try {
+            return send(port, command);
+        } catch (ConnectException | NoSuchFileException e) {
+            System.err.println("No validation server on port " + port + ", running locally");
+            return CommandLine.run(command.toArray(new String[0]));
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return CommandLine.EXIT_IO_ERROR;
+        }
+    }
+
+    /**
+     * Minimal HTTP/1.1 exchange over a plain socket. HttpURLConnection
+     * would load more classes than the request takes to serve.
+     */
+    private static int send(int port, List<String> command) throws IOException {
+        String token = Files.readString(ValidationServer.tokenFile(port), StandardCharsets.US_ASCII).trim();
+        byte[] body = String.join("\n", command).getBytes(StandardCharsets.UTF_8);
+        String head = "POST /run HTTP/1.1\r\n"
+                + "Host: 127.0.0.1:" + port + "\r\n"
+                + "Authorization: Bearer " + token + "\r\n"
+                + "Working-Directory: " + Paths.get("").toAbsolutePath() + "\r\n"
+                + "Content-Type: text/plain; charset=utf-8\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(head.getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+            out.flush();
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String status = readLine(in);
+            if (status == null || !status.startsWith("HTTP/1.")) {
+                throw new IOException("Invalid response from validation server");
+            }
+            int code = Integer.parseInt(status.substring(9, 12));
+            String exitCode = null;
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                if (line.regionMatches(true, 0, "Exit-Code:", 0, 10)) {
+                    exitCode = line.substring(10).trim();
+                }
+            }
+            // Usage errors are reported on stderr, like the local commands
+            PrintStream target = code >= 400 || String.valueOf(CommandLine.EXIT_USAGE).equals(exitCode)
+                    ? System.err : System.out;
+            in.transferTo(target);
+            target.flush();
+            return exitCode != null ? Integer.parseInt(exitCode) : CommandLine.EXIT_IO_ERROR;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return c == -1 && line.length() == 0 ? null : line.toString();
+    }
+
+    private static List<String> readStdin() throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+
+    private static int defaultPort() {
+        String port = System.getenv("YANG_SERVER_PORT");
+        return port != null ? Integer.parseInt(port) : ValidationServer.DEFAULT_PORT;
+    }
+}
@@ -0,0 +1,307 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Daemon that keeps the parser and converter warm and runs CommandLine
+ * commands for ValidationClient over HTTP on the loopback interface.
+ *
+ * POST /run takes the command arguments, one per line, and a
+ * Working-Directory header for resolving relative paths. It answers with
+ * the JSON lines the command printed and its exit code in the Exit-Code
+ * header. GET /stats reports request and cache counters, and GET /metrics
+ * the phase timings and counters of Metrics in Prometheus format.
+ *
+ * Any local process can connect to the port, and a web page can reach it
+ * through the browser, so every request must carry the secret the server
+ * writes to its owner-only token file (see tokenFile) as
+ * "Authorization: Bearer" header. Requests with an Origin header or a Host
+ * other than the loopback interface are refused, which keeps out pages
+ * and DNS rebinding. Commands run for the server may only write (output,
+ * cache and metrics files) inside their working directory.
+ *
+ * Every request and every file within it runs on its own virtual thread
+ * when the JVM provides them (Java 21+), otherwise on a cached thread
+ * pool. All requests share one SchemaCache, so an imported module is
+ * parsed once for as long as its content is unchanged.
+ */
+public class ValidationServer {
+    public static final int DEFAULT_PORT = 7979;
+
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    private final int port;
+    private final SchemaCache cache;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final String token = newToken();
+    private HttpServer server;
+    private Path tokenFile;
+
+    /**
+     * @param cacheDir directory for persistent cache entries, or null for memory only
+     */
+    public ValidationServer(int port, Path cacheDir) {
+        this.port = port;
+        this.cache = new SchemaCache(cacheDir, 4096);
+        this.executor = newExecutor();
+    }
+
+    /**
+     * Virtual threads when available; this code targets Java 17, so the
+     * factory method is looked up reflectively.
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "yang-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() throws IOException {
+        Metrics.setEnabled(true);
+        warmUp();
+        Metrics.reset();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 64);
+        server.setExecutor(executor);
+        server.createContext("/run", this::handleRun);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/metrics", this::handleMetrics);
+        tokenFile = writeToken(getPort(), token);
+        server.start();
+        System.out.println("✓ Validation server listening on 127.0.0.1:" + getPort());
+        System.out.println("✓ Token written to " + tokenFile);
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        executor.shutdown();
+        if (tokenFile != null) {
+            try {
+                Files.deleteIfExists(tokenFile);
+            } catch (IOException e) {
+                // A stale token is useless once the server is gone
+            }
+        }
+    }
+
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * File holding the secret of the server on the given port, readable by
+     * its owner only: ~/.yang-validator/server-PORT.token.
+     */
+    public static Path tokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".yang-validator", "server-" + port + ".token");
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * Writes the token to a new file that only its owner can read. A file
+     * left by an earlier server is replaced; the new one is created rather
+     * than opened, so a link planted in its place is not followed.
+     */
+    private static Path writeToken(int port, String token) throws IOException {
+        Path file = tokenFile(port);
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.createDirectories(file.getParent(),
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(file.getParent());
+        }
+        Files.deleteIfExists(file);
+        if (posix) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+        }
+        Files.writeString(file, token + "\n", StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    /**
+     * Answers requests that come from a web page, name a host other than
+     * loopback or lack the token, and returns whether the request may go on.
+     */
+    private boolean admit(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            send(exchange, 403, "Requests from web pages are not accepted\n", null);
+            return false;
+        }
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null || !LOOPBACK_HOSTS.contains(hostName(host))) {
+            send(exchange, 403, "Host must be 127.0.0.1, localhost or [::1]\n", null);
+            return false;
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        byte[] expected = ("Bearer " + token).getBytes(StandardCharsets.US_ASCII);
+        if (authorization == null
+                || !MessageDigest.isEqual(expected, authorization.getBytes(StandardCharsets.US_ASCII))) {
+            send(exchange, 401, "Missing or wrong token; it is in " + tokenFile + "\n", null);
+            return false;
+        }
+        return true;
+    }
+
+    /** The host of a Host header without its port, lower-cased. */
+    private static String hostName(String host) {
+        int colon = host.lastIndexOf(':');
+        if (colon >= 0 && host.indexOf(']', colon) < 0) {
+            host = host.substring(0, colon);
+        }
+        return host.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void handleRun(HttpExchange exchange) throws IOException {
+        try {
+            if (!admit(exchange)) {
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "Use POST\n", null);
+                return;
+            }
+            requests.incrementAndGet();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            List<String> args = new ArrayList<>();
+            for (String line : body.split("\n")) {
+                if (!line.isEmpty()) {
+                    args.add(line);
+                }
+            }
+            String directory = exchange.getRequestHeaders().getFirst("Working-Directory");
+            Path workingDir = directory != null ? Paths.get(directory) : Paths.get("").toAbsolutePath();
+            if (!workingDir.isAbsolute() || !Files.isDirectory(workingDir)) {
+                send(exchange, 400, "Working-Directory must be an absolute path to a directory\n",
+                        String.valueOf(CommandLine.EXIT_USAGE));
+                return;
+            }
+
+            StringWriter out = new StringWriter();
+            StringWriter errors = new StringWriter();
+            int exitCode = CommandLine.run(args.toArray(new String[0]), out, new PrintWriter(errors, true),
+                    workingDir, cache, executor);
+            // Usage errors have no JSON lines; pass the message through instead
+            String response = exitCode == CommandLine.EXIT_USAGE ? errors.toString() : out.toString();
+            send(exchange, 200, response, String.valueOf(exitCode));
+        } catch (RuntimeException e) {
+            send(exchange, 500, "Error: " + e.getMessage() + "\n", String.valueOf(CommandLine.EXIT_IO_ERROR));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            if (!admit(exchange)) {
+                return;
+            }
+            String stats = new CommandLine.JsonLine().put("requests", requests.get())
+                    .put("memory-hits", cache.getMemoryHits()).put("disk-hits", cache.getDiskHits())
+                    .put("misses", cache.getMisses()).toString();
+            send(exchange, 200, stats, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!admit(exchange)) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            byte[] body = Metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body, String exitCode) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length() + 16);
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            writer.write(body);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        if (exitCode != null) {
+            exchange.getResponseHeaders().set("Exit-Code", exitCode);
+        }
+        exchange.sendResponseHeaders(status, bytes.size() == 0 ? -1 : bytes.size());
+        if (bytes.size() > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                bytes.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Runs the parser and writers over a generated module until they are
+     * compiled, so the first requests do not pay for JIT warm-up.
+     */
+    private void warmUp() {
+        StringBuilder source = new StringBuilder("module warmup { namespace \"urn:warmup\"; prefix w;\n");
+        for (int i = 0; i < 50; i++) {
+            source.append("  container c").append(i).append(" {\n");
+            for (int j = 0; j < 10; j++) {
+                source.append("    leaf l").append(j).append(" { type string; mandatory true; ")
+                        .append("description \"leaf ").append(j).append("\"; }\n");
+            }
+            source.append("  }\n");
+        }
+        source.append("}\n");
+        char[] chars = source.toString().toCharArray();
+
+        YangParser parser = new YangParser();
+        JsonConverter converter = new JsonConverter();
+        for (int i = 0; i < 300; i++) {
+            try {
+                converter.writeJson(parser.parse(chars).getModule(), Writer.nullWriter(), 4);
+            } catch (IOException e) {
+                return; // nullWriter never throws
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+import model.Diagnostic;
+import model.ParseResult;
+import model.YangModule;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Watches a directory tree and re-validates .yang files as they change.
+ *
+ * Events are debounced: once a change arrives, further events are gathered
+ * until the tree has been quiet for DEBOUNCE_MILLIS. Only the changed files
+ * are re-parsed and have their JSON rewritten. Modules that import a changed
+ * module, directly or transitively, get their imports re-checked from the
+ * results already in memory.
+ */
+public class WatchMode {
+    private static final long DEBOUNCE_MILLIS = 20;
+
+    private final Path root;
+    private final Path outputDir;
+    private final YangParser parser;
+    private final JsonConverter converter;
+
+    private final Map<Path, ParseResult> results = new HashMap<>();
+    private final Map<Path, String> moduleOfFile = new HashMap<>();
+    private final Map<String, Path> fileOfModule = new HashMap<>();
+    private final Map<String, Set<String>> importers = new HashMap<>();
+
+    public WatchMode(Path root, Path outputDir) {
+        this.root = root;
+        this.outputDir = outputDir;
+        this.parser = new YangParser();
+        this.converter = new JsonConverter();
+    }
+
+    /**
+     * Validates the whole tree once, then blocks processing changes until
+     * the thread is interrupted.
+     */
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            registerAll(watcher, root);
+
+            long start = System.nanoTime();
+            Set<Path> all = scan();
+            process(all, start, false);
+            System.out.println("Watching " + root + " for changes (Ctrl+C to stop)...");
+
+            while (true) {
+                WatchKey key = watcher.take();
+                start = System.nanoTime();
+                Set<Path> changed = new LinkedHashSet<>();
+                collect(watcher, key, changed);
+                while ((key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(watcher, key, changed);
+                }
+                if (!changed.isEmpty()) {
+                    process(changed, start, true);
+                }
+            }
+        }
+    }
+
+    private void collect(WatchService watcher, WatchKey key, Set<Path> changed) throws IOException {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost; fall back to a full rescan
+                changed.addAll(scan());
+                changed.addAll(results.keySet());
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                registerAll(watcher, path);
+                changed.addAll(scan(path));
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // The path is gone, so whether it was a directory shows only in what lay under it
+                for (Path known : results.keySet()) {
+                    if (known.startsWith(path)) {
+                        changed.add(known);
+                    }
+                }
+                if (isYang(path)) {
+                    changed.add(path);
+                }
+            } else if (isYang(path)) {
+                changed.add(path);
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Re-parses the changed files, then re-checks imports of every module
+     * that depends on them. Passing files are only listed when verbose is
+     * set, so the initial pass over a large tree reports just the failures.
+     */
+    private void process(Set<Path> changed, long start, boolean verbose) {
+        Set<String> touchedModules = new HashSet<>();
+        List<Path> reparsed = new ArrayList<>();
+
+        for (Path file : changed) {
+            String oldModule = forget(file);
+            if (oldModule != null) {
+                touchedModules.add(oldModule);
+            }
+            if (!Files.isRegularFile(file)) {
+                deleteOutput(file);
+                System.out.println("- " + root.relativize(file) + " removed");
+                continue;
+            }
+            ParseResult result;
+            try {
+                result = parser.parseFile(file.toString());
+            } catch (IOException | InternalError e) {
+                // Editors rewrite files in place; the save that follows brings another event
+                result = new ParseResult(null,
+                        List.of(Diagnostic.error(0, 0, "Could not read file: " + e.getMessage())));
+            }
+            remember(file, result);
+            reparsed.add(file);
+            if (result.getModule() != null) {
+                touchedModules.add(result.getModule().getName());
+            }
+            if (!result.hasErrors() && outputDir != null) {
+                try {
+                    converter.saveJsonToFile(result.getModule(),
+                            BatchProcessor.jsonOutputPath(root, file, outputDir).toString());
+                } catch (IOException e) {
+                    System.out.println("✗ " + root.relativize(file) + ": " + e.getMessage());
+                }
+            }
+        }
+
+        Set<Path> dependents = new LinkedHashSet<>();
+        for (String module : dependentsOf(touchedModules)) {
+            Path file = fileOfModule.get(module);
+            if (file != null && !reparsed.contains(file)) {
+                dependents.add(file);
+            }
+        }
+
+        int failed = 0;
+        for (Path file : reparsed) {
+            failed += report(file, verbose) ? 0 : 1;
+        }
+        for (Path file : dependents) {
+            failed += report(file, verbose) ? 0 : 1;
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Re-validated " + (reparsed.size() + dependents.size()) + " file(s), "
+                + failed + " with errors, in " + elapsed + " ms");
+    }
+
+    private boolean report(Path file, boolean verbose) {
+        ParseResult result = results.get(file);
+        List<String> problems = new ArrayList<>();
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            problems.add((diagnostic.isError() ? "Error: " : "Warning: ")
+                    + (diagnostic.getLine() > 0 ? diagnostic.getLine() + ":" + diagnostic.getColumn() + " - " : "")
+                    + diagnostic.getMessage()
+                    + (diagnostic.getPath() != null ? " (in " + diagnostic.getPath() + ")" : ""));
+        }
+        boolean ok = !result.hasErrors();
+        if (result.getModule() != null) {
+            for (String imported : result.getModule().getImports()) {
+                if (!fileOfModule.containsKey(imported)) {
+                    problems.add("Error: import '" + imported + "' cannot be resolved");
+                    ok = false;
+                }
+            }
+        }
+
+        if (ok && !verbose) {
+            return true;
+        }
+        System.out.println((ok ? "✓ " : "✗ ") + root.relativize(file));
+        for (String problem : problems) {
+            System.out.println("    " + problem);
+        }
+        return ok;
+    }
+
+    /**
+     * All modules that import any of the given modules, transitively.
+     */
+    private Set<String> dependentsOf(Set<String> modules) {
+        Set<String> seen = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(modules);
+        while (!pending.isEmpty()) {
+            for (String importer : importers.getOrDefault(pending.pop(), Collections.emptySet())) {
+                if (seen.add(importer)) {
+                    pending.push(importer);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private void remember(Path file, ParseResult result) {
+        results.put(file, result);
+        YangModule module = result.getModule();
+        if (module == null) {
+            return;
+        }
+        moduleOfFile.put(file, module.getName());
+        fileOfModule.put(module.getName(), file);
+        for (String imported : module.getImports()) {
+            importers.computeIfAbsent(imported, k -> new HashSet<>()).add(module.getName());
+        }
+    }
+
+    /**
+     * Drops everything known about a file and returns the module it declared.
+     */
+    private String forget(Path file) {
+        ParseResult old = results.remove(file);
+        String module = moduleOfFile.remove(file);
+        if (module != null && file.equals(fileOfModule.get(module))) {
+            fileOfModule.remove(module);
+        }
+        if (old != null && old.getModule() != null) {
+            for (String imported : old.getModule().getImports()) {
+                Set<String> set = importers.get(imported);
+                if (set != null) {
+                    set.remove(old.getModule().getName());
+                }
+            }
+        }
+        return module;
+    }
+
+    private void deleteOutput(Path file) {
+        if (outputDir == null) {
+            return;
+        }
+        try {
+            Path output = BatchProcessor.jsonOutputPath(root, file, outputDir);
+            Files.deleteIfExists(output);
+            // Output directories mirror the tree; drop those a deleted directory left empty
+            for (Path dir = output.getParent(); dir != null && !dir.equals(outputDir) && dir.startsWith(outputDir)
+                    && isEmptyDirectory(dir); dir = dir.getParent()) {
+                Files.delete(dir);
+            }
+        } catch (IOException e) {
+            System.out.println("✗ Could not delete output for " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isEmptyDirectory(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.findAny().isEmpty();
+        }
+    }
+
+    private Set<Path> scan() throws IOException {
+        return scan(root);
+    }
+
+    private Set<Path> scan(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(WatchMode::isYang).filter(Files::isRegularFile)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    }
+
+    private static void registerAll(WatchService watcher, Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path sub : (Iterable<Path>) walk.filter(Files::isDirectory)::iterator) {
+                sub.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private static boolean isYang(Path path) {
+        return path.getFileName().toString().endsWith(".yang");
+    }
+}
@@ -0,0 +1,344 @@
+import model.YangModule;
+import model.YangNode;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams a YangModule as JSON straight to a Writer without building an
+ * intermediate JSONObject tree.
+ *
+ * The output is byte-identical to JsonConverter.convertToJson(module).toString(indent):
+ * same key order, same layout rules and the same string escaping as org.json.
+ */
+public class YangJsonWriter {
+    static final String[] MODULE_KEYS = jsonKeyOrder("module", "namespace", "prefix", "imports", "nodes");
+    static final String[] NODE_KEYS = jsonKeyOrder("name", "type", "description", "data-type", "mandatory",
+            "key", "config", "must", "children");
+
+    private static final String SPACES = " ".repeat(64);
+
+    private final int indentFactor;
+
+    public YangJsonWriter() {
+        this(4);
+    }
+
+    /**
+     * @param indentFactor spaces per nesting level, 0 for compact output
+     */
+    public YangJsonWriter(int indentFactor) {
+        this.indentFactor = indentFactor;
+    }
+
+    public void write(YangModule module, Writer out) throws IOException {
+        write(module, out, null);
+    }
+
+    void write(YangModule module, Writer out, SubtreeHandler handler) throws IOException {
+        int fields = 0;
+        out.write('{');
+        for (String key : MODULE_KEYS) {
+            switch (key) {
+                case "module":
+                    if (module.getName() != null) {
+                        fields = key(out, key, fields, 0);
+                        quote(module.getName(), out);
+                    }
+                    break;
+                case "namespace":
+                    if (module.getNamespace() != null) {
+                        fields = key(out, key, fields, 0);
+                        quote(module.getNamespace(), out);
+                    }
+                    break;
+                case "prefix":
+                    if (module.getPrefix() != null) {
+                        fields = key(out, key, fields, 0);
+                        quote(module.getPrefix(), out);
+                    }
+                    break;
+                case "imports":
+                    if (!module.getImports().isEmpty()) {
+                        fields = key(out, key, fields, 0);
+                        writeStrings(module.getImports(), out, indentFactor);
+                    }
+                    break;
+                case "nodes":
+                    fields = key(out, key, fields, 0);
+                    writeNodes(module.getNodes(), out, indentFactor, handler);
+                    break;
+                default:
+                    break;
+            }
+        }
+        close(out, '}', fields, 0);
+    }
+
+    void writeStrings(List<String> strings, Writer out, int indent) throws IOException {
+        out.write('[');
+        if (strings.size() == 1) {
+            quote(strings.get(0), out);
+        } else {
+            int newIndent = indent + indentFactor;
+            for (int i = 0; i < strings.size(); i++) {
+                element(out, i, newIndent);
+                quote(strings.get(i), out);
+            }
+        }
+        close(out, ']', strings.size(), indent);
+    }
+
+    /**
+     * Lets a caller take over selected subtrees, e.g. to render them on
+     * other threads. Called at the position where a node object starts.
+     */
+    interface SubtreeHandler {
+        /**
+         * @param siblings number of nodes in the array holding this node
+         * @param indent indentation of the node's closing brace
+         * @return true if the handler wrote (or will supply) the node itself
+         */
+        boolean handle(YangNode node, int siblings, int indent, Writer out) throws IOException;
+    }
+
+    /** An open "nodes" or "children" array. */
+    private static final class ArrayFrame {
+        final List<YangNode> nodes;
+        final int indent;
+        int index;
+
+        ArrayFrame(List<YangNode> nodes, int indent) {
+            this.nodes = nodes;
+            this.indent = indent;
+        }
+    }
+
+    /** An open node object, resumed at keyIndex after its children array closes. */
+    private static final class NodeFrame {
+        final YangNode node;
+        final int indent;
+        int keyIndex;
+        int fields;
+
+        NodeFrame(YangNode node, int indent) {
+            this.node = node;
+            this.indent = indent;
+        }
+    }
+
+    void writeNodes(List<YangNode> nodes, Writer out, int indent, SubtreeHandler handler) throws IOException {
+        out.write('[');
+        Deque<Object> stack = new ArrayDeque<>();
+        stack.push(new ArrayFrame(nodes, indent));
+        writeTree(stack, out, handler);
+    }
+
+    /**
+     * Writes a single node object whose closing brace sits at the given indent.
+     */
+    void writeNode(YangNode node, Writer out, int indent, SubtreeHandler handler) throws IOException {
+        out.write('{');
+        Deque<Object> stack = new ArrayDeque<>();
+        stack.push(new NodeFrame(node, indent));
+        writeTree(stack, out, handler);
+    }
+
+    /**
+     * Depth-first writer over an explicit stack, so arbitrarily deep schemas
+     * cannot overflow the Java stack. Output is identical to nesting
+     * writeNodes and writeNode calls.
+     */
+    private void writeTree(Deque<Object> stack, Writer out, SubtreeHandler handler) throws IOException {
+        while (!stack.isEmpty()) {
+            Object top = stack.peek();
+            if (top instanceof ArrayFrame) {
+                ArrayFrame array = (ArrayFrame) top;
+                int size = array.nodes.size();
+                if (array.index == size) {
+                    close(out, ']', size, array.indent);
+                    stack.pop();
+                    continue;
+                }
+                int i = array.index++;
+                int childIndent = array.indent;
+                if (size > 1) {
+                    childIndent += indentFactor;
+                    element(out, i, childIndent);
+                }
+                YangNode child = array.nodes.get(i);
+                if (handler == null || !handler.handle(child, size, childIndent, out)) {
+                    out.write('{');
+                    stack.push(new NodeFrame(child, childIndent));
+                }
+                continue;
+            }
+
+            NodeFrame frame = (NodeFrame) top;
+            YangNode node = frame.node;
+            int indent = frame.indent;
+            boolean descended = false;
+            while (frame.keyIndex < NODE_KEYS.length && !descended) {
+                String key = NODE_KEYS[frame.keyIndex++];
+                switch (key) {
+                    case "name":
+                        if (node.getName() != null) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            quote(node.getName(), out);
+                        }
+                        break;
+                    case "type":
+                        if (node.getType() != null) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            quote(node.getType(), out);
+                        }
+                        break;
+                    case "description":
+                        if (node.getDescription() != null && !node.getDescription().isEmpty()) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            quote(node.getDescription(), out);
+                        }
+                        break;
+                    case "data-type":
+                        if (node.getDataType() != null && !node.getDataType().isEmpty()) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            quote(node.getDataType(), out);
+                        }
+                        break;
+                    case "mandatory":
+                        frame.fields = key(out, key, frame.fields, indent);
+                        out.write(node.isMandatory() ? "true" : "false");
+                        break;
+                    case "key":
+                        if (node.getKey() != null) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            quote(node.getKey(), out);
+                        }
+                        break;
+                    case "config":
+                        if (node.getConfig() != null) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            out.write(node.getConfig() ? "true" : "false");
+                        }
+                        break;
+                    case "must":
+                        if (!node.getMusts().isEmpty()) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            writeStrings(node.getMusts(), out, indent + indentFactor);
+                        }
+                        break;
+                    case "children":
+                        if (!node.getChildren().isEmpty()) {
+                            frame.fields = key(out, key, frame.fields, indent);
+                            out.write('[');
+                            stack.push(new ArrayFrame(node.getChildren(), indent + indentFactor));
+                            descended = true;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (!descended) {
+                close(out, '}', frame.fields, indent);
+                stack.pop();
+            }
+        }
+    }
+
+    // Nodes always carry type and mandatory, modules their name and nodes, so
+    // org.json's single-entry inline layout never applies to objects.
+    int key(Writer out, String key, int fields, int indent) throws IOException {
+        element(out, fields, indent + indentFactor);
+        quote(key, out);
+        out.write(':');
+        if (indentFactor > 0) {
+            out.write(' ');
+        }
+        return fields + 1;
+    }
+
+    void element(Writer out, int index, int indent) throws IOException {
+        if (index > 0) {
+            out.write(',');
+        }
+        if (indentFactor > 0) {
+            out.write('\n');
+        }
+        indent(out, indent);
+    }
+
+    void close(Writer out, char bracket, int count, int indent) throws IOException {
+        if (count > 1 || (count == 1 && bracket == '}')) {
+            if (indentFactor > 0) {
+                out.write('\n');
+            }
+            indent(out, indent);
+        }
+        out.write(bracket);
+    }
+
+    private static void indent(Writer out, int indent) throws IOException {
+        while (indent > SPACES.length()) {
+            out.write(SPACES);
+            indent -= SPACES.length();
+        }
+        out.write(SPACES, 0, indent);
+    }
+
+    /**
+     * Writes a quoted JSON string using the same escaping rules as JSONObject.quote.
+     */
+    static void quote(String string, Writer out) throws IOException {
+        out.write('"');
+        int start = 0; // first character not yet written
+        char b;
+        char c = 0;
+        for (int i = 0; i < string.length(); i++) {
+            b = c;
+            c = string.charAt(i);
+            String escaped;
+            switch (c) {
+                case '\\': escaped = "\\\\"; break;
+                case '"': escaped = "\\\""; break;
+                case '/': escaped = (b == '<') ? "\\/" : null; break;
+                case '\b': escaped = "\\b"; break;
+                case '\t': escaped = "\\t"; break;
+                case '\n': escaped = "\\n"; break;
+                case '\f': escaped = "\\f"; break;
+                case '\r': escaped = "\\r"; break;
+                default:
+                    if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+                        String hhhh = Integer.toHexString(c);
+                        escaped = "\\u" + "0000".substring(hhhh.length()) + hhhh;
+                    } else {
+                        escaped = null;
+                    }
+            }
+            if (escaped != null) {
+                out.write(string, start, i - start);
+                out.write(escaped);
+                start = i + 1;
+            }
+        }
+        out.write(string, start, string.length() - start);
+        out.write('"');
+    }
+
+    /**
+     * JSONObject is backed by a HashMap, so its key order is HashMap iteration
+     * order. Insert the full key set the way JsonConverter does and record the
+     * resulting order; omitting keys never changes the relative order of the rest.
+     */
+    private static String[] jsonKeyOrder(String... keys) {
+        Map<String, Boolean> map = new HashMap<>();
+        for (String key : keys) {
+            map.put(key, Boolean.TRUE);
+        }
+        return map.keySet().toArray(new String[0]);
+    }
+}
@@ -0,0 +1,264 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass tokenizer for YANG source text.
+ *
+ * Works directly on UTF-8 bytes (typically a memory-mapped file) and produces
+ * keyword/identifier, quoted string, brace and semicolon tokens without any
+ * regular expressions. All structural characters are ASCII, so scanning never
+ * needs to decode; token text is only decoded when the parser asks for it.
+ */
+public class YangLexer {
+
+    private final ByteBuffer buf;
+    private final int start;
+    private final int end;
+    private int pos;
+    private int line = 1;
+    private int lineStart;
+
+    // Current token
+    private YangTokenType type;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenLine;
+    private int tokenLineStart;
+    private int tokenPos;
+    private boolean tokenEscaped;
+    private boolean tokenFirstOnLine;
+
+    // Start of a string without its closing quote, which runs to the end of input
+    private int unterminatedLine;
+    private int unterminatedColumn;
+
+    // Scratch space for copying token bytes out of direct buffers
+    private byte[] scratch = new byte[256];
+
+    public YangLexer(ByteBuffer buf) {
+        this.buf = buf;
+        this.start = buf.position();
+        this.pos = start;
+        this.lineStart = pos;
+        this.end = buf.limit();
+    }
+
+    /**
+     * Advances to the next token and returns its type.
+     */
+    public YangTokenType next() {
+        int previousEnd = line; // where the previous token ended
+        skipWhitespaceAndComments();
+        tokenFirstOnLine = line != previousEnd || tokenLine == 0;
+        tokenLine = line;
+        tokenLineStart = lineStart;
+        tokenPos = pos;
+        tokenEscaped = false;
+
+        if (pos >= end) {
+            type = YangTokenType.EOF;
+            tokenStart = tokenEnd = pos;
+            return type;
+        }
+
+        byte c = buf.get(pos);
+        switch (c) {
+            case '{':
+                return single(YangTokenType.LBRACE);
+            case '}':
+                return single(YangTokenType.RBRACE);
+            case ';':
+                return single(YangTokenType.SEMICOLON);
+            case '"':
+            case '\'':
+                return quoted(c);
+            default:
+                break;
+        }
+
+        // '+' on its own is the string concatenation operator
+        if (c == '+' && (pos + 1 >= end || isSeparator(buf.get(pos + 1)))) {
+            return single(YangTokenType.PLUS);
+        }
+
+        tokenStart = pos;
+        while (pos < end && !isSeparator(buf.get(pos))) {
+            pos++;
+        }
+        tokenEnd = pos;
+        type = YangTokenType.WORD;
+        return type;
+    }
+
+    public YangTokenType getType() { return type; }
+    public int getLine() { return tokenLine; }
+
+    /** Whether only whitespace and comments precede the current token on its line. */
+    public boolean isFirstOnLine() { return tokenFirstOnLine; }
+
+    /**
+     * Byte offset of the current token from the start of its line. For a
+     * token that is first on its line this is its indentation, and it costs
+     * nothing to compute, unlike getColumn().
+     */
+    public int getLineOffset() { return tokenPos - tokenLineStart; }
+
+    /** Line of a quoted string that was never closed, or 0 if every string was. */
+    public int getUnterminatedLine() { return unterminatedLine; }
+    public int getUnterminatedColumn() { return unterminatedColumn; }
+
+    /**
+     * Byte offset of the current token in the buffer. Costs nothing to
+     * record; columnAt() turns it into a column if a diagnostic needs one.
+     */
+    public int getOffset() { return tokenPos; }
+
+    /**
+     * Returns the 1-based column of the current token in characters. Computed
+     * on demand so that scanning only tracks byte offsets.
+     */
+    public int getColumn() {
+        return columnAt(tokenPos);
+    }
+
+    /**
+     * Returns the 1-based column, in characters, of a byte offset returned
+     * by getOffset(), scanning back to the start of its line.
+     */
+    public int columnAt(int offset) {
+        int column = 1;
+        for (int i = offset - 1; i >= start && buf.get(i) != '\n'; i--) {
+            // UTF-8 continuation bytes do not start a new character
+            if ((buf.get(i) & 0xC0) != 0x80) {
+                column++;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Returns the text of the current token. For quoted strings the quotes
+     * are stripped and escape sequences inside double quotes are resolved.
+     */
+    public String text() {
+        int len = tokenEnd - tokenStart;
+        if (buf.hasArray() && !tokenEscaped) {
+            return new String(buf.array(), buf.arrayOffset() + tokenStart, len, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes = scratch(len);
+        int n = 0;
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            byte c = buf.get(i);
+            if (tokenEscaped && c == '\\' && i + 1 < tokenEnd) {
+                byte e = buf.get(++i);
+                switch (e) {
+                    case 'n': bytes[n++] = '\n'; break;
+                    case 't': bytes[n++] = '\t'; break;
+                    case '"': bytes[n++] = '"'; break;
+                    case '\\': bytes[n++] = '\\'; break;
+                    default:
+                        bytes[n++] = '\\';
+                        bytes[n++] = e;
+                }
+            } else {
+                bytes[n++] = c;
+            }
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the current token text with an ASCII keyword without allocating.
+     */
+    public boolean textEquals(String keyword) {
+        int len = tokenEnd - tokenStart;
+        if (len != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buf.get(tokenStart + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] scratch(int len) {
+        if (scratch.length < len) {
+            scratch = new byte[Math.max(len, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    private YangTokenType single(YangTokenType t) {
+        tokenStart = pos;
+        pos++;
+        tokenEnd = pos;
+        type = t;
+        return type;
+    }
+
+    private YangTokenType quoted(byte quote) {
+        pos++; // opening quote
+        tokenStart = pos;
+        while (pos < end) {
+            byte c = buf.get(pos);
+            if (c == quote) {
+                break;
+            }
+            if (c == '\\' && quote == '"' && pos + 1 < end) {
+                tokenEscaped = true;
+                pos++;
+            }
+            if (buf.get(pos) == '\n') {
+                line++;
+                lineStart = pos + 1;
+            }
+            pos++;
+        }
+        tokenEnd = pos;
+        if (pos < end) {
+            pos++; // closing quote
+        } else if (unterminatedLine == 0) {
+            unterminatedLine = tokenLine;
+            unterminatedColumn = getColumn();
+        }
+        type = YangTokenType.STRING;
+        return type;
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < end) {
+            byte c = buf.get(pos);
+            if (c == '\n') {
+                pos++;
+                line++;
+                lineStart = pos;
+            } else if (c == ' ' || c == '\t' || c == '\r') {
+                pos++;
+            } else if (c == '/' && pos + 1 < end && buf.get(pos + 1) == '/') {
+                while (pos < end && buf.get(pos) != '\n') {
+                    pos++;
+                }
+            } else if (c == '/' && pos + 1 < end && buf.get(pos + 1) == '*') {
+                pos += 2;
+                while (pos < end && !(buf.get(pos) == '*' && pos + 1 < end && buf.get(pos + 1) == '/')) {
+                    if (buf.get(pos) == '\n') {
+                        line++;
+                        lineStart = pos + 1;
+                    }
+                    pos++;
+                }
+                pos = Math.min(pos + 2, end);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isSeparator(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r'
+                || c == '{' || c == '}' || c == ';' || c == '"' || c == '\'';
+    }
+}
@@ -1,213 +1,620 @@
+import model.Diagnostic;
+import model.NodeKind;
+import model.ParseResult;
 import model.YangModule;
 import model.YangNode;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import model.YangUses;
 import java.io.IOException;
-import java.util.Stack;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class YangParser {
-    private static final Pattern MODULE_PATTERN = Pattern.compile("^\\s*module\\s+(\\S+)\\s*\\{");
-    private static final Pattern NAMESPACE_PATTERN = Pattern.compile("^\\s*namespace\\s+\"([^\"]+)\"\\s*;");
-    private static final Pattern PREFIX_PATTERN = Pattern.compile("^\\s*prefix\\s+(\\S+)\\s*;");
-    private static final Pattern IMPORT_PATTERN = Pattern.compile("^\\s*import\\s+(\\S+)\\s*\\{");
-    private static final Pattern CONTAINER_PATTERN = Pattern.compile("^\\s*container\\s+(\\S+)\\s*\\{");
-    private static final Pattern LEAF_PATTERN = Pattern.compile("^\\s*leaf\\s+(\\S+)\\s*\\{");
-    private static final Pattern LEAF_LIST_PATTERN = Pattern.compile("^\\s*leaf-list\\s+(\\S+)\\s*\\{");
-    private static final Pattern LIST_PATTERN = Pattern.compile("^\\s*list\\s+(\\S+)\\s*\\{");
-    private static final Pattern TYPE_PATTERN = Pattern.compile("^\\s*type\\s+(\\S+)\\s*;");
-    private static final Pattern MANDATORY_PATTERN = Pattern.compile("^\\s*mandatory\\s+(true|false)\\s*;");
-    private static final Pattern DESCRIPTION_PATTERN = Pattern.compile("^\\s*description\\s+\"([^\"]+)\"\\s*;");
+    /**
+     * Bumped whenever parsing output changes, so cached results from older
+     * parsers are not reused.
+     */
+    public static final int VERSION = 4;
 
-    public YangModule parseYangFile(String filePath) throws IOException {
-        YangModule module = null;
-        Stack<YangNode> nodeStack = new Stack<>();
-        Stack<String> braceStack = new Stack<>();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            int lineNumber = 0;
-            
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
-                
-                if (line.isEmpty() || line.startsWith("//")) {
-                    continue;
-                }
-                
-                // Parse module declaration
-                if (module == null) {
-                    Matcher moduleMatcher = MODULE_PATTERN.matcher(line);
-                    if (moduleMatcher.find()) {
-                        module = new YangModule(moduleMatcher.group(1));
-                        braceStack.push("module");
-                        continue;
+    /**
+     * Receives the schema statements of a module while it is parsed, in
+     * document order, SAX style. Statements whose sub-statements are not
+     * modelled (import, type, must, the body of uses, ...) are reported
+     * without their blocks.
+     */
+    public interface Listener {
+        void startModule(String name) throws IOException;
+
+        /** A namespace, prefix or import statement. */
+        void header(String keyword, String argument) throws IOException;
+
+        /**
+         * A container, leaf, leaf-list, list, choice, case, grouping, typedef,
+         * uses or augment. Statements up to the matching endNode belong to it;
+         * uses has none. offset is the byte offset of the statement, which
+         * YangLexer.columnAt turns into a column.
+         */
+        void startNode(NodeKind kind, String name, int line, int offset) throws IOException;
+
+        /**
+         * A description, type, key, config, must or mandatory statement of
+         * the current node. config is only reported with a valid value.
+         */
+        void property(String keyword, String argument) throws IOException;
+
+        void endNode() throws IOException;
+
+        /** Called at the end of input if a module statement was seen. */
+        void endModule() throws IOException;
+    }
+
+    /** Statement keywords of YANG 1.1 (RFC 7950); others must be prefixed extensions. */
+    private static final Set<String> STATEMENTS = Set.of(
+            "action", "anydata", "anyxml", "argument", "augment", "base", "belongs-to", "bit", "case", "choice",
+            "config", "contact", "container", "default", "description", "deviate", "deviation", "enum",
+            "error-app-tag", "error-message", "extension", "feature", "fraction-digits", "grouping", "identity",
+            "if-feature", "import", "include", "input", "key", "leaf", "leaf-list", "length", "list", "mandatory",
+            "max-elements", "min-elements", "modifier", "module", "must", "namespace", "notification",
+            "ordered-by", "organization", "output", "path", "pattern", "position", "prefix", "presence", "range",
+            "reference", "refine", "require-instance", "revision", "revision-date", "rpc", "status", "submodule",
+            "type", "typedef", "unique", "units", "uses", "value", "when", "yang-version", "yin-element");
+
+    /**
+     * One open '{' block. Frames for statements whose sub-statements are not
+     * modelled (import, type, uses, must, ...) have skip set, and everything
+     * inside them is ignored. Closing a node frame ends its node.
+     */
+    private static final class Frame {
+        final String keyword;
+        final String name;
+        final boolean node;
+        final boolean skip;
+        final int line;
+        final int offset; // of the statement, for YangLexer.columnAt
+        final int indent; // of the statement if it starts its line, else -1
+
+        Frame(String keyword, String name, boolean node, boolean skip, int line, int offset, int indent) {
+            this.keyword = keyword;
+            this.name = name;
+            this.node = node;
+            this.skip = skip;
+            this.line = line;
+            this.offset = offset;
+            this.indent = indent;
+        }
+    }
+
+    /** Where a statement is, for diagnostics reported after the parse. */
+    private static final class Position {
+        final int line;
+        final int offset;
+        final String path;
+
+        Position(int line, int offset, String path) {
+            this.line = line;
+            this.offset = offset;
+            this.path = path;
+        }
+    }
+
+    /** Builds the module tree from the statements; the listener behind parse(). */
+    private static final class ModuleBuilder implements Listener {
+        YangModule module;
+        final Deque<YangNode> open = new ArrayDeque<>();
+        // Positions of uses and augment statements, for link() diagnostics
+        Map<YangNode, Position> positions;
+        boolean needsLink;
+
+        @Override
+        public void startModule(String name) {
+            module = new YangModule(name);
+        }
+
+        @Override
+        public void header(String keyword, String argument) {
+            switch (keyword) {
+                case "namespace": module.setNamespace(argument); break;
+                case "prefix": module.setPrefix(argument); break;
+                case "import": module.addImport(argument); break;
+                default: break;
+            }
+        }
+
+        @Override
+        public void startNode(NodeKind kind, String name, int line, int offset) {
+            YangNode node = kind == NodeKind.USES ? new YangUses(name) : new YangNode(name, kind);
+            YangNode parent = open.peek();
+            if (parent == null) {
+                module.addNode(node);
+            } else {
+                parent.addChild(node);
+            }
+            if (kind.isDefinition()) {
+                needsLink = true;
+                if (kind == NodeKind.USES || kind == NodeKind.AUGMENT) {
+                    if (positions == null) {
+                        positions = new IdentityHashMap<>();
                     }
+                    positions.put(node, new Position(line, offset, path()));
                 }
-                
-                if (module == null) continue;
-                
-                // Parse namespace
-                Matcher namespaceMatcher = NAMESPACE_PATTERN.matcher(line);
-                if (namespaceMatcher.find()) {
-                    module.setNamespace(namespaceMatcher.group(1));
-                    continue;
-                }
-                
-                // Parse prefix
-                Matcher prefixMatcher = PREFIX_PATTERN.matcher(line);
-                if (prefixMatcher.find()) {
-                    module.setPrefix(prefixMatcher.group(1));
-                    continue;
-                }
-                
-                // Parse imports
-                Matcher importMatcher = IMPORT_PATTERN.matcher(line);
-                if (importMatcher.find()) {
-                    module.addImport(importMatcher.group(1));
-                    braceStack.push("import");
-                    continue;
+            }
+            open.push(node);
+        }
+
+        @Override
+        public void property(String keyword, String argument) {
+            YangNode node = open.peek();
+            switch (keyword) {
+                case "type": node.setDataType(argument); break;
+                case "key": node.setKey(argument); break;
+                case "config": node.setConfig("true".equals(argument)); break;
+                case "must": node.addMust(argument); break;
+                case "mandatory": node.setMandatory("true".equals(argument)); break;
+                case "description": node.setDescription(argument); break;
+                case "min-elements": node.setElements(elements(argument), node.getMaxElements()); break;
+                case "max-elements": node.setElements(node.getMinElements(), elements(argument)); break;
+                default: break;
+            }
+        }
+
+        /** A validated min- or max-elements argument; values beyond int range are treated as unbounded. */
+        private int elements(String argument) {
+            return argument.equals("unbounded") || argument.length() > 9
+                    ? Integer.MAX_VALUE : Integer.parseInt(argument);
+        }
+
+        @Override
+        public void endNode() {
+            open.pop();
+        }
+
+        @Override
+        public void endModule() {
+        }
+
+        private String path() {
+            StringBuilder path = new StringBuilder();
+            for (Iterator<YangNode> outermostFirst = open.descendingIterator(); outermostFirst.hasNext(); ) {
+                path.append('/').append(outermostFirst.next().getName());
+            }
+            return path.length() > 0 ? path.toString() : "/";
+        }
+    }
+
+    public YangModule parseYangFile(String filePath) throws IOException {
+        return parseFile(filePath).getModule();
+    }
+
+    /**
+     * Reads and parses a file once, returning the module together with every
+     * syntax diagnostic found along the way.
+     */
+    public ParseResult parseFile(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        ByteBuffer source = YangSource.open(path);
+        try {
+            return parse(source, filePath);
+        } catch (InternalError e) {
+            throw YangSource.fault(path, source, e);
+        }
+    }
+
+    public ParseResult parse(char[] content) {
+        return parse(StandardCharsets.UTF_8.encode(CharBuffer.wrap(content)));
+    }
+
+    /**
+     * Builds a module from UTF-8 YANG source in a single pass over the token
+     * stream. Statements may span several lines or share one, and arguments
+     * may be quoted strings joined with '+'. Groupings, uses, augments and
+     * typedefs are then resolved by YangModule.link(); uses are expanded
+     * lazily, when the schema tree is first read.
+     */
+    public ParseResult parse(ByteBuffer content) {
+        return parse(content, (String) null);
+    }
+
+    /**
+     * Parses UTF-8 YANG source without building a module: every statement
+     * goes to the listener as soon as it is read, so memory use does not
+     * grow with the size of the module. Groupings, uses and augments are
+     * reported as written and left to the listener to resolve.
+     *
+     * @return the syntax diagnostics
+     * @throws IOException if the listener throws; parsing stops there
+     */
+    public List<Diagnostic> parse(ByteBuffer content, Listener listener) throws IOException {
+        // With metrics on, the parse phase includes the listener's own time
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.PARSE);
+        int size = content.remaining();
+        YangLexer lexer = new YangLexer(content);
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        parse(lexer, listener, diagnostics);
+        recordParse(timer, content, size, lexer, null, null);
+        return diagnostics;
+    }
+
+    private ParseResult parse(ByteBuffer content, String source) {
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.PARSE);
+        int size = content.remaining();
+        YangLexer lexer = new YangLexer(content);
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        ModuleBuilder builder = new ModuleBuilder();
+        try {
+            parse(lexer, builder, diagnostics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // the builder throws none
+        }
+
+        YangModule module = builder.module;
+        if (module != null) {
+            module.compact();
+            if (builder.needsLink) {
+                List<Diagnostic> unresolved = new ArrayList<>();
+                for (YangModule.Unresolved problem : module.link()) {
+                    Position at = builder.positions != null ? builder.positions.get(problem.getStatement()) : null;
+                    int problemLine = at != null ? at.line : 0;
+                    int problemColumn = at != null ? lexer.columnAt(at.offset) : 0;
+                    String problemPath = at != null ? at.path : null;
+                    unresolved.add(problem.isError()
+                            ? Diagnostic.error(problemLine, problemColumn, problem.getMessage(), problemPath)
+                            : Diagnostic.warning(problemLine, problemColumn, problem.getMessage(), problemPath));
                 }
-                
-                // Parse container
-                Matcher containerMatcher = CONTAINER_PATTERN.matcher(line);
-                if (containerMatcher.find()) {
-                    YangNode container = new YangNode(containerMatcher.group(1), "container");
-                    if (nodeStack.isEmpty()) {
-                        module.addNode(container);
-                    } else {
-                        nodeStack.peek().addChild(container);
+                unresolved.sort(Comparator.comparingInt(Diagnostic::getLine).thenComparingInt(Diagnostic::getColumn));
+                diagnostics.addAll(unresolved);
+            }
+        }
+        recordParse(timer, content, size, lexer, source, module);
+        return new ParseResult(module, diagnostics);
+    }
+
+    private static void recordParse(Metrics.Timer timer, ByteBuffer content, int size, YangLexer lexer,
+                                    String source, YangModule module) {
+        if (Metrics.isEnabled()) {
+            // The lexer stops on the last line; a final newline opens an empty one
+            boolean newline = size > 0 && content.get(content.limit() - 1) == '\n';
+            Metrics.recordParse(timer, source, size, lexer.getLine() - (newline ? 1 : 0), module);
+        }
+    }
+
+    /**
+     * The statement loop: a single pass over the token stream that reports
+     * statements to the listener and syntax problems to diagnostics.
+     * Statements may span several lines or share one, and arguments may be
+     * quoted strings joined with '+'.
+     *
+     * Errors never stop the loop. A malformed statement ends at the next
+     * ';', '{' or '}', and parsing resumes with the statement after it.
+     * Brace mismatches only surface at the end of the file or after the
+     * module is closed. To point at where they start, the loop compares the
+     * indentation of every '}' that begins a line with that of the
+     * statement it closes. The first misaligned close is kept, but only
+     * reported once the braces turn out not to balance, so badly indented
+     * but balanced files get no errors. All of this costs a few integer
+     * compares per '}'; paths and columns are only computed for diagnostics.
+     */
+    private void parse(YangLexer lexer, Listener listener, List<Diagnostic> diagnostics) throws IOException {
+        boolean inModule = false;
+        Deque<Frame> frames = new ArrayDeque<>();
+        // First block whose '}' was indented less than the block itself, so
+        // probably belonged to an enclosing block: the likely missing '}'
+        Frame unclosed = null;
+        int unclosedBraceLine = 0;
+        int unclosedBraceColumn = 0;
+        String unclosedPath = null;
+        // Module closed by a '}' indented like an inner block, so an earlier
+        // '}' was probably extra; reopened if statements follow
+        Frame closedEarly = null;
+        int closedEarlyLine = 0;
+        int closedEarlyColumn = 0;
+        YangTokenType token = lexer.next();
+
+        while (token != YangTokenType.EOF) {
+            if (token == YangTokenType.RBRACE) {
+                if (frames.isEmpty()) {
+                    diagnostics.add(Diagnostic.error(lexer.getLine(), lexer.getColumn(),
+                            "Unbalanced braces: unexpected '}'"));
+                } else {
+                    Frame closed = frames.pop();
+                    if (closed.indent >= 0 && lexer.isFirstOnLine() && lexer.getLineOffset() != closed.indent) {
+                        if (lexer.getLineOffset() < closed.indent) {
+                            if (unclosed == null) {
+                                unclosed = closed;
+                                unclosedBraceLine = lexer.getLine();
+                                unclosedBraceColumn = lexer.getColumn();
+                                unclosedPath = path(frames);
+                            }
+                        } else if (frames.isEmpty() && !closed.skip) {
+                            closedEarly = closed;
+                            closedEarlyLine = lexer.getLine();
+                            closedEarlyColumn = lexer.getColumn();
+                        }
                     }
-                    nodeStack.push(container);
-                    braceStack.push("container");
-                    continue;
-                }
-                
-                // Parse leaf
-                Matcher leafMatcher = LEAF_PATTERN.matcher(line);
-                if (leafMatcher.find()) {
-                    YangNode leaf = new YangNode(leafMatcher.group(1), "leaf");
-                    if (!nodeStack.isEmpty()) {
-                        nodeStack.peek().addChild(leaf);
-                    } else {
-                        module.addNode(leaf);
+                    if (closed.node) {
+                        listener.endNode();
                     }
-                    nodeStack.push(leaf);
-                    braceStack.push("leaf");
-                    continue;
                 }
-                
-                // Parse leaf-list
-                Matcher leafListMatcher = LEAF_LIST_PATTERN.matcher(line);
-                if (leafListMatcher.find()) {
-                    YangNode leafList = new YangNode(leafListMatcher.group(1), "leaf-list");
-                    if (!nodeStack.isEmpty()) {
-                        nodeStack.peek().addChild(leafList);
-                    } else {
-                        module.addNode(leafList);
-                    }
-                    nodeStack.push(leafList);
-                    braceStack.push("leaf-list");
-                    continue;
+                token = lexer.next();
+                continue;
+            }
+            if (token != YangTokenType.WORD && token != YangTokenType.STRING) {
+                diagnostics.add(Diagnostic.error(lexer.getLine(), lexer.getColumn(),
+                        "Unexpected '" + lexer.text() + "'", inModule ? path(frames) : null));
+                token = lexer.next();
+                continue;
+            }
+
+            int line = lexer.getLine();
+            int offset = lexer.getOffset();
+            int indent = lexer.isFirstOnLine() ? lexer.getLineOffset() : -1;
+            String keyword = lexer.text();
+            String argument = null;
+            token = lexer.next();
+            if (token == YangTokenType.WORD || token == YangTokenType.STRING) {
+                argument = readArgument(lexer);
+                token = lexer.getType();
+            }
+            boolean hasBlock = token == YangTokenType.LBRACE;
+            if (hasBlock || token == YangTokenType.SEMICOLON) {
+                token = lexer.next();
+            } else if (token != YangTokenType.EOF || lexer.getUnterminatedLine() == 0) {
+                // The offending token is left in place and handled by the next iteration
+                diagnostics.add(Diagnostic.error(lexer.getLine(), lexer.getColumn(),
+                        "Expected ';' or '{' after '" + keyword + "'", inModule ? path(frames) : null));
+            }
+
+            Frame frame = frames.peek();
+
+            if (frame != null && frame.skip) {
+                if (hasBlock) frames.push(new Frame(keyword, argument, false, true, line, offset, indent));
+                continue;
+            }
+
+            if (frame == null && closedEarly != null) {
+                diagnostics.add(Diagnostic.error(closedEarlyLine, closedEarlyColumn,
+                        "Unbalanced braces: this '}' closes module '" + closedEarly.name
+                        + "' but statements follow; an earlier '}' is probably extra"));
+                frames.push(closedEarly);
+                frame = closedEarly;
+                closedEarly = null;
+            }
+
+            if (!inModule || frame == null) {
+                if (!inModule && "module".equals(keyword)) {
+                    inModule = true;
+                    listener.startModule(argument);
+                    if (hasBlock) frames.push(new Frame(keyword, argument, false, false, line, offset, indent));
+                } else {
+                    diagnostics.add(Diagnostic.warning(line, lexer.columnAt(offset),
+                            "Statement '" + keyword + "' outside module is ignored"));
+                    if (hasBlock) frames.push(new Frame(keyword, argument, false, true, line, offset, indent));
                 }
-                
-                // Parse list
-                Matcher listMatcher = LIST_PATTERN.matcher(line);
-                if (listMatcher.find()) {
-                    YangNode list = new YangNode(listMatcher.group(1), "list");
-                    if (!nodeStack.isEmpty()) {
-                        nodeStack.peek().addChild(list);
-                    } else {
-                        module.addNode(list);
+                continue;
+            }
+
+            // Module-level frames are the only non-skip frames that are not nodes
+            boolean inNode = frame.node;
+            boolean opened = false;
+
+            switch (keyword) {
+                case "namespace":
+                case "prefix":
+                    if (!inNode) listener.header(keyword, argument);
+                    break;
+                case "import":
+                    listener.header(keyword, argument);
+                    break;
+                case "augment":
+                    if (inNode) {
+                        diagnostics.add(Diagnostic.warning(line, lexer.columnAt(offset),
+                                "Only top-level augment statements are applied", path(frames)));
                     }
-                    nodeStack.push(list);
-                    braceStack.push("list");
-                    continue;
-                }
-                
-                // Parse type for current node
-                if (!nodeStack.isEmpty()) {
-                    Matcher typeMatcher = TYPE_PATTERN.matcher(line);
-                    if (typeMatcher.find()) {
-                        nodeStack.peek().setDataType(typeMatcher.group(1));
-                        continue;
+                    opened = startNode(listener, keyword, argument, hasBlock, line, offset);
+                    break;
+                case "container":
+                case "leaf":
+                case "leaf-list":
+                case "list":
+                case "choice":
+                case "case":
+                case "grouping":
+                case "typedef":
+                case "uses":
+                    opened = startNode(listener, keyword, argument, hasBlock, line, offset);
+                    break;
+                case "config":
+                    if (!"true".equals(argument) && !"false".equals(argument)) {
+                        diagnostics.add(Diagnostic.warning(line, lexer.columnAt(offset),
+                                "Invalid config value '" + argument + "', expected true or false", path(frames)));
+                    } else if (inNode) {
+                        listener.property(keyword, argument);
                     }
-                    
-                    // Parse mandatory
-                    Matcher mandatoryMatcher = MANDATORY_PATTERN.matcher(line);
-                    if (mandatoryMatcher.find()) {
-                        nodeStack.peek().setMandatory("true".equals(mandatoryMatcher.group(1)));
-                        continue;
+                    break;
+                case "mandatory":
+                    if (!"true".equals(argument) && !"false".equals(argument)) {
+                        diagnostics.add(Diagnostic.warning(line, lexer.columnAt(offset),
+                                "Invalid mandatory value '" + argument + "', expected true or false",
+                                path(frames)));
                     }
-                    
-                    // Parse description
-                    Matcher descMatcher = DESCRIPTION_PATTERN.matcher(line);
-                    if (descMatcher.find()) {
-                        nodeStack.peek().setDescription(descMatcher.group(1));
-                        continue;
+                    if (inNode) listener.property(keyword, argument);
+                    break;
+                case "min-elements":
+                case "max-elements":
+                    if (!isElements(keyword, argument)) {
+                        diagnostics.add(Diagnostic.warning(line, lexer.columnAt(offset),
+                                "Invalid " + keyword + " value '" + argument
+                                + (keyword.equals("min-elements") ? "', expected a non-negative integer"
+                                        : "', expected a positive integer or unbounded"), path(frames)));
+                    } else if (inNode) {
+                        listener.property(keyword, argument);
                     }
-                }
-                
-                // Handle closing braces
-                if (line.equals("}")) {
-                    if (!braceStack.isEmpty()) {
-                        String lastBrace = braceStack.pop();
-                        if (!nodeStack.isEmpty() && 
-                            ("container".equals(lastBrace) || "leaf".equals(lastBrace) || 
-                             "leaf-list".equals(lastBrace) || "list".equals(lastBrace))) {
-                            nodeStack.pop();
-                        }
+                    break;
+                case "type":
+                case "key":
+                case "must":
+                case "description":
+                    if (inNode) listener.property(keyword, argument);
+                    break;
+                default:
+                    // A misspelt keyword would otherwise drop its whole block silently
+                    if (keyword.indexOf(':') < 0 && !STATEMENTS.contains(keyword)) {
+                        diagnostics.add(Diagnostic.warning(line, lexer.columnAt(offset),
+                                "Unknown statement '" + keyword + "' is ignored", path(frames)));
                     }
+                    break;
+            }
+
+            if (hasBlock) {
+                frames.push(new Frame(keyword, argument, opened, !opened, line, offset, indent));
+            }
+        }
+
+        if (!inModule) {
+            diagnostics.add(Diagnostic.error(lexer.getLine(), lexer.getColumn(),
+                    "No module declaration found in the file"));
+        }
+        boolean unterminated = lexer.getUnterminatedLine() > 0;
+        if (unterminated) {
+            // The string swallowed the rest of the file, closing braces included
+            diagnostics.add(Diagnostic.error(lexer.getUnterminatedLine(), lexer.getUnterminatedColumn(),
+                    "Unterminated string: no closing quote before the end of the file",
+                    inModule ? path(frames) : null));
+        }
+        if (!frames.isEmpty()) {
+            Frame open = frames.pop();
+            if (unterminated) {
+                // Already explained
+            } else if (unclosed != null) {
+                diagnostics.add(Diagnostic.error(unclosed.line, lexer.columnAt(unclosed.offset),
+                        "Unbalanced braces: " + describe(unclosed) + " block is probably never closed; the '}' at "
+                        + unclosedBraceLine + ":" + unclosedBraceColumn
+                        + " that ends it is indented like an enclosing statement", unclosedPath));
+            } else {
+                diagnostics.add(Diagnostic.error(open.line, lexer.columnAt(open.offset),
+                        "Unbalanced braces: " + describe(open) + " block is never closed", path(frames)));
+            }
+            // Still end the open nodes, so listeners always see balanced events
+            if (open.node) {
+                listener.endNode();
+            }
+            while (!frames.isEmpty()) {
+                if (frames.pop().node) {
+                    listener.endNode();
                 }
             }
         }
-        
-        return module;
+        if (inModule) {
+            listener.endModule();
+        }
     }
-    
-    public void validateSyntax(String filePath) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            int braceCount = 0;
-            int lineNumber = 0;
-            boolean inModule = false;
-            
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
-                
-                if (line.isEmpty() || line.startsWith("//")) {
-                    continue;
-                }
-                
-                // Count braces for basic syntax validation
-                for (char c : line.toCharArray()) {
-                    if (c == '{') braceCount++;
-                    if (c == '}') braceCount--;
-                }
-                
-                // Check for module declaration
-                if (MODULE_PATTERN.matcher(line).find()) {
-                    inModule = true;
-                }
-                
-                // Basic syntax checks
-                if (line.contains(";") && !line.endsWith(";") && !line.endsWith(";;")) {
-                    System.out.println("Warning: Line " + lineNumber + " - Semicolon might be misplaced");
-                }
+
+    /**
+     * Starts the node for a schema statement and returns whether its block
+     * stays open; nodes without one are ended straight away.
+     */
+    private static boolean startNode(Listener listener, String keyword, String argument, boolean hasBlock,
+            int line, int offset) throws IOException {
+        NodeKind kind = NodeKind.fromKeyword(keyword);
+        listener.startNode(kind, argument, line, offset);
+        // Refinements and augments inside uses are not modelled
+        boolean opened = hasBlock && kind != NodeKind.USES;
+        if (!opened) {
+            listener.endNode();
+        }
+        return opened;
+    }
+
+    private static String describe(Frame frame) {
+        return "'" + frame.keyword + (frame.name != null ? " " + frame.name : "") + "'";
+    }
+
+    /** Whether an argument is valid for min-elements or max-elements (RFC 7950, 7.7.5 and 7.7.6). */
+    private static boolean isElements(String keyword, String argument) {
+        if (argument == null) {
+            return false;
+        }
+        if (keyword.equals("max-elements") && argument.equals("unbounded")) {
+            return true;
+        }
+        if (argument.isEmpty() || argument.length() > 1 && argument.charAt(0) == '0') {
+            return false;
+        }
+        for (int i = 0; i < argument.length(); i++) {
+            if (argument.charAt(i) < '0' || argument.charAt(i) > '9') {
+                return false;
             }
-            
-            if (!inModule) {
-                throw new IOException("No module declaration found in the file");
+        }
+        return keyword.equals("min-elements") || !argument.equals("0");
+    }
+
+    /**
+     * Schema path of the nodes open in frames, e.g. "/interfaces/interface";
+     * "/" at module level. Only built for diagnostics.
+     */
+    private static String path(Deque<Frame> frames) {
+        StringBuilder path = new StringBuilder();
+        for (Iterator<Frame> outermostFirst = frames.descendingIterator(); outermostFirst.hasNext(); ) {
+            Frame frame = outermostFirst.next();
+            if (frame.node) {
+                path.append('/').append(frame.name);
             }
-            
-            if (braceCount != 0) {
-                throw new IOException("Unbalanced braces in YANG file");
+        }
+        return path.length() > 0 ? path.toString() : "/";
+    }
+
+    /**
+     * Reads a statement argument starting at the current token, joining
+     * '+'-concatenated quoted strings. Leaves the lexer on the token that
+     * follows the argument.
+     */
+    private String readArgument(YangLexer lexer) {
+        String argument = lexer.text();
+        if (lexer.getType() != YangTokenType.STRING) {
+            lexer.next();
+            return argument;
+        }
+
+        StringBuilder joined = null;
+        while (lexer.next() == YangTokenType.PLUS) {
+            if (lexer.next() != YangTokenType.STRING) {
+                break;
+            }
+            if (joined == null) {
+                joined = new StringBuilder(argument);
+            }
+            joined.append(lexer.text());
+        }
+        return joined != null ? joined.toString() : argument;
+    }
+
+    /**
+     * Checks a file for syntax errors, throwing an IOException whose
+     * message lists every error, one per line. Callers that want the
+     * diagnostics themselves use parseFile.
+     */
+    public void validateSyntax(String filePath) throws IOException {
+        ParseResult result = parseFile(filePath);
+        if (result.hasErrors()) {
+            StringBuilder message = new StringBuilder();
+            for (Diagnostic error : result.getErrors()) {
+                if (message.length() > 0) {
+                    message.append('\n');
+                }
+                message.append(error);
             }
-            
-            System.out.println("✓ Basic syntax validation passed");
+            throw new IOException(message.toString());
         }
     }
-}
\ No newline at end of file
+}
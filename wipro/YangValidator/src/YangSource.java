@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads YANG source bytes for the lexer.
+ *
+ * Regular files are read into a heap buffer, and files of MAP_THRESHOLD
+ * bytes or more are memory-mapped, so the lexer works directly on the page
+ * cache and no per-line Strings are created. Pipes, stdin and other streams
+ * fall back to reading the channel into a heap buffer.
+ *
+ * A mapped file that is truncated while it is read makes the next access
+ * to the lost pages throw InternalError rather than an IOException.
+ * Callers that read a buffer from open() pass that error to fault(), which
+ * turns it into an IOException naming the file. Small files, which is
+ * what editors rewrite while the watch mode or the server reads them, are
+ * never mapped.
+ */
+public final class YangSource {
+    private static final int INITIAL_STREAM_BUFFER = 64 * 1024;
+    /** Files below this size are read onto the heap instead of mapped. */
+    public static final long MAP_THRESHOLD = 4 * 1024 * 1024;
+
+    private YangSource() {
+    }
+
+    public static ByteBuffer open(Path path) throws IOException {
+        // For mapped files this only times the mapping; page faults are paid during the parse
+        Metrics.Timer timer = Metrics.start(Metrics.Phase.READ);
+        ByteBuffer buffer;
+        if (!Files.isRegularFile(path)) {
+            try (ReadableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ)) {
+                buffer = read(channel);
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < MAP_THRESHOLD) {
+                    // One spare byte, so reaching end of file needs no larger buffer
+                    buffer = read(channel, (int) size + 1);
+                } else {
+                    // The mapping stays valid after the channel is closed
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+            }
+        }
+        timer.stop(buffer.remaining());
+        return buffer;
+    }
+
+    /**
+     * The IOException for an error raised while reading a buffer returned
+     * by open(path). Rethrows the error unless the buffer is mapped, since
+     * only then can it come from the file changing underneath.
+     */
+    public static IOException fault(Path path, ByteBuffer buffer, InternalError error) {
+        if (!(buffer instanceof MappedByteBuffer)) {
+            throw error;
+        }
+        return new IOException(path + " was truncated or rewritten while it was read", error);
+    }
+
+    public static ByteBuffer read(InputStream in) throws IOException {
+        return read(Channels.newChannel(in));
+    }
+
+    /**
+     * Reads a channel to end of stream, doubling the buffer as needed.
+     */
+    public static ByteBuffer read(ReadableByteChannel channel) throws IOException {
+        return read(channel, INITIAL_STREAM_BUFFER);
+    }
+
+    private static ByteBuffer read(ReadableByteChannel channel, int initialCapacity) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(initialCapacity, 1));
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
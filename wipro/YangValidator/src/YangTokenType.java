@@ -0,0 +1,12 @@
+/**
+ * Token kinds produced by {@link YangLexer}.
+ */
+public enum YangTokenType {
+    WORD,       // keyword, identifier or unquoted argument
+    STRING,     // single or double quoted string
+    PLUS,       // '+' between quoted strings
+    LBRACE,
+    RBRACE,
+    SEMICOLON,
+    EOF
+}
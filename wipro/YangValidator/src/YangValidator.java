@@ -1,7 +1,14 @@
+import model.Diagnostic;
+import model.ParseResult;
 import model.YangModule;
 import model.YangNode;
-import org.json.JSONObject;
 import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Scanner;
 import java.util.List;
 
@@ -35,6 +42,9 @@ public class YangValidator {
                     convertToJson();
                     break;
                 case "4":
+                    validateInstanceData();
+                    break;
+                case "5":
                     System.out.println("Exiting YANG Validator. Goodbye!");
                     scanner.close();
                     return;
@@ -49,8 +59,9 @@ public class YangValidator {
         System.out.println("1. Validate YANG file for syntax errors");
         System.out.println("2. Extract and display key nodes and relationships");
         System.out.println("3. Convert YANG to JSON");
-        System.out.println("4. Exit");
-        System.out.print("Enter your choice (1-4): ");
+        System.out.println("4. Validate JSON data against a YANG model");
+        System.out.println("5. Exit");
+        System.out.print("Enter your choice (1-5): ");
     }
     
     private void validateYangFile() {
@@ -70,8 +81,14 @@ public class YangValidator {
             }
             
             System.out.println("\nValidating YANG file: " + filePath);
-            parser.validateSyntax(filePath);
-            System.out.println("✓ YANG file syntax is valid");
+            ParseResult result = parser.parseFile(filePath);
+            printDiagnostics(result);
+            
+            if (result.hasErrors()) {
+                System.out.println("✗ Validation failed: " + result.getErrors().size() + " error(s)");
+            } else {
+                System.out.println("✓ YANG file syntax is valid");
+            }
             
         } catch (Exception e) {
             System.out.println("✗ Validation failed: " + e.getMessage());
@@ -95,7 +112,13 @@ public class YangValidator {
             }
             
             System.out.println("\nParsing YANG file: " + filePath);
-            YangModule module = parser.parseYangFile(filePath);
+            ParseResult result = parser.parseFile(filePath);
+            printDiagnostics(result);
+            
+            YangModule module = result.getModule();
+            if (module == null) {
+                return;
+            }
             
             displayModuleInfo(module);
             displayNodes(module.getNodes(), 0);
@@ -106,6 +129,67 @@ public class YangValidator {
         }
     }
     
+    private void validateInstanceData() {
+        System.out.print("Enter YANG file path (or filename if in input/ folder): ");
+        String filePath = scanner.nextLine();
+        
+        // If no path provided, use input folder
+        if (!filePath.contains("/") && !filePath.contains("\\")) {
+            filePath = "input/" + filePath;
+        }
+        
+        System.out.print("Enter JSON data file path (or filename if in input/ folder): ");
+        String dataPath = scanner.nextLine();
+        if (!dataPath.contains("/") && !dataPath.contains("\\")) {
+            dataPath = "input/" + dataPath;
+        }
+        
+        try {
+            if (!new File(filePath).exists()) {
+                System.out.println("Error: File not found - " + filePath);
+                return;
+            }
+            if (!new File(dataPath).exists()) {
+                System.out.println("Error: File not found - " + dataPath);
+                return;
+            }
+            
+            ParseResult result = parser.parseFile(filePath);
+            printDiagnostics(result);
+            if (result.hasErrors()) {
+                System.out.println("✗ Cannot validate data: the YANG file has syntax errors");
+                return;
+            }
+            
+            System.out.println("\nValidating " + dataPath + " against module " + result.getModule().getName());
+            InstanceValidator validator = InstanceValidator.compile(result.getModule());
+            List<InstanceValidator.Violation> violations;
+            try (Reader reader = Files.newBufferedReader(Paths.get(dataPath), StandardCharsets.UTF_8)) {
+                violations = validator.validate(reader);
+            }
+            
+            for (InstanceValidator.Violation violation : violations) {
+                System.out.println("  " + violation);
+            }
+            if (violations.isEmpty()) {
+                System.out.println("✓ JSON data is valid");
+            } else {
+                System.out.println("✗ Data validation failed: " + violations.size() + " violation(s)");
+            }
+            
+        } catch (Exception e) {
+            System.out.println("✗ Data validation failed: " + e.getMessage());
+        }
+    }
+    
+    private void printDiagnostics(ParseResult result) {
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            System.out.println((diagnostic.isError() ? "Error: " : "Warning: ") + diagnostic.getLine() + ":"
+                    + diagnostic.getColumn() + " - " + diagnostic.getMessage()
+                    + (diagnostic.getPath() != null ? " (in " + diagnostic.getPath() + ")" : ""));
+        }
+    }
+    
     private void displayModuleInfo(YangModule module) {
         System.out.println("\n=== Module Information ===");
         System.out.println("Module Name: " + module.getName());
@@ -119,9 +203,19 @@ public class YangValidator {
     }
     
     private void displayNodes(List<YangNode> nodes, int indent) {
-        String indentStr = "  ".repeat(indent);
+        // Explicit stack instead of recursion so very deep schemas cannot overflow
+        Deque<YangNode> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            stack.push(nodes.get(i));
+            depths.push(indent);
+        }
         
-        for (YangNode node : nodes) {
+        while (!stack.isEmpty()) {
+            YangNode node = stack.pop();
+            int depth = depths.pop();
+            String indentStr = "  ".repeat(depth);
+            
             System.out.printf("%s%s (%s)", indentStr, node.getName(), node.getType());
             
             if (node.getDataType() != null) {
@@ -138,7 +232,11 @@ public class YangValidator {
                 System.out.printf("%s  Description: %s\n", indentStr, node.getDescription());
             }
             
-            displayNodes(node.getChildren(), indent + 1);
+            List<YangNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+                depths.push(depth + 1);
+            }
         }
     }
     
@@ -164,22 +262,22 @@ public class YangValidator {
             
             System.out.println("\nConverting YANG to JSON...");
             
-            // Parse YANG file
-            YangModule module = parser.parseYangFile(filePath);
-            
-            // Convert to JSON
-            JSONObject json = converter.convertToJson(module);
+            // Parse and write in one pass; nodes reach the file as they are parsed
+            JsonConverter.StreamResult result = converter.streamJsonToFile(filePath, outputPath, 500);
+            printDiagnostics(result.getParseResult());
             
-            // Save to file
-            converter.saveJsonToFile(json, outputPath);
+            if (result.hasErrors()) {
+                System.out.println("✗ Conversion failed: " + result.getParseResult().getErrors().size()
+                        + " syntax error(s)");
+                return;
+            }
             
             System.out.println("✓ Successfully converted to JSON");
             System.out.println("✓ Output saved to: " + outputPath);
             
-            // Display a preview
+            // The preview is the beginning of what was written
             System.out.println("\n=== JSON Preview (first 500 chars) ===");
-            String jsonString = json.toString(2);
-            System.out.println(jsonString.substring(0, Math.min(jsonString.length(), 500)) + "...");
+            System.out.println(result.getPreview() + "...");
             
         } catch (Exception e) {
             System.out.println("✗ Conversion failed: " + e.getMessage());
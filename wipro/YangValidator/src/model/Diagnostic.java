@@ -0,0 +1,58 @@
+package model;
+
+/**
+ * A problem found while parsing. The path names the schema nodes enclosing
+ * it, e.g. "/interfaces/interface"; it is "/" at module level and null
+ * where no node applies.
+ */
+public class Diagnostic {
+    public enum Severity { ERROR, WARNING }
+
+    private final int line;
+    private final int column;
+    private final Severity severity;
+    private final String message;
+    private final String path;
+
+    public Diagnostic(int line, int column, Severity severity, String message) {
+        this(line, column, severity, message, null);
+    }
+
+    public Diagnostic(int line, int column, Severity severity, String message, String path) {
+        this.line = line;
+        this.column = column;
+        this.severity = severity;
+        this.message = message;
+        this.path = path;
+    }
+
+    public static Diagnostic error(int line, int column, String message) {
+        return new Diagnostic(line, column, Severity.ERROR, message);
+    }
+
+    public static Diagnostic error(int line, int column, String message, String path) {
+        return new Diagnostic(line, column, Severity.ERROR, message, path);
+    }
+
+    public static Diagnostic warning(int line, int column, String message) {
+        return new Diagnostic(line, column, Severity.WARNING, message);
+    }
+
+    public static Diagnostic warning(int line, int column, String message, String path) {
+        return new Diagnostic(line, column, Severity.WARNING, message, path);
+    }
+
+    // Getters
+    public int getLine() { return line; }
+    public int getColumn() { return column; }
+    public Severity getSeverity() { return severity; }
+    public String getMessage() { return message; }
+    public String getPath() { return path; }
+    public boolean isError() { return severity == Severity.ERROR; }
+
+    @Override
+    public String toString() {
+        return "Line " + line + ", column " + column + " - " + severity + ": " + message
+                + (path != null ? " (in " + path + ")" : "");
+    }
+}
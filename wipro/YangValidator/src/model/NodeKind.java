@@ -0,0 +1,57 @@
+package model;
+
+/**
+ * Kinds of schema node, one per modelled YANG statement.
+ *
+ * Data nodes, choices and cases make up the expanded schema tree returned by
+ * YangModule.getNodes() and YangNode.getChildren(). Groupings, uses,
+ * augments and typedefs are definitions; they only appear in the declared
+ * tree (getDeclaredNodes(), getDeclaredChildren()).
+ */
+public enum NodeKind {
+    CONTAINER("container"),
+    LEAF("leaf"),
+    LEAF_LIST("leaf-list"),
+    LIST("list"),
+    CHOICE("choice"),
+    CASE("case"),
+    GROUPING("grouping"),
+    USES("uses"),
+    AUGMENT("augment"),
+    TYPEDEF("typedef");
+
+    private final String keyword;
+
+    NodeKind(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public String getKeyword() { return keyword; }
+
+    /**
+     * True for groupings, uses, augments and typedefs, which are replaced or
+     * dropped when the schema tree is expanded.
+     */
+    public boolean isDefinition() {
+        return ordinal() >= GROUPING.ordinal();
+    }
+
+    /**
+     * Returns the kind for a YANG keyword, or null if the statement is not modelled.
+     */
+    public static NodeKind fromKeyword(String keyword) {
+        switch (keyword) {
+            case "container": return CONTAINER;
+            case "leaf": return LEAF;
+            case "leaf-list": return LEAF_LIST;
+            case "list": return LIST;
+            case "choice": return CHOICE;
+            case "case": return CASE;
+            case "grouping": return GROUPING;
+            case "uses": return USES;
+            case "augment": return AUGMENT;
+            case "typedef": return TYPEDEF;
+            default: return null;
+        }
+    }
+}
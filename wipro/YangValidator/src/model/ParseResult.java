@@ -0,0 +1,45 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a single parse: the module (null when no module statement was
+ * found) and every diagnostic reported while reading it.
+ */
+public class ParseResult {
+    private final YangModule module;
+    private final List<Diagnostic> diagnostics;
+
+    public ParseResult(YangModule module, List<Diagnostic> diagnostics) {
+        this.module = module;
+        this.diagnostics = diagnostics;
+    }
+
+    public YangModule getModule() { return module; }
+    public List<Diagnostic> getDiagnostics() { return diagnostics; }
+
+    public boolean hasErrors() {
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.isError()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Diagnostic> getErrors() {
+        List<Diagnostic> errors = new ArrayList<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.isError()) {
+                errors.add(diagnostic);
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "ParseResult{module=" + module + ", diagnostics=" + diagnostics.size() + "}";
+    }
+}
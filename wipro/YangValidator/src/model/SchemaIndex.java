@@ -0,0 +1,201 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup index over the nodes of a YangModule.
+ *
+ * Nodes are stored in pre-order, so every subtree occupies a contiguous
+ * range of the node array and prefix queries are a range lookup rather than
+ * a tree walk. Schema paths ("/container/list/leaf") and bare node names are
+ * hashed to their positions. The index never changes after build(), so any
+ * number of threads may query it without locking. It is a snapshot: nodes
+ * added to the module afterwards are not visible.
+ */
+public final class SchemaIndex {
+    private final String moduleName;
+    private final YangNode[] nodes;
+    private final String[] paths;
+    // Exclusive end of each node's subtree in pre-order
+    private final int[] subtreeEnd;
+    private final Map<String, Integer> byPath;
+    private final Map<String, List<YangNode>> byName;
+
+    private SchemaIndex(String moduleName, YangNode[] nodes, String[] paths, int[] subtreeEnd,
+                        Map<String, Integer> byPath, Map<String, List<YangNode>> byName) {
+        this.moduleName = moduleName;
+        this.nodes = nodes;
+        this.paths = paths;
+        this.subtreeEnd = subtreeEnd;
+        this.byPath = byPath;
+        this.byName = byName;
+    }
+
+    /**
+     * Indexes every node of the module. Where siblings share a name, the
+     * path resolves to the first of them.
+     */
+    public static SchemaIndex build(YangModule module) {
+        List<YangNode> order = new ArrayList<>();
+        List<String> orderPaths = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+
+        // Iterative pre-order walk; children are pushed in reverse to keep document order
+        Deque<Object[]> stack = new ArrayDeque<>();
+        List<YangNode> top = module.getNodes();
+        for (int i = top.size() - 1; i >= 0; i--) {
+            stack.push(new Object[] {top.get(i), "", -1});
+        }
+        while (!stack.isEmpty()) {
+            Object[] frame = stack.pop();
+            YangNode node = (YangNode) frame[0];
+            String path = frame[1] + "/" + node.getName();
+            int index = order.size();
+            order.add(node);
+            orderPaths.add(path);
+            parents.add((Integer) frame[2]);
+            List<YangNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(new Object[] {children.get(i), path, index});
+            }
+        }
+
+        int size = order.size();
+        int[] subtreeEnd = new int[size];
+        // A node's subtree ends where its last descendant's does; walk backwards
+        // so every child is finished before its parent reads it
+        for (int i = size - 1; i >= 0; i--) {
+            subtreeEnd[i] = Math.max(subtreeEnd[i], i + 1);
+            int parent = parents.get(i);
+            if (parent >= 0) {
+                subtreeEnd[parent] = Math.max(subtreeEnd[parent], subtreeEnd[i]);
+            }
+        }
+
+        Map<String, Integer> byPath = new HashMap<>(size * 2);
+        Map<String, List<YangNode>> byName = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            byPath.putIfAbsent(orderPaths.get(i), i);
+            byName.computeIfAbsent(order.get(i).getName(), k -> new ArrayList<>()).add(order.get(i));
+        }
+        Map<String, List<YangNode>> names = new HashMap<>(byName.size() * 2);
+        for (Map.Entry<String, List<YangNode>> entry : byName.entrySet()) {
+            names.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+
+        return new SchemaIndex(module.getName(), order.toArray(new YangNode[0]),
+                orderPaths.toArray(new String[0]), subtreeEnd, Map.copyOf(byPath), Map.copyOf(names));
+    }
+
+    /**
+     * Returns the node at a schema path such as "/interfaces/interface/name",
+     * or null. Segments may carry a module prefix ("/if:interfaces"), which
+     * is ignored.
+     */
+    public YangNode get(String path) {
+        int index = indexOf(path);
+        return index >= 0 ? nodes[index] : null;
+    }
+
+    /**
+     * All nodes with the given name, in document order.
+     */
+    public List<YangNode> findByName(String name) {
+        return byName.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * All nodes below a path, in document order, excluding the node itself.
+     * "/" returns every node in the module. Unknown paths return an empty list.
+     */
+    public List<YangNode> descendants(String path) {
+        if (isRoot(path)) {
+            return Collections.unmodifiableList(Arrays.asList(nodes));
+        }
+        int index = indexOf(path);
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(nodes).subList(index + 1, subtreeEnd[index]));
+    }
+
+    /**
+     * Nodes of one kind below a path, e.g. all leaves under "/interfaces".
+     */
+    public List<YangNode> descendants(String path, NodeKind kind) {
+        List<YangNode> matches = new ArrayList<>();
+        for (YangNode node : descendants(path)) {
+            if (node.getKind() == kind) {
+                matches.add(node);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Schema paths of all nodes below a path, in the same order as descendants().
+     */
+    public List<String> descendantPaths(String path) {
+        if (isRoot(path)) {
+            return Collections.unmodifiableList(Arrays.asList(paths));
+        }
+        int index = indexOf(path);
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(paths).subList(index + 1, subtreeEnd[index]));
+    }
+
+    private int indexOf(String path) {
+        Integer index = byPath.get(path);
+        if (index == null) {
+            String normalized = normalize(path);
+            index = normalized != null ? byPath.get(normalized) : null;
+        }
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Slow path for lookups that miss: drops module prefixes and a trailing
+     * slash, and adds a missing leading slash.
+     */
+    private static String normalize(String path) {
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(path.length() + 1);
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            int colon = segment.indexOf(':');
+            sb.append('/').append(colon >= 0 ? segment.substring(colon + 1) : segment);
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    private static boolean isRoot(String path) {
+        return path == null || path.isEmpty() || "/".equals(path);
+    }
+
+    public String getModuleName() { return moduleName; }
+
+    /**
+     * Number of indexed nodes.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaIndex{module='" + moduleName + "', nodes=" + nodes.length + "}";
+    }
+}
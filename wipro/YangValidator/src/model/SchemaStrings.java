@@ -0,0 +1,77 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide intern table for identifiers and type names that repeat
+ * across schema nodes and modules (node names, "string", "uint32", ...).
+ *
+ * The YANG built-in types are held for the life of the process. Every
+ * other string is held weakly and leaves the table once no schema node
+ * refers to it, so the server and the watch mode, which parse for as long
+ * as they run, do not keep every identifier they have ever seen. Modules
+ * that are alive at the same time still share their strings. The weak
+ * part is split into separately locked segments, so parallel parses
+ * rarely wait for each other.
+ */
+public final class SchemaStrings {
+    private static final Map<String, String> BUILT_IN = new HashMap<>();
+    private static final Segment[] SEGMENTS = new Segment[16]; // a power of two
+
+    static {
+        String[] builtInTypes = {
+            "binary", "bits", "boolean", "decimal64", "empty", "enumeration",
+            "identityref", "instance-identifier", "int8", "int16", "int32", "int64",
+            "leafref", "string", "uint8", "uint16", "uint32", "uint64", "union"
+        };
+        for (String type : builtInTypes) {
+            BUILT_IN.put(type, type);
+        }
+        for (int i = 0; i < SEGMENTS.length; i++) {
+            SEGMENTS[i] = new Segment();
+        }
+    }
+
+    /** Strings by themselves; the value must not hold its key strongly. */
+    private static final class Segment {
+        final WeakHashMap<String, WeakReference<String>> strings = new WeakHashMap<>();
+    }
+
+    private SchemaStrings() {
+    }
+
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String builtIn = BUILT_IN.get(value);
+        if (builtIn != null) {
+            return builtIn;
+        }
+        int hash = value.hashCode();
+        Segment segment = SEGMENTS[(hash ^ (hash >>> 16)) & (SEGMENTS.length - 1)];
+        synchronized (segment) {
+            WeakReference<String> reference = segment.strings.get(value);
+            String existing = reference != null ? reference.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            segment.strings.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /** Number of strings currently interned, built-in types included. */
+    public static int size() {
+        int size = BUILT_IN.size();
+        for (Segment segment : SEGMENTS) {
+            synchronized (segment) {
+                size += segment.strings.size();
+            }
+        }
+        return size;
+    }
+}
@@ -1,7 +1,14 @@
 package model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class YangModule {
     private String name;
@@ -9,16 +16,42 @@ public class YangModule {
     private String prefix;
     private List<YangNode> nodes;
     private List<String> imports;
+    // Whether the declared top level holds groupings, uses, augments or typedefs
+    private boolean hasDefinitions;
+    // Set by link(); the expanded list then carries augments addNode() cannot redo
+    private boolean linked;
+    private volatile List<YangNode> expandedNodes;
+    private Map<String, YangNode> typedefs = Collections.emptyMap();
 
     public YangModule(String name) {
-        this.name = name;
+        this.name = SchemaStrings.intern(name);
         this.nodes = new ArrayList<>();
         this.imports = new ArrayList<>();
     }
 
+    /**
+     * A statement link() could not resolve. Errors are broken references;
+     * warnings are references into other modules, which are left unexpanded.
+     */
+    public static final class Unresolved {
+        private final YangNode statement;
+        private final boolean error;
+        private final String message;
+
+        Unresolved(YangNode statement, boolean error, String message) {
+            this.statement = statement;
+            this.error = error;
+            this.message = message;
+        }
+
+        public YangNode getStatement() { return statement; }
+        public boolean isError() { return error; }
+        public String getMessage() { return message; }
+    }
+
     // Getters and setters
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = SchemaStrings.intern(name); }
 
     public String getNamespace() { return namespace; }
     public void setNamespace(String namespace) { this.namespace = namespace; }
@@ -26,14 +59,326 @@ public class YangModule {
     public String getPrefix() { return prefix; }
     public void setPrefix(String prefix) { this.prefix = prefix; }
 
-    public List<YangNode> getNodes() { return nodes; }
-    public void addNode(YangNode node) { this.nodes.add(node); }
+    /**
+     * Top-level schema nodes with uses expanded, definitions removed and,
+     * after link(), augments applied. Read-only: once the module has
+     * definitions or augments the list is immutable. Use addNode().
+     */
+    public List<YangNode> getNodes() {
+        List<YangNode> result = expandedNodes;
+        if (result != null) {
+            return result;
+        }
+        if (!hasDefinitions) {
+            return nodes;
+        }
+        result = expandTopLevel();
+        expandedNodes = result;
+        return result;
+    }
+
+    /**
+     * Top-level statements as written, including groupings, uses, augments
+     * and typedefs. Read-only; use addNode(), which keeps getNodes() up to
+     * date.
+     */
+    public List<YangNode> getDeclaredNodes() { return nodes; }
+
+    /**
+     * Adds a top-level statement while the declared tree is being built.
+     *
+     * @throws IllegalStateException if link() has already run
+     */
+    public synchronized void addNode(YangNode node) {
+        if (linked) {
+            throw new IllegalStateException("Module '" + name + "' is already linked");
+        }
+        this.nodes.add(node);
+        if (node.getKind().isDefinition()) {
+            hasDefinitions = true;
+        }
+        expandedNodes = null;
+    }
 
     public List<String> getImports() { return imports; }
-    public void addImport(String importModule) { this.imports.add(importModule); }
+    public void addImport(String importModule) { this.imports.add(SchemaStrings.intern(importModule)); }
+
+    /**
+     * Follows typedefs from a type name to the built-in type it derives
+     * from. Names that are not typedefs of this module, including built-in
+     * types and typedefs from imported modules, are returned unchanged.
+     * Typedefs are collected by link().
+     */
+    public String resolveType(String type) {
+        String current = type;
+        // Bounded in case typedefs refer to each other in a loop
+        for (int i = 0; i < 32 && current != null; i++) {
+            String local = localName(current);
+            YangNode typedef = local != null ? typedefs.get(local) : null;
+            if (typedef == null) {
+                return current;
+            }
+            current = typedef.getDataType();
+        }
+        return current;
+    }
+
+    /**
+     * Resolves the declared tree once it is complete. Binds every uses to
+     * the grouping it names, searching the enclosing scopes outwards, and
+     * collects typedefs. Then applies top-level augments. An augment copies
+     * the nodes on its target path, and only those nodes are expanded here.
+     * All other uses expand lazily on first access. Call it once the
+     * declared tree is complete, before expanded children are read; after
+     * it, addNode() throws.
+     *
+     * @return statements that could not be resolved
+     */
+    public synchronized List<Unresolved> link() {
+        List<Unresolved> problems = new ArrayList<>();
+        Map<String, YangNode> foundTypedefs = new HashMap<>();
+        List<Object[]> usesSites = new ArrayList<>(); // {uses, scope, enclosing grouping}
+
+        // Iterative walk over the declared tree; each frame is one child list
+        Deque<Object[]> stack = new ArrayDeque<>();
+        stack.push(new Object[] {nodes, null, null});
+        while (!stack.isEmpty()) {
+            Object[] frame = stack.pop();
+            @SuppressWarnings("unchecked")
+            List<YangNode> list = (List<YangNode>) frame[0];
+            Scope scope = Scope.of(list, (Scope) frame[1]);
+            YangNode enclosing = (YangNode) frame[2];
+            for (YangNode node : list) {
+                if (node instanceof YangUses) {
+                    usesSites.add(new Object[] {node, scope, enclosing});
+                } else if (node.getKind() == NodeKind.TYPEDEF) {
+                    foundTypedefs.putIfAbsent(node.getName(), node);
+                }
+                if (!node.getDeclaredChildren().isEmpty()) {
+                    stack.push(new Object[] {node.getDeclaredChildren(), scope,
+                            node.getKind() == NodeKind.GROUPING ? node : enclosing});
+                }
+            }
+        }
+        typedefs = foundTypedefs.isEmpty() ? Collections.emptyMap() : Map.copyOf(foundTypedefs);
+
+        // Edges from each grouping to the groupings used in its body
+        Map<YangNode, List<YangNode>> uses = new IdentityHashMap<>();
+        YangNode[] targets = new YangNode[usesSites.size()];
+        for (int i = 0; i < targets.length; i++) {
+            YangUses site = (YangUses) usesSites.get(i)[0];
+            site.bind(null);
+            String local = localName(site.getName());
+            if (local == null) {
+                problems.add(new Unresolved(site, false,
+                        "Grouping '" + site.getName() + "' is defined in another module and is not expanded"));
+                continue;
+            }
+            Scope scope = (Scope) usesSites.get(i)[1];
+            targets[i] = scope != null ? scope.find(local) : null;
+            if (targets[i] == null) {
+                problems.add(new Unresolved(site, true, "Grouping '" + site.getName() + "' not found"));
+                continue;
+            }
+            YangNode enclosing = (YangNode) usesSites.get(i)[2];
+            if (enclosing != null) {
+                uses.computeIfAbsent(enclosing, k -> new ArrayList<>()).add(targets[i]);
+            }
+        }
+        // A grouping whose expansion would contain itself describes an infinite tree
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] == null) {
+                continue;
+            }
+            YangUses site = (YangUses) usesSites.get(i)[0];
+            YangNode enclosing = (YangNode) usesSites.get(i)[2];
+            if (enclosing != null && reaches(uses, targets[i], enclosing)) {
+                problems.add(new Unresolved(site, true, "Circular uses of grouping '" + site.getName() + "'"));
+            } else {
+                site.bind(targets[i]);
+            }
+        }
+
+        List<YangNode> top = expandTopLevel();
+        for (YangNode augment : nodes) {
+            if (augment.getKind() != NodeKind.AUGMENT) {
+                continue;
+            }
+            String path = augment.getName();
+            if (path == null || !path.startsWith("/")) {
+                problems.add(new Unresolved(augment, true, "Augment target '" + path + "' is not an absolute path"));
+                continue;
+            }
+            if (isForeign(path)) {
+                problems.add(new Unresolved(augment, false,
+                        "Augment of '" + path + "' targets another module and is not applied"));
+                continue;
+            }
+            List<YangNode> augmented = augment(top, path, augment.getChildren());
+            if (augmented == null) {
+                problems.add(new Unresolved(augment, true, "Augment target '" + path + "' not found"));
+            } else {
+                top = augmented;
+            }
+        }
+        expandedNodes = top;
+        linked = true;
+        return problems;
+    }
+
+    private List<YangNode> expandTopLevel() {
+        List<YangNode> result = new ArrayList<>(nodes.size());
+        for (YangNode node : nodes) {
+            if (node instanceof YangUses) {
+                YangNode grouping = ((YangUses) node).getGrouping();
+                if (grouping != null) {
+                    result.addAll(grouping.getChildren());
+                }
+            } else if (!node.getKind().isDefinition()) {
+                result.add(node);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Returns a new top-level list with the given children appended to the
+     * node at path, or null if the path does not exist. Nodes along the path
+     * are copied and everything else is shared, so nodes that come from a
+     * grouping and are used elsewhere stay unchanged.
+     */
+    private static List<YangNode> augment(List<YangNode> top, String path, List<YangNode> added) {
+        String[] segments = path.substring(1).split("/");
+        List<List<YangNode>> lists = new ArrayList<>(segments.length);
+        int[] indexes = new int[segments.length];
+        List<YangNode> current = top;
+        for (int depth = 0; depth < segments.length; depth++) {
+            String segment = segments[depth];
+            String local = segment.substring(segment.indexOf(':') + 1);
+            int index = -1;
+            for (int i = 0; i < current.size(); i++) {
+                if (local.equals(current.get(i).getName())) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return null;
+            }
+            lists.add(current);
+            indexes[depth] = index;
+            current = current.get(index).getChildren();
+        }
+
+        List<YangNode> children = new ArrayList<>(current.size() + added.size());
+        children.addAll(current);
+        children.addAll(added);
+        YangNode replacement = null;
+        for (int depth = segments.length - 1; depth >= 0; depth--) {
+            YangNode original = lists.get(depth).get(indexes[depth]);
+            replacement = original.withChildren(children);
+            if (depth > 0) {
+                children = new ArrayList<>(lists.get(depth));
+                children.set(indexes[depth], replacement);
+            }
+        }
+        List<YangNode> result = new ArrayList<>(top);
+        result.set(indexes[0], replacement);
+        return List.copyOf(result);
+    }
+
+    /**
+     * Whether any path through the uses edges leads from one grouping to another.
+     */
+    private static boolean reaches(Map<YangNode, List<YangNode>> uses, YangNode from, YangNode to) {
+        Set<YangNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<YangNode> pending = new ArrayDeque<>();
+        pending.push(from);
+        while (!pending.isEmpty()) {
+            YangNode grouping = pending.pop();
+            if (grouping == to) {
+                return true;
+            }
+            if (seen.add(grouping)) {
+                for (YangNode next : uses.getOrDefault(grouping, Collections.emptyList())) {
+                    pending.push(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Strips this module's prefix from a name; returns null if the name
+     * carries another module's prefix.
+     */
+    private String localName(String qualified) {
+        int colon = qualified.indexOf(':');
+        if (colon < 0) {
+            return qualified;
+        }
+        return qualified.substring(0, colon).equals(prefix) ? qualified.substring(colon + 1) : null;
+    }
+
+    private boolean isForeign(String path) {
+        for (String segment : path.substring(1).split("/")) {
+            if (!segment.isEmpty() && localName(segment) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Groupings declared in one child list, chained to the enclosing lists. */
+    private static final class Scope {
+        final Map<String, YangNode> groupings;
+        final Scope parent;
+
+        private Scope(Map<String, YangNode> groupings, Scope parent) {
+            this.groupings = groupings;
+            this.parent = parent;
+        }
+
+        /** The parent scope itself when the list declares no groupings. */
+        static Scope of(List<YangNode> list, Scope parent) {
+            Map<String, YangNode> groupings = null;
+            for (YangNode node : list) {
+                if (node.getKind() == NodeKind.GROUPING) {
+                    if (groupings == null) {
+                        groupings = new HashMap<>();
+                    }
+                    groupings.putIfAbsent(node.getName(), node);
+                }
+            }
+            return groupings != null ? new Scope(groupings, parent) : parent;
+        }
+
+        YangNode find(String name) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                YangNode grouping = scope.groupings.get(name);
+                if (grouping != null) {
+                    return grouping;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Trims list capacity throughout the module once it is fully built.
+     * The module's own lists stay growable; the child and must lists of
+     * every node become immutable (see YangNode.compact()).
+     */
+    public void compact() {
+        nodes = new ArrayList<>(nodes);
+        imports = new ArrayList<>(imports);
+        for (YangNode node : nodes) {
+            node.compact();
+        }
+    }
 
     @Override
     public String toString() {
-        return "YangModule{name='" + name + "', namespace='" + namespace + "', nodes=" + nodes.size() + "}";
+        return "YangModule{name='" + name + "', namespace='" + namespace + "', nodes=" + getNodes().size() + "}";
     }
-}
\ No newline at end of file
+}
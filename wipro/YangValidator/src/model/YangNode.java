@@ -1,43 +1,250 @@
 package model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
+/**
+ * A schema statement and the statements declared inside it.
+ *
+ * getDeclaredChildren() returns the children as written, including
+ * groupings, uses and typedefs. getChildren() returns the expanded view:
+ * definitions are dropped and every uses is replaced by the children of its
+ * grouping. The expansion is built on first access and kept. It holds the
+ * grouping's own node objects rather than copies, so a grouping used in many
+ * places exists once in memory and every use site shares it. Shared nodes
+ * are never modified; augments copy the nodes on their path instead
+ * (see YangModule.link()).
+ *
+ * The lists returned by the getters are read-only. Once compact() has run,
+ * which the parser does for every module, they are immutable and adding to
+ * them throws UnsupportedOperationException. Add children and must
+ * statements through addChild() and addMust(), which also keep the
+ * expansion up to date.
+ */
 public class YangNode {
+    private static final int MANDATORY = 1;
+    private static final int CONFIG_SET = 2;
+    private static final int CONFIG = 4;
+    // Declared children include definitions, so getChildren() must expand them
+    private static final int EXPANDS = 8;
+
     private String name;
-    private String type;
+    private NodeKind kind;
     private String description;
-    private List<YangNode> children;
-    private boolean isMandatory;
+    private List<YangNode> children; // null until the first child is added
+    private byte flags;
     private String dataType;
+    private String key;
+    private Constraints constraints; // null unless the node has must, min-elements or max-elements
+    private volatile List<YangNode> expanded;
 
     public YangNode(String name, String type) {
-        this.name = name;
-        this.type = type;
-        this.children = new ArrayList<>();
+        this(name, kindOf(type));
+    }
+
+    public YangNode(String name, NodeKind kind) {
+        this.name = SchemaStrings.intern(name);
+        this.kind = kind;
     }
 
     // Getters and setters
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = SchemaStrings.intern(name); }
 
-    public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
+    public String getType() { return kind.getKeyword(); }
+    public void setType(String type) { this.kind = kindOf(type); }
+
+    public NodeKind getKind() { return kind; }
+    public void setKind(NodeKind kind) { this.kind = kind; }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public List<YangNode> getChildren() { return children; }
-    public void addChild(YangNode child) { this.children.add(child); }
+    /**
+     * Children with uses expanded and definitions removed. Read-only; see
+     * the class comment.
+     */
+    public List<YangNode> getChildren() {
+        if ((flags & EXPANDS) == 0) {
+            return getDeclaredChildren();
+        }
+        List<YangNode> result = expanded;
+        if (result == null) {
+            // Racing threads build equal lists from the same shared nodes
+            result = expand(getDeclaredChildren());
+            expanded = result;
+        }
+        return result;
+    }
+
+    /**
+     * Children in declaration order, including groupings, uses and typedefs.
+     * Read-only; use addChild().
+     */
+    public List<YangNode> getDeclaredChildren() {
+        return children != null ? children : Collections.emptyList();
+    }
+
+    public void addChild(YangNode child) {
+        if (children == null) {
+            children = new ArrayList<>(4);
+        } else if (!(children instanceof ArrayList)) {
+            children = new ArrayList<>(children); // re-open a compacted list
+        }
+        children.add(child);
+        if (child.kind.isDefinition()) {
+            flags |= EXPANDS;
+        }
+        expanded = null;
+    }
 
-    public boolean isMandatory() { return isMandatory; }
-    public void setMandatory(boolean mandatory) { isMandatory = mandatory; }
+    public boolean isMandatory() { return (flags & MANDATORY) != 0; }
+    public void setMandatory(boolean mandatory) { setFlag(MANDATORY, mandatory); }
 
     public String getDataType() { return dataType; }
-    public void setDataType(String dataType) { this.dataType = dataType; }
+    public void setDataType(String dataType) { this.dataType = SchemaStrings.intern(dataType); }
+
+    /** Space-separated key leaf names of a list, or null. */
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = SchemaStrings.intern(key); }
+
+    /**
+     * The config statement of this node, or null if it has none and
+     * inherits from its parent.
+     */
+    public Boolean getConfig() {
+        return (flags & CONFIG_SET) != 0 ? Boolean.valueOf((flags & CONFIG) != 0) : null;
+    }
+
+    public void setConfig(Boolean config) {
+        setFlag(CONFIG_SET, config != null);
+        setFlag(CONFIG, config != null && config);
+    }
+
+    /** XPath expressions of the node's must statements, in order. Read-only; use addMust(). */
+    public List<String> getMusts() {
+        return constraints != null ? constraints.musts : Collections.emptyList();
+    }
+
+    public void addMust(String expression) {
+        Constraints c = constraints();
+        if (c.musts.isEmpty()) {
+            c.musts = new ArrayList<>(2);
+        } else if (!(c.musts instanceof ArrayList)) {
+            c.musts = new ArrayList<>(c.musts);
+        }
+        c.musts.add(expression);
+    }
+
+    /** The min-elements of a list or leaf-list, 0 if it has none. */
+    public int getMinElements() { return constraints != null ? constraints.minElements : 0; }
+
+    /** The max-elements of a list or leaf-list; Integer.MAX_VALUE if it has none or it is unbounded. */
+    public int getMaxElements() { return constraints != null ? constraints.maxElements : Integer.MAX_VALUE; }
+
+    public void setElements(int minElements, int maxElements) {
+        if (constraints == null && minElements == 0 && maxElements == Integer.MAX_VALUE) {
+            return;
+        }
+        Constraints c = constraints();
+        c.minElements = minElements;
+        c.maxElements = maxElements;
+    }
+
+    private Constraints constraints() {
+        if (constraints == null) {
+            constraints = new Constraints();
+        }
+        return constraints;
+    }
+
+    /**
+     * Statements that few nodes have, kept in one separate object so that
+     * nodes without them stay small.
+     */
+    private static final class Constraints {
+        List<String> musts = Collections.emptyList();
+        int minElements;
+        int maxElements = Integer.MAX_VALUE;
+    }
+
+    private void setFlag(int flag, boolean on) {
+        flags = (byte) (on ? flags | flag : flags & ~flag);
+    }
+
+    /**
+     * Expansion of one declared child list. Each uses takes the grouping's
+     * already expanded children, so this recurses only along chains of
+     * groupings that use other groupings, never down the tree. YangModule.link()
+     * leaves uses that would form a cycle unbound.
+     */
+    private static List<YangNode> expand(List<YangNode> declared) {
+        List<YangNode> result = new ArrayList<>(declared.size());
+        for (YangNode child : declared) {
+            if (child instanceof YangUses) {
+                YangNode grouping = ((YangUses) child).getGrouping();
+                if (grouping != null) {
+                    result.addAll(grouping.getChildren());
+                }
+            } else if (!child.kind.isDefinition()) {
+                result.add(child);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * A copy of this node with the given expanded children, sharing
+     * everything else. Used to apply augments without touching nodes that
+     * other parts of the tree may share.
+     */
+    YangNode withChildren(List<YangNode> newChildren) {
+        YangNode copy = new YangNode(name, kind);
+        copy.description = description;
+        copy.children = children;
+        copy.flags = (byte) (flags | EXPANDS);
+        copy.dataType = dataType;
+        copy.key = key;
+        copy.constraints = constraints;
+        copy.expanded = List.copyOf(newChildren);
+        return copy;
+    }
+
+    /**
+     * Replaces growable child lists in this subtree with exactly sized
+     * immutable ones. Called once parsing is complete. Walks the declared
+     * tree, so no uses are expanded.
+     */
+    public void compact() {
+        Deque<YangNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            YangNode node = stack.pop();
+            if (node.children instanceof ArrayList) {
+                node.children = List.copyOf(node.children);
+            }
+            if (node.constraints != null && node.constraints.musts instanceof ArrayList) {
+                node.constraints.musts = List.copyOf(node.constraints.musts);
+            }
+            for (YangNode child : node.getDeclaredChildren()) {
+                stack.push(child);
+            }
+        }
+    }
+
+    private static NodeKind kindOf(String type) {
+        NodeKind kind = NodeKind.fromKeyword(type);
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown node type: " + type);
+        }
+        return kind;
+    }
 
     @Override
     public String toString() {
-        return "YangNode{name='" + name + "', type='" + type + "', children=" + children.size() + "}";
+        return "YangNode{name='" + name + "', type='" + getType() + "', children=" + getChildren().size() + "}";
     }
-}
\ No newline at end of file
+}
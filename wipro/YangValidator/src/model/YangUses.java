@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * A uses statement. Its name is the grouping name as written, possibly with
+ * a prefix; YangModule.link() binds it to the grouping it refers to.
+ */
+public class YangUses extends YangNode {
+    private volatile YangNode grouping;
+
+    public YangUses(String grouping) {
+        super(grouping, NodeKind.USES);
+    }
+
+    /**
+     * The bound grouping, or null before link() or if it could not be resolved.
+     */
+    public YangNode getGrouping() { return grouping; }
+
+    void bind(YangNode grouping) {
+        this.grouping = grouping;
+    }
+}
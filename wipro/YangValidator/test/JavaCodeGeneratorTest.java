@@ -0,0 +1,164 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import model.ParseResult;
+import model.YangModule;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Compiles the sources JavaCodeGenerator writes for a module in process,
+ * with every lint warning enabled, and round-trips payloads through the
+ * generated records.
+ *
+ * The module is made of the names that are hard to map to Java: Java
+ * keywords, names of the generated methods, nodes that share a name with
+ * their parent or module, and YANG names that collapse to the same Java
+ * name.
+ */
+class JavaCodeGeneratorTest {
+    private static final String MODULE = String.join("\n",
+            "module class {",
+            "    namespace \"urn:class\";",
+            "    prefix c;",
+            "    typedef percent { type uint8; }",
+            "    grouping address {",
+            "        leaf ip { type string; mandatory true; }",
+            "        leaf port { type uint16; }",
+            "    }",
+            "    container class {",
+            "        container class {",
+            "            leaf int { type int32; mandatory true; }",
+            "            leaf toString { type string; }",
+            "        }",
+            "        container string {",
+            "            leaf default { type empty; }",
+            "            leaf big { type int64; }",
+            "            leaf huge { type uint64; }",
+            "            leaf ratio { type decimal64 { fraction-digits 2; } }",
+            "            leaf load { type percent; }",
+            "            leaf enabled { type boolean; mandatory true; }",
+            "            leaf-list tags { type int8; }",
+            "        }",
+            "        choice transport {",
+            "            case tcp { container tcp { uses address; } }",
+            "            case udp { leaf udp-port { type uint16; mandatory true; } }",
+            "        }",
+            "        list read {",
+            "            key \"name\";",
+            "            leaf name { type string; }",
+            "            uses address;",
+            "            list read { key \"id\"; leaf id { type uint32; } }",
+            "        }",
+            "        leaf write-to { type boolean; }",
+            "        leaf a-b { type string; }",
+            "        leaf a.b { type string; }",
+            "    }",
+            "}");
+
+    private static final String PACKAGE = "generated.test";
+
+    @TempDir
+    static Path dir;
+
+    private static URLClassLoader loader;
+    private static Method fromJson;
+    private static Method toJson;
+
+    @BeforeAll
+    static void compileGeneratedSources() throws Exception {
+        ParseResult parsed = new YangParser().parse(MODULE.toCharArray());
+        assertEquals(List.of(), parsed.getDiagnostics());
+        YangModule module = parsed.getModule();
+        JavaCodeGenerator generator = new JavaCodeGenerator(PACKAGE);
+        Path sources = dir.resolve("src");
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        assertTrue(generator.writeSources(module, sources) > 0);
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(sources)) {
+            walk.filter(path -> path.toString().endsWith(".java")).forEach(files::add);
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            boolean compiled = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-Xlint:all", "-Werror", "-d", classes.toString()), null,
+                    fileManager.getJavaFileObjectsFromPaths(files)).call();
+            List<String> messages = new ArrayList<>();
+            diagnostics.getDiagnostics().forEach(diagnostic -> messages.add(diagnostic.getKind() + " "
+                    + diagnostic.getSource().getName() + ":" + diagnostic.getLineNumber() + ": "
+                    + diagnostic.getMessage(Locale.ROOT)));
+            assertEquals(List.of(), messages);
+            assertTrue(compiled);
+        }
+
+        loader = new URLClassLoader(new URL[] {classes.toUri().toURL()});
+        Class<?> root = loader.loadClass(PACKAGE + "." + generator.getClassName(module));
+        fromJson = root.getMethod("fromJson", String.class);
+        toJson = root.getMethod("toJson");
+    }
+
+    @AfterAll
+    static void closeLoader() throws IOException {
+        loader.close();
+    }
+
+    @Test
+    void payloadRoundTrips() throws Exception {
+        String json = "{\"class:class\":{"
+                + "\"class\":{\"int\":-5,\"toString\":\"x\"},"
+                + "\"string\":{\"default\":[null],\"big\":\"-9223372036854775808\","
+                + "\"huge\":\"18446744073709551615\",\"ratio\":\"3.14\",\"load\":255,\"enabled\":true,"
+                + "\"tags\":[1,-2,127]},"
+                + "\"tcp\":{\"ip\":\"10.0.0.1\",\"port\":22},"
+                + "\"read\":[{\"name\":\"a\\\"b\\\\c\\n\u00e9\",\"ip\":\"::1\","
+                + "\"read\":[{\"id\":1},{\"id\":4294967295}]}],"
+                + "\"write-to\":false,\"a-b\":\"1\",\"a.b\":\"2\"}}";
+        Object document = fromJson.invoke(null, json);
+        assertEquals(json, toJson.invoke(document));
+        assertEquals(document, fromJson.invoke(null, toJson.invoke(document)));
+    }
+
+    @Test
+    void absentMembersStayAbsent() throws Exception {
+        String json = "{\"class:class\":{\"string\":{\"enabled\":false},\"udp-port\":53}}";
+        assertEquals(json, toJson.invoke(fromJson.invoke(null, json)));
+        assertEquals("{}", toJson.invoke(fromJson.invoke(null, "{}")));
+    }
+
+    @Test
+    void invalidPayloadsAreRejected() {
+        assertRejected("{\"class:class\":{\"bogus\":1}}", "Unknown member 'bogus'");
+        assertRejected("{\"class:class\":{\"a-b\":\"1\",\"a-b\":\"2\"}}", "Duplicate member 'a-b'");
+        assertRejected("{\"class:class\":{\"string\":{\"enabled\":true,\"tags\":[128]}}}", "out of range");
+        assertRejected("{\"class:class\":{\"string\":{}}}", "Missing mandatory member 'enabled'");
+        assertRejected("{\"class:class\":{\"tcp\":{\"port\":1}}}", "Missing mandatory member 'ip'");
+    }
+
+    private static void assertRejected(String json, String message) {
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class,
+                () -> fromJson.invoke(null, json));
+        assertTrue(thrown.getCause() instanceof IOException, json);
+        assertTrue(thrown.getCause().getMessage().contains(message), thrown.getCause().getMessage());
+    }
+}
@@ -0,0 +1,55 @@
+#!/bin/sh
+# Thin client for the validation server started with `java Main --server`.
+# Takes the same arguments as `java Main validate|show|convert|diff ...`, prints
+# the same JSON lines and exits with the same code, without starting a JVM.
+# The port defaults to YANG_SERVER_PORT or 7979. Requests carry the secret
+# from the server's token file, passed to curl in a file so that it does not
+# show up in the process list.
+
+port="${YANG_SERVER_PORT:-7979}"
+if [ "$1" = "--port" ]; then
+    port="$2"
+    shift 2
+fi
+
+# One argument per line; file lists from stdin are sent inline since the
+# server cannot read our stdin
+body=""
+while [ $# -gt 0 ]; do
+    if [ "$1" = "--files-from" ] && [ "$2" = "-" ]; then
+        body="$body$(cat)
+"
+        shift 2
+        continue
+    fi
+    body="$body$1
+"
+    shift
+done
+
+token_file="$HOME/.yang-validator/server-$port.token"
+if [ ! -r "$token_file" ]; then
+    echo "No validation server on port $port (no $token_file)" >&2
+    exit 3
+fi
+
+auth=$(mktemp)
+headers=$(mktemp)
+response=$(mktemp)
+trap 'rm -f "$auth" "$headers" "$response"' EXIT
+printf 'Authorization: Bearer %s\n' "$(cat "$token_file")" > "$auth"
+
+if ! curl -s -o "$response" -D "$headers" --data-binary "$body" -H @"$auth" \
+        -H "Working-Directory: $(pwd)" -H "Content-Type: text/plain; charset=utf-8" \
+        "http://127.0.0.1:$port/run"; then
+    echo "No validation server on port $port" >&2
+    exit 3
+fi
+
+code=$(sed -n 's/^[Ee]xit-[Cc]ode: *\([0-9]*\).*/\1/p' "$headers")
+if [ "$code" = "2" ] || [ -z "$code" ]; then
+    cat "$response" >&2
+else
+    cat "$response"
+fi
+exit "${code:-3}"